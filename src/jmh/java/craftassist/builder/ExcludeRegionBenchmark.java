@@ -0,0 +1,130 @@
+package craftassist.builder;
+
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比較帶有 exclude 的實心 region 三種展開方式的耗時與配置量：
+ * <ul>
+ *   <li>{@code jsonPerVoxel}：逐格呼叫 {@link BuildStructure.BlockRegion#getExclude()}，每格重新解析 JSON</li>
+ *   <li>{@code maskPerVoxel}：排除框預先正規化為 min/max 陣列，走訪時逐格檢查</li>
+ *   <li>{@code subtracted}：建構計畫時以方框相減拆成互不重疊的子 region，被排除的格子不會走訪</li>
+ * </ul>
+ * 以 {@code ./gradlew jmh} 執行。後兩者包含正規化或建立計畫的成本；region 為牆面比例的實心方塊，
+ * 排除框模擬沿牆面分布的門窗。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcludeRegionBenchmark {
+
+    // region 邊長為 side x side/2 x side，side = 60 約 10 萬格
+    @Param({"30", "60"})
+    private int side;
+
+    @Param({"4", "16"})
+    private int excludes;
+
+    private BuildStructure.BlockRegion region;
+
+    @Setup
+    public void setup() {
+        List<int[][]> boxes = new ArrayList<>();
+        int height = side / 2;
+        for (int i = 0; i < excludes; i++) {
+            // 交替落在 z=0 與 z=side-1 兩面牆上，並往內挖兩格深
+            int x = 1 + (i / 2) * (side - 4) / Math.max(1, excludes / 2);
+            int z = i % 2 == 0 ? 0 : side - 2;
+            boxes.add(new int[][]{{x, 1, z}, {x + 2, Math.min(height - 1, 4), z + 1}});
+        }
+        region = new BuildStructure.BlockRegion("minecraft:stone", new int[]{0, 0, 0},
+                new int[]{side - 1, height - 1, side - 1}, false, null, null, boxes);
+    }
+
+    @Benchmark
+    public void jsonPerVoxel(Blackhole bh) {
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+        for (int x = from[0]; x <= to[0]; x++) {
+            for (int y = from[1]; y <= to[1]; y++) {
+                for (int z = from[2]; z <= to[2]; z++) {
+                    if (!isExcluded(x, y, z, region.getExclude())) {
+                        bh.consume(BlockPos.asLong(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void maskPerVoxel(Blackhole bh) {
+        List<int[][]> exclude = region.getExclude();
+        int[] holes = new int[exclude.size() * 6];
+        for (int i = 0; i < exclude.size(); i++) {
+            int[][] pair = exclude.get(i);
+            for (int axis = 0; axis < 3; axis++) {
+                holes[i * 6 + axis] = Math.min(pair[0][axis], pair[1][axis]);
+                holes[i * 6 + 3 + axis] = Math.max(pair[0][axis], pair[1][axis]);
+            }
+        }
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+        for (int x = from[0]; x <= to[0]; x++) {
+            for (int y = from[1]; y <= to[1]; y++) {
+                for (int z = from[2]; z <= to[2]; z++) {
+                    if (!isMasked(x, y, z, holes)) {
+                        bh.consume(BlockPos.asLong(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void subtracted(Blackhole bh) {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+        builder.addRegion(from[0], from[1], from[2], to[0], to[1], to[2],
+                builder.addState(null, 0), false, region.getExclude());
+        PlacementPlan.Cursor cursor = builder.build().cursor();
+        while (cursor.advance()) {
+            bh.consume(cursor.pos());
+        }
+    }
+
+    private static boolean isMasked(int x, int y, int z, int[] holes) {
+        for (int h = 0; h < holes.length; h += 6) {
+            if (x >= holes[h] && x <= holes[h + 3]
+                    && y >= holes[h + 1] && y <= holes[h + 4]
+                    && z >= holes[h + 2] && z <= holes[h + 5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExcluded(int x, int y, int z, List<int[][]> exclude) {
+        if (exclude == null) {
+            return false;
+        }
+        for (int[][] pair : exclude) {
+            int[] a = pair[0];
+            int[] b = pair[1];
+            if (x >= Math.min(a[0], b[0]) && x <= Math.max(a[0], b[0])
+                    && y >= Math.min(a[1], b[1]) && y <= Math.max(a[1], b[1])
+                    && z >= Math.min(a[2], b[2]) && z <= Math.max(a[2], b[2])) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package craftassist.util;
+
+import net.minecraft.core.BlockPos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 比較 undo 去重使用 {@code HashSet<BlockPos>} 與 {@link LongHashSet} 的耗時與配置量。
+ * <p>
+ * 以 {@code ./gradlew jmh} 執行；gc profiler 的 {@code gc.alloc.rate.norm} 即每次建置集合配置的位元組數，
+ * 可直接比較兩者的記憶體用量。座標依放置順序（x/z 平面逐層往上）產生，與實際建築相同。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+public class PositionSetBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int blocks;
+
+    private long[] positions;
+
+    @Setup
+    public void setup() {
+        positions = new long[blocks];
+        int side = (int) Math.ceil(Math.sqrt(blocks / 64.0));
+        int i = 0;
+        for (int y = 0; i < blocks; y++) {
+            for (int x = 0; x < side && i < blocks; x++) {
+                for (int z = 0; z < side && i < blocks; z++) {
+                    positions[i++] = BlockPos.asLong(x, 64 + y, z);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void hashSetOfBlockPos(Blackhole bh) {
+        Set<BlockPos> set = new HashSet<>();
+        for (long packed : positions) {
+            bh.consume(set.add(BlockPos.of(packed)));
+        }
+        bh.consume(set);
+    }
+
+    @Benchmark
+    public void longHashSet(Blackhole bh) {
+        LongHashSet set = new LongHashSet();
+        for (long packed : positions) {
+            bh.consume(set.add(packed));
+        }
+        bh.consume(set);
+    }
+}
@@ -2,12 +2,16 @@ package craftassist;
 
 import craftassist.api.OpenRouterClient;
 import craftassist.api.RateLimiter;
+import craftassist.api.ResponseCache;
 import craftassist.builder.BatchPlacementManager;
+import craftassist.builder.PlacementClasses;
 import craftassist.builder.WaitingAnimationManager;
 import craftassist.command.CraftAssistCommand;
 import craftassist.config.ConfigManager;
+import craftassist.library.StructureLibrary;
 import craftassist.undo.UndoManager;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +26,13 @@ public class CraftAssistMod implements ModInitializer {
         ConfigManager.load();
         CraftAssistCommand.register();
         BatchPlacementManager.init();
+        PlacementClasses.init();
         WaitingAnimationManager.init();
         UndoManager.init();
+        StructureLibrary.init();
         RateLimiter.init();
+        OpenRouterClient.setResponseCache(new ResponseCache(
+                FabricLoader.getInstance().getGameDir().resolve("craftassist").resolve("cache")));
 
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             LOGGER.info("[CraftAssist] 伺服器關閉中，清理資源...");
@@ -0,0 +1,240 @@
+package craftassist.api;
+
+import craftassist.CraftAssistMod;
+import craftassist.config.ModConfig;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 以 HTTP 呼叫 OpenAI 相容 chat completion 端點（預設為 OpenRouter）的傳輸實作。
+ * <p>
+ * 端點由 {@code apiUrl} 設定；設定 {@code llmRecordDir} 時會把每個成功的回應存成
+ * {@code <目錄>/<階段>/<時間>.json}，可直接交給 {@link MockLlmServer} 重播。
+ * 串流請求（{@code stream: true}）以 server-sent events 逐段讀取，錄製時只保存組合後的模型輸出。
+ */
+public class HttpLlmTransport implements LlmTransport {
+
+    static final String STAGE_HEADER = "X-CraftAssist-Stage";
+
+    private static final Gson GSON = new Gson();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .build();
+
+    @Override
+    public CompletableFuture<String> send(LlmRequest request, ModConfig config) {
+        HttpRequest httpRequest = buildHttpRequest(buildBody(request), request, config);
+
+        String stage = request.stage().getLabel();
+        long startTime = System.nanoTime();
+
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+                    if (response.statusCode() != 200) {
+                        CraftAssistMod.LOGGER.error("[CraftAssist] {} API 錯誤 | HTTP {} | 耗時: {}ms",
+                                stage, response.statusCode(), elapsedMs);
+                        throw toException(response.statusCode());
+                    }
+
+                    CraftAssistMod.LOGGER.debug("[CraftAssist] {} API 回應 | HTTP {} | 耗時: {}ms",
+                            stage, response.statusCode(), elapsedMs);
+                    record(config.getLlmRecordDir(), request.stage(), response.body());
+                    return response.body();
+                });
+    }
+
+    @Override
+    public CompletableFuture<String> stream(LlmRequest request, ModConfig config, Consumer<String> onDelta) {
+        JsonObject body = buildBody(request);
+        body.addProperty("stream", true);
+        HttpRequest httpRequest = buildHttpRequest(body, request, config);
+
+        String stage = request.stage().getLabel();
+        long startTime = System.nanoTime();
+        AtomicReference<Stream<String>> openLines = new AtomicReference<>();
+        CompletableFuture<String> timed = new CompletableFuture<>();
+
+        // 請求逾時只涵蓋等待回應標頭；之後每收到一行就重新計算閒置時間，停滯時結束並關閉連線。
+        // 持續有輸出的長時間生成不受 timeoutSeconds 限制，只受 streamMaxSeconds 的總時間上限約束
+        StreamWatchdog watchdog = new StreamWatchdog(config.getTimeoutSeconds() * 1000L,
+                config.getStreamMaxSeconds() * 1000L, reason -> {
+            if (timed.completeExceptionally(new TimeoutException(reason))) {
+                CraftAssistMod.LOGGER.warn("[CraftAssist] {} {}，中斷連線", stage, reason);
+                Stream<String> lines = openLines.get();
+                if (lines != null) {
+                    lines.close();
+                }
+            }
+        });
+
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofLines())
+                .thenApply(response -> {
+                    try (Stream<String> lines = response.body()) {
+                        if (response.statusCode() != 200) {
+                            CraftAssistMod.LOGGER.error("[CraftAssist] {} API 錯誤 | HTTP {} | 耗時: {}ms",
+                                    stage, response.statusCode(), (System.nanoTime() - startTime) / 1_000_000);
+                            throw toException(response.statusCode());
+                        }
+                        openLines.set(lines);
+                        watchdog.start();
+                        String content = readEvents(lines.peek(line -> watchdog.touch()).iterator(), onDelta);
+
+                        CraftAssistMod.LOGGER.debug("[CraftAssist] {} API 串流完成 | 長度: {} | 耗時: {}ms",
+                                stage, content.length(), (System.nanoTime() - startTime) / 1_000_000);
+                        record(config.getLlmRecordDir(), request.stage(), content);
+                        return content;
+                    }
+                })
+                .whenComplete((content, ex) -> {
+                    watchdog.stop();
+                    if (ex != null) {
+                        timed.completeExceptionally(ex);
+                    } else {
+                        timed.complete(content);
+                    }
+                });
+        return timed;
+    }
+
+    /**
+     * 讀取 chat completion 串流事件，組合每個 {@code choices[0].delta.content}。
+     */
+    static String readEvents(Iterator<String> lines, Consumer<String> onDelta) {
+        SseReader reader = new SseReader();
+        StringBuilder content = new StringBuilder();
+        while (lines.hasNext()) {
+            String data = reader.feedLine(lines.next());
+            if (data != null && !handleEvent(data, content, onDelta)) {
+                return content.toString();
+            }
+        }
+        String data = reader.finish();
+        if (data != null) {
+            handleEvent(data, content, onDelta);
+        }
+        return content.toString();
+    }
+
+    private static boolean handleEvent(String data, StringBuilder content, Consumer<String> onDelta) {
+        if (data.equals("[DONE]")) {
+            return false;
+        }
+        JsonObject event;
+        try {
+            event = JsonParser.parseString(data).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new ApiException(ApiException.Type.PARSE_ERROR, e);
+        }
+        if (event.has("error")) {
+            // 串流開始後的錯誤無法以狀態碼回報，只會出現在事件中
+            throw new ApiException(ApiException.Type.SERVER_ERROR, event.get("error").toString());
+        }
+        if (!event.has("choices") || event.getAsJsonArray("choices").isEmpty()) {
+            return true;
+        }
+        JsonObject choice = event.getAsJsonArray("choices").get(0).getAsJsonObject();
+        JsonObject delta = choice.getAsJsonObject("delta");
+        JsonElement text = delta == null ? null : delta.get("content");
+        if (text != null && !text.isJsonNull()) {
+            String piece = text.getAsString();
+            if (!piece.isEmpty()) {
+                content.append(piece);
+                onDelta.accept(piece);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private HttpRequest buildHttpRequest(JsonObject body, LlmRequest request, ModConfig config) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(config.getApiUrl()))
+                .header("Authorization", "Bearer " + config.getApiKey())
+                .header("Content-Type", "application/json")
+                .header("X-Title", "CraftAssist Minecraft Mod")
+                .header(STAGE_HEADER, request.stage().getId())
+                .timeout(Duration.ofSeconds(config.getTimeoutSeconds()))
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(body)))
+                .build();
+    }
+
+    static JsonObject buildBody(LlmRequest request) {
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", request.model());
+
+        JsonArray messages = new JsonArray();
+
+        JsonObject systemMsg = new JsonObject();
+        systemMsg.addProperty("role", "system");
+        systemMsg.addProperty("content", request.systemPrompt());
+        messages.add(systemMsg);
+
+        JsonObject userMsg = new JsonObject();
+        userMsg.addProperty("role", "user");
+        userMsg.addProperty("content", request.userPrompt());
+        messages.add(userMsg);
+
+        requestBody.add("messages", messages);
+
+        if (request.jsonFormat()) {
+            JsonObject responseFormat = new JsonObject();
+            responseFormat.addProperty("type", "json_object");
+            requestBody.add("response_format", responseFormat);
+        }
+        if (request.temperature() != null) {
+            requestBody.addProperty("temperature", request.temperature());
+        }
+        return requestBody;
+    }
+
+    static ApiException toException(int statusCode) {
+        return switch (statusCode) {
+            case 401, 403 -> new ApiException(ApiException.Type.AUTHENTICATION);
+            case 429 -> new ApiException(ApiException.Type.RATE_LIMIT);
+            default -> {
+                if (statusCode >= 500) {
+                    yield new ApiException(ApiException.Type.SERVER_ERROR, "HTTP " + statusCode);
+                }
+                yield new ApiException(ApiException.Type.NETWORK_ERROR, "HTTP " + statusCode);
+            }
+        };
+    }
+
+    private static void record(String recordDir, LlmStage stage, String body) {
+        if (recordDir == null || recordDir.isBlank()) {
+            return;
+        }
+        try {
+            Path dir = Path.of(recordDir).resolve(stage.getId());
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve(System.currentTimeMillis() + ".json"), body);
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法錄製 API 回應", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package craftassist.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 建築流程各階段的延遲統計，供 {@code /ca status} 比較兩種流程模式。
+ * <p>
+ * 項目名稱為 {@code <流程模式>/<階段>}，例如 {@code staged/plan}、{@code combined/combined}，
+ * 端到端耗時記在 {@code <流程模式>/total}。每個項目保留最近 {@link #SAMPLE_SIZE} 筆成功樣本
+ * 計算中位數與 p95，另外累計成功與失敗次數。修正階段的次數相對於 total 的比例可作為品質指標。
+ */
+public class LatencyMetrics {
+
+    public static final int SAMPLE_SIZE = 100;
+
+    private static final Map<String, Series> series = new TreeMap<>();
+
+    /**
+     * 一個項目的統計摘要，時間單位為毫秒。
+     */
+    public record Snapshot(String name, int count, int failures, long medianMs, long p95Ms, long lastMs) {
+    }
+
+    public static void record(String name, long elapsedNanos) {
+        synchronized (series) {
+            series.computeIfAbsent(name, k -> new Series()).add(elapsedNanos);
+        }
+    }
+
+    public static void recordFailure(String name) {
+        synchronized (series) {
+            series.computeIfAbsent(name, k -> new Series()).failures++;
+        }
+    }
+
+    /**
+     * 依名稱排序的所有項目摘要。
+     */
+    public static List<Snapshot> snapshots() {
+        synchronized (series) {
+            List<Snapshot> result = new ArrayList<>(series.size());
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                result.add(entry.getValue().snapshot(entry.getKey()));
+            }
+            return result;
+        }
+    }
+
+    public static void reset() {
+        synchronized (series) {
+            series.clear();
+        }
+    }
+
+    /**
+     * 固定大小的環狀樣本。
+     */
+    private static final class Series {
+        final long[] samples = new long[SAMPLE_SIZE];
+        int size;
+        int next;
+        int count;
+        int failures;
+        long last;
+
+        void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % SAMPLE_SIZE;
+            size = Math.min(size + 1, SAMPLE_SIZE);
+            count++;
+            last = nanos;
+        }
+
+        Snapshot snapshot(String name) {
+            if (size == 0) {
+                return new Snapshot(name, count, failures, 0, 0, 0);
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return new Snapshot(name, count, failures,
+                    toMillis(percentile(sorted, 50)), toMillis(percentile(sorted, 95)), toMillis(last));
+        }
+
+        // nearest-rank 百分位數
+        private static long percentile(long[] sorted, int p) {
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static long toMillis(long nanos) {
+            return nanos / 1_000_000;
+        }
+    }
+}
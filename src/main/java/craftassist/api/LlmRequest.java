@@ -0,0 +1,16 @@
+package craftassist.api;
+
+/**
+ * 一次 chat completion 請求的內容，與傳輸方式無關。
+ *
+ * @param jsonFormat 要求模型輸出 JSON 物件
+ */
+public record LlmRequest(LlmStage stage, String model, String systemPrompt, String userPrompt, boolean jsonFormat) {
+
+    /**
+     * 取樣溫度。JSON 模式需要精確座標，固定為 0；其餘沿用供應商預設值（回傳 null）。
+     */
+    public Integer temperature() {
+        return jsonFormat ? 0 : null;
+    }
+}
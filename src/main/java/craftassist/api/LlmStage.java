@@ -0,0 +1,42 @@
+package craftassist.api;
+
+/**
+ * 建築流程中呼叫 LLM 的階段。
+ */
+public enum LlmStage {
+    PLAN("plan", "第一階段"),
+    BUILD("build", "第二階段"),
+    FIX("fix", "修正階段"),
+    COMBINED("combined", "單次生成");
+
+    private final String id;
+    private final String label;
+
+    LlmStage(String id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    /**
+     * 英文代號，用於請求標頭與錄製檔目錄名稱。
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 日誌與訊息使用的名稱。
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public static LlmStage fromId(String id) {
+        for (LlmStage stage : values()) {
+            if (stage.id.equals(id)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,33 @@
+package craftassist.api;
+
+import craftassist.config.ModConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 送出 LLM 請求的方式。回傳 OpenAI 相容的 chat completion 回應本文，失敗時以 {@link ApiException} 結束。
+ * <p>
+ * 預設為 {@link HttpLlmTransport}；測試或離線壓測時可換成其他實作，
+ * 或把 {@code apiUrl} 指向 {@link MockLlmServer}。
+ */
+public interface LlmTransport {
+
+    CompletableFuture<String> send(LlmRequest request, ModConfig config);
+
+    /**
+     * 以串流方式送出請求，模型輸出的每一段文字到達時交給 {@code onDelta}。
+     * 回傳的是完整的模型輸出內容（不是 chat completion 本文）。
+     * 不支援串流的實作會在整份回應完成後一次送出全部內容。
+     */
+    default CompletableFuture<String> stream(LlmRequest request, ModConfig config, Consumer<String> onDelta) {
+        return send(request, config).thenApply(body -> {
+            String content = OpenRouterClient.extractContent(body);
+            onDelta.accept(content);
+            return content;
+        });
+    }
+
+    default void close() {
+    }
+}
@@ -0,0 +1,388 @@
+package craftassist.api;
+
+import craftassist.CraftAssistMod;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 本機的 chat completions 替身伺服器，重播錄製的回應，用於不連網的測試與壓測。
+ * <p>
+ * 依請求標頭 {@code X-CraftAssist-Stage} 選擇階段，同一階段的多筆回應依序輪流使用。
+ * 可加入固定延遲與隨機抖動模擬模型生成時間，並以指定機率回傳錯誤狀態碼測試重試邏輯。
+ * 錄製檔可以是完整的 chat completion 回應，也可以只是模型輸出的內容（{@code llmRecordDir} 產生的格式），
+ * 後者會自動包裝。請求帶有 {@code stream: true} 時以 server-sent events 分段送出內容，
+ * 每段的大小與間隔可調整，用來模擬模型逐字生成。
+ * <p>
+ * 單獨執行：{@code java -cp <mod jar> craftassist.api.MockLlmServer --dir <錄製目錄> --port 8089 --latency 2000}，
+ * 再把 {@code apiUrl} 設為 {@code http://127.0.0.1:8089/v1/chat/completions}。
+ */
+public class MockLlmServer implements AutoCloseable {
+
+    public static final String PATH = "/v1/chat/completions";
+
+    private static final Gson GSON = new Gson();
+
+    private final Map<LlmStage, List<String>> responses = new EnumMap<>(LlmStage.class);
+    private final Map<LlmStage, AtomicInteger> cursors = new EnumMap<>(LlmStage.class);
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final int port;
+    private Random random = new Random();
+    private volatile long latencyMs = 0;
+    private volatile long jitterMs = 0;
+    private volatile double errorRate = 0;
+    private volatile int errorStatus = 503;
+    private volatile int streamChunkChars = 64;
+    private volatile long streamIntervalMs = 0;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port 監聽的埠號，0 表示自動選擇
+     */
+    public MockLlmServer(int port) {
+        this.port = port;
+        for (LlmStage stage : LlmStage.values()) {
+            responses.put(stage, new ArrayList<>());
+            cursors.put(stage, new AtomicInteger());
+        }
+    }
+
+    /**
+     * 加入一筆回應；{@code body} 可為完整 chat completion 或只有模型輸出內容。
+     */
+    public synchronized MockLlmServer addResponse(LlmStage stage, String body) {
+        responses.get(stage).add(body);
+        return this;
+    }
+
+    /**
+     * 載入 {@code <目錄>/<階段>/*.json}（與 {@code llmRecordDir} 的結構相同），依檔名排序。
+     *
+     * @return 載入的筆數
+     */
+    public int loadRecordings(Path dir) throws IOException {
+        int loaded = 0;
+        for (LlmStage stage : LlmStage.values()) {
+            Path stageDir = dir.resolve(stage.getId());
+            if (!Files.isDirectory(stageDir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(stageDir)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    addResponse(stage, Files.readString(file));
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 每個請求回應前等待 {@code latencyMs} 加上 0 到 {@code jitterMs} 之間的隨機時間。
+     */
+    public MockLlmServer setLatency(long latencyMs, long jitterMs) {
+        if (latencyMs < 0 || jitterMs < 0) {
+            throw new IllegalArgumentException("延遲不可為負數");
+        }
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        return this;
+    }
+
+    /**
+     * 以 {@code rate} 的機率回傳 {@code status} 錯誤，而不是錄製的回應。
+     */
+    public MockLlmServer setErrors(double rate, int status) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("錯誤機率必須介於 0 與 1: " + rate);
+        }
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * 串流回應時每個事件包含 {@code chars} 個字元，事件之間等待 {@code intervalMs}。
+     */
+    public MockLlmServer setStreamChunking(int chars, long intervalMs) {
+        if (chars <= 0 || intervalMs < 0) {
+            throw new IllegalArgumentException("串流分段設定無效");
+        }
+        this.streamChunkChars = chars;
+        this.streamIntervalMs = intervalMs;
+        return this;
+    }
+
+    /**
+     * 固定隨機種子，讓抖動與錯誤注入可重現。
+     */
+    public synchronized MockLlmServer setSeed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // 延遲以 sleep 模擬，每個請求一個虛擬執行緒，並行請求互不阻塞
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.close();
+        server = null;
+        executor = null;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public synchronized String getUrl() {
+        if (server == null) {
+            throw new IllegalStateException("伺服器尚未啟動");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("method not allowed"));
+                return;
+            }
+            JsonObject request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                        .getAsJsonObject();
+            } catch (RuntimeException e) {
+                send(exchange, 400, error("invalid request body"));
+                return;
+            }
+
+            long delay;
+            boolean fail;
+            synchronized (this) {
+                delay = latencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * (jitterMs + 1)) : 0);
+                fail = errorRate > 0 && random.nextDouble() < errorRate;
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (fail) {
+                send(exchange, errorStatus, error("injected error"));
+                return;
+            }
+
+            LlmStage stage = resolveStage(exchange.getRequestHeaders().getFirst(HttpLlmTransport.STAGE_HEADER), request);
+            String body = next(stage);
+            if (body == null) {
+                send(exchange, 404, error("no recorded response for stage " + stage.getId()));
+                return;
+            }
+            if (request.has("stream") && request.get("stream").getAsBoolean()) {
+                sendStream(exchange, contentOf(body));
+            } else {
+                send(exchange, 200, toCompletion(body, request));
+            }
+        }
+    }
+
+    private void sendStream(HttpExchange exchange, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            // 與 OpenRouter 相同，先送出一行 keep-alive 註解
+            writeEvent(out, ": OPENROUTER PROCESSING\n\n");
+            int chunk = streamChunkChars;
+            for (int start = 0; start < content.length(); start += chunk) {
+                if (start > 0 && streamIntervalMs > 0) {
+                    try {
+                        Thread.sleep(streamIntervalMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                String piece = content.substring(start, Math.min(content.length(), start + chunk));
+                writeEvent(out, "data: " + GSON.toJson(deltaEvent(piece)) + "\n\n");
+            }
+            writeEvent(out, "data: [DONE]\n\n");
+        }
+    }
+
+    private static void writeEvent(OutputStream out, String event) throws IOException {
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static JsonObject deltaEvent(String piece) {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("content", piece);
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("delta", delta);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject event = new JsonObject();
+        event.addProperty("object", "chat.completion.chunk");
+        event.add("choices", choices);
+        return event;
+    }
+
+    /**
+     * 錄製的回應若為完整 chat completion，取出其中的模型輸出。
+     */
+    static String contentOf(String body) {
+        try {
+            JsonElement parsed = JsonParser.parseString(body);
+            if (parsed.isJsonObject() && parsed.getAsJsonObject().has("choices")) {
+                return OpenRouterClient.extractContent(body);
+            }
+        } catch (RuntimeException e) {
+            // 純文字內容
+        }
+        return body;
+    }
+
+    private synchronized String next(LlmStage stage) {
+        List<String> list = responses.get(stage);
+        if (list.isEmpty()) {
+            return null;
+        }
+        return list.get(Math.floorMod(cursors.get(stage).getAndIncrement(), list.size()));
+    }
+
+    // 沒有階段標頭時（例如其他用戶端）以是否要求 JSON 輸出區分規劃與建築
+    private static LlmStage resolveStage(String header, JsonObject request) {
+        LlmStage stage = header == null ? null : LlmStage.fromId(header);
+        if (stage != null) {
+            return stage;
+        }
+        return request.has("response_format") ? LlmStage.BUILD : LlmStage.PLAN;
+    }
+
+    static String toCompletion(String body, JsonObject request) {
+        try {
+            JsonElement parsed = JsonParser.parseString(body);
+            if (parsed.isJsonObject() && parsed.getAsJsonObject().has("choices")) {
+                return body;
+            }
+        } catch (RuntimeException e) {
+            // 純文字藍圖，直接包裝
+        }
+
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("content", body);
+        JsonObject choice = new JsonObject();
+        choice.addProperty("index", 0);
+        choice.add("message", message);
+        choice.addProperty("finish_reason", "stop");
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+
+        JsonObject completion = new JsonObject();
+        completion.addProperty("id", "mock-" + System.nanoTime());
+        completion.addProperty("object", "chat.completion");
+        if (request.has("model")) {
+            completion.add("model", request.get("model"));
+        }
+        completion.add("choices", choices);
+        return GSON.toJson(completion);
+    }
+
+    private static String error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("message", message);
+        JsonObject root = new JsonObject();
+        root.add("error", error);
+        return GSON.toJson(root);
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8089;
+        Path dir = null;
+        long latency = 0;
+        long jitter = 0;
+        double errorRate = 0;
+        int errorStatus = 503;
+        int chunkChars = 64;
+        long chunkInterval = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(value);
+                case "--dir" -> dir = Path.of(value);
+                case "--latency" -> latency = Long.parseLong(value);
+                case "--jitter" -> jitter = Long.parseLong(value);
+                case "--error-rate" -> errorRate = Double.parseDouble(value);
+                case "--error-status" -> errorStatus = Integer.parseInt(value);
+                case "--chunk-chars" -> chunkChars = Integer.parseInt(value);
+                case "--chunk-interval" -> chunkInterval = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("未知的參數: " + args[i]);
+            }
+        }
+
+        MockLlmServer server = new MockLlmServer(port)
+                .setLatency(latency, jitter)
+                .setErrors(errorRate, errorStatus)
+                .setStreamChunking(chunkChars, chunkInterval);
+        int loaded = dir == null ? 0 : server.loadRecordings(dir);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        CraftAssistMod.LOGGER.info("[CraftAssist] MockLlmServer 已啟動: {}（{} 筆錄製回應）", server.getUrl(), loaded);
+    }
+}
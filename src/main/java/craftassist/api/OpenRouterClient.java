@@ -1,43 +1,106 @@
 package craftassist.api;
 
 import craftassist.CraftAssistMod;
+import craftassist.builder.BuildElementListener;
 import craftassist.builder.BuildStructure;
 import craftassist.config.ModConfig;
 import com.google.gson.*;
 import net.minecraft.core.Direction;
 
 import java.net.ConnectException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.net.http.HttpTimeoutException;
-import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+/**
+ * 建築流程的 LLM 呼叫入口。請求實際由 {@link LlmTransport} 送出，這裡負責重試與回應解析。
+ */
 public class OpenRouterClient {
 
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .build();
-
-    private static final String API_URL = "https://openrouter.ai/api/v1/chat/completions";
     private static final Gson GSON = new Gson();
 
+    private static final BuildElementListener NO_LISTENER = new BuildElementListener() {
+        @Override
+        public void onRegion(int index, BuildStructure.BlockRegion region) {
+        }
+
+        @Override
+        public void onBlock(int index, BuildStructure.IndividualBlock block) {
+        }
+    };
+
+    private static volatile LlmTransport transport = new HttpLlmTransport();
+    private static volatile ResponseCache responseCache;
+
+    /**
+     * 替換傳輸實作（例如測試用的替身），舊的實作會被關閉。
+     */
+    public static void setTransport(LlmTransport newTransport) {
+        LlmTransport old = transport;
+        transport = newTransport;
+        if (old != newTransport) {
+            old.close();
+        }
+    }
+
+    /**
+     * 設定規劃與生成階段共用的回應快取，null 表示停用。
+     */
+    public static void setResponseCache(ResponseCache cache) {
+        responseCache = cache;
+    }
+
     /**
      * 第一階段：創意規劃（回傳純文字藍圖）
      */
     public static CompletableFuture<String> generatePlan(String description, Direction facing, ModConfig config) {
         String systemPrompt = PromptBuilder.buildPlanningPrompt();
-        String userPrompt = "Build: " + description + "\nPlayer is facing: " + facing.getName()
-                + " (the building entrance should face the player)";
+        String userPrompt = describeRequest(description, facing);
 
         CraftAssistMod.LOGGER.debug("[CraftAssist] 第一階段 API 請求 | 模型: {} | 描述: {}", config.getModel(), description);
 
-        return sendRequestWithRetry(systemPrompt, userPrompt, config, false, "第一階段", 0)
-                .thenApply(body -> parseTextResponse(body, "第一階段"));
+        LlmRequest request = new LlmRequest(LlmStage.PLAN, config.getModel(), systemPrompt, userPrompt, false);
+        return lookupCache(request, config).thenComposeAsync(cached -> {
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return timed(LlmStage.PLAN, config, () -> sendRequestWithRetry(request, config))
+                    .thenApply(body -> {
+                        String content = parseTextResponse(body, LlmStage.PLAN.getLabel());
+                        storeCache(request, config, content);
+                        return content;
+                    });
+        });
+    }
+
+    /**
+     * 單次請求模式：規劃與建築 JSON 在同一次呼叫中產生，藍圖寫在回應的 {@code plan} 欄位。
+     *
+     * @param listener 可為 null
+     */
+    public static CompletableFuture<BuildStructure> generateCombined(String description, Direction facing,
+                                                                     ModConfig config, BuildElementListener listener) {
+        String systemPrompt = PromptBuilder.buildCombinedPrompt(config.getMaxBlocks());
+        String userPrompt = describeRequest(description, facing);
+
+        CraftAssistMod.LOGGER.debug("[CraftAssist] 單次生成 API 請求 | 模型: {} | 描述: {}", config.getModel(), description);
+
+        return requestBuild(systemPrompt, userPrompt, config, LlmStage.COMBINED, listener)
+                .thenApply(structure -> {
+                    if (structure != null && structure.getPlan() != null) {
+                        CraftAssistMod.LOGGER.debug("[CraftAssist] {} 藍圖內容:\n{}",
+                                LlmStage.COMBINED.getLabel(), structure.getPlan());
+                    }
+                    return structure;
+                });
+    }
+
+    private static String describeRequest(String description, Direction facing) {
+        return "Build: " + description + "\nPlayer is facing: " + facing.getName()
+                + " (the building entrance should face the player)";
     }
 
     /**
@@ -50,28 +113,124 @@ public class OpenRouterClient {
 
         CraftAssistMod.LOGGER.debug("[CraftAssist] 修正階段 API 請求 | 模型: {}", config.getModel());
 
-        return sendRequestWithRetry(systemPrompt, userPrompt, config, true, "修正階段", 0)
-                .thenApply(body -> parseBuildResponse(body, "修正階段"));
+        return requestBuild(systemPrompt, userPrompt, config, LlmStage.FIX, null);
     }
 
     /**
      * 第二階段：完整建築生成（回傳建築 JSON）
      */
     public static CompletableFuture<BuildStructure> generateBuilding(String blueprint, ModConfig config) {
+        return generateBuilding(blueprint, config, null);
+    }
+
+    /**
+     * 第二階段，啟用串流時 {@code regions[]} 與 {@code blocks[]} 的每個元素在生成途中就交給 listener。
+     *
+     * @param listener 可為 null
+     */
+    public static CompletableFuture<BuildStructure> generateBuilding(String blueprint, ModConfig config,
+                                                                     BuildElementListener listener) {
         String systemPrompt = PromptBuilder.buildBuildingPrompt(blueprint, config.getMaxBlocks());
         String userPrompt = "Generate the complete building JSON following the blueprint above.";
 
         CraftAssistMod.LOGGER.debug("[CraftAssist] 第二階段 API 請求 | 模型: {}", config.getModel());
 
-        return sendRequestWithRetry(systemPrompt, userPrompt, config, true, "第二階段", 0)
-                .thenApply(body -> parseBuildResponse(body, "第二階段"));
+        return requestBuild(systemPrompt, userPrompt, config, LlmStage.BUILD, listener);
+    }
+
+    private static CompletableFuture<BuildStructure> requestBuild(String systemPrompt, String userPrompt,
+                                                                  ModConfig config, LlmStage stage,
+                                                                  BuildElementListener listener) {
+        LlmRequest request = new LlmRequest(stage, config.getModel(), systemPrompt, userPrompt, true);
+        BuildElementListener target = listener != null ? listener : NO_LISTENER;
+
+        return lookupCache(request, config).thenComposeAsync(cached -> {
+            if (cached != null) {
+                // 快取命中時仍逐一交給 listener，邊生成邊放置等流程不需區分來源
+                new StreamingBuildParser(target).feed(cached);
+                return CompletableFuture.completedFuture(parseBuildContent(cached, stage.getLabel()));
+            }
+
+            CompletableFuture<String> content;
+            if (!config.isStreamResponses()) {
+                content = timed(stage, config, () -> sendRequestWithRetry(request, config))
+                        .thenApply(body -> extractBuildContent(body, stage.getLabel()));
+            } else {
+                content = timed(stage, config, () -> withRetry(() -> {
+                    StreamingBuildParser parser = new StreamingBuildParser(target);
+                    return transport.stream(request, config, parser::feed);
+                }, config, stage, 0, target::onRestart));
+            }
+            return content.thenApply(json -> {
+                BuildStructure structure = parseBuildContent(json, stage.getLabel());
+                // 只快取能解析的回應，避免壞掉的輸出被反覆重播
+                storeCache(request, config, json);
+                return structure;
+            });
+        });
+    }
+
+    private static CompletableFuture<String> sendRequestWithRetry(LlmRequest request, ModConfig config) {
+        return withRetry(() -> transport.send(request, config), config, request.stage(), 0, () -> {
+        });
+    }
+
+    /**
+     * 記錄一次 API 呼叫（含重試）的耗時到 {@link LatencyMetrics}；快取命中不經過這裡。
+     */
+    private static <T> CompletableFuture<T> timed(LlmStage stage, ModConfig config,
+                                                  Supplier<CompletableFuture<T>> call) {
+        String name = config.getPipelineMode() + "/" + stage.getId();
+        long startTime = System.nanoTime();
+        return call.get().whenComplete((result, ex) -> {
+            if (ex == null) {
+                LatencyMetrics.record(name, System.nanoTime() - startTime);
+            } else {
+                LatencyMetrics.recordFailure(name);
+            }
+        });
+    }
+
+    /**
+     * 查詢回應快取。修正階段的輸入包含上一次的輸出，重播沒有意義，不使用快取。
+     * 記憶體層命中或停用時回傳已完成的結果，後續處理必須以 {@code thenComposeAsync} 接續，
+     * 否則解析、驗證與邊生成邊放置都會在呼叫端（伺服器 tick 執行緒）上執行。
+     *
+     * @return 停用或未命中時完成值為 null
+     */
+    private static CompletableFuture<String> lookupCache(LlmRequest request, ModConfig config) {
+        ResponseCache cache = responseCache;
+        if (cache == null || !config.isResponseCacheEnabled() || request.stage() == LlmStage.FIX) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long startTime = System.nanoTime();
+        return cache.lookup(ResponseCache.key(request), config)
+                .handle((content, ex) -> {
+                    if (ex != null) {
+                        CraftAssistMod.LOGGER.warn("[CraftAssist] {} 查詢回應快取失敗", request.stage().getLabel(), ex);
+                        return null;
+                    }
+                    if (content != null) {
+                        CraftAssistMod.LOGGER.info("[CraftAssist] {} 命中回應快取 | 耗時: {}ms",
+                                request.stage().getLabel(), (System.nanoTime() - startTime) / 1_000_000);
+                    }
+                    return content;
+                });
     }
 
-    private static CompletableFuture<String> sendRequestWithRetry(
-            String systemPrompt, String userPrompt, ModConfig config,
-            boolean jsonFormat, String stage, int attempt) {
+    private static void storeCache(LlmRequest request, ModConfig config, String content) {
+        ResponseCache cache = responseCache;
+        if (cache != null && config.isResponseCacheEnabled() && request.stage() != LlmStage.FIX) {
+            cache.store(ResponseCache.key(request), content, config);
+        }
+    }
 
-        return sendRequest(systemPrompt, userPrompt, config, jsonFormat, stage)
+    /**
+     * 可重試的錯誤以指數退避重新呼叫 {@code call}；每次重試前先執行 {@code onRetry}。
+     */
+    private static CompletableFuture<String> withRetry(Supplier<CompletableFuture<String>> call, ModConfig config,
+                                                       LlmStage stage, int attempt, Runnable onRetry) {
+        return call.get()
                 .exceptionallyCompose(ex -> {
                     Throwable cause = unwrapCause(ex);
 
@@ -79,7 +238,7 @@ public class OpenRouterClient {
                     ApiException apiEx;
                     if (cause instanceof ApiException ae) {
                         apiEx = ae;
-                    } else if (cause instanceof HttpTimeoutException) {
+                    } else if (cause instanceof HttpTimeoutException || cause instanceof TimeoutException) {
                         apiEx = new ApiException(ApiException.Type.TIMEOUT, cause);
                     } else if (cause instanceof ConnectException) {
                         apiEx = new ApiException(ApiException.Type.NETWORK_ERROR, cause);
@@ -91,91 +250,34 @@ public class OpenRouterClient {
                     if (attempt < maxRetries && apiEx.isRetriable()) {
                         long delayMs = (long) Math.pow(2, attempt) * 1000;
                         CraftAssistMod.LOGGER.warn("[CraftAssist] {} 失敗，{}ms 後重試 ({}/{}): {}",
-                                stage, delayMs, attempt + 1, maxRetries, apiEx.getMessage());
+                                stage.getLabel(), delayMs, attempt + 1, maxRetries, apiEx.getMessage());
 
                         return CompletableFuture.supplyAsync(() -> null,
                                         CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
-                                .thenCompose(v -> sendRequestWithRetry(
-                                        systemPrompt, userPrompt, config, jsonFormat, stage, attempt + 1));
+                                .thenCompose(v -> {
+                                    onRetry.run();
+                                    return withRetry(call, config, stage, attempt + 1, onRetry);
+                                });
                     }
 
                     return CompletableFuture.failedFuture(apiEx);
                 });
     }
 
-    private static CompletableFuture<String> sendRequest(String systemPrompt, String userPrompt,
-                                                         ModConfig config, boolean jsonFormat, String stage) {
-        JsonObject requestBody = new JsonObject();
-        requestBody.addProperty("model", config.getModel());
-
-        JsonArray messages = new JsonArray();
-
-        JsonObject systemMsg = new JsonObject();
-        systemMsg.addProperty("role", "system");
-        systemMsg.addProperty("content", systemPrompt);
-        messages.add(systemMsg);
-
-        JsonObject userMsg = new JsonObject();
-        userMsg.addProperty("role", "user");
-        userMsg.addProperty("content", userPrompt);
-        messages.add(userMsg);
-
-        requestBody.add("messages", messages);
-
-        if (jsonFormat) {
-            JsonObject responseFormat = new JsonObject();
-            responseFormat.addProperty("type", "json_object");
-            requestBody.add("response_format", responseFormat);
-            // 建築 JSON 需要精確座標，降低隨機性
-            requestBody.addProperty("temperature", 0);
-        }
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_URL))
-                .header("Authorization", "Bearer " + config.getApiKey())
-                .header("Content-Type", "application/json")
-                .header("X-Title", "CraftAssist Minecraft Mod")
-                .timeout(Duration.ofSeconds(config.getTimeoutSeconds()))
-                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(requestBody)))
-                .build();
-
-        long startTime = System.nanoTime();
-
-        return HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(response -> {
-                    long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
-
-                    if (response.statusCode() != 200) {
-                        CraftAssistMod.LOGGER.error("[CraftAssist] {} API 錯誤 | HTTP {} | 耗時: {}ms",
-                                stage, response.statusCode(), elapsedMs);
-
-                        throw switch (response.statusCode()) {
-                            case 401, 403 -> new ApiException(ApiException.Type.AUTHENTICATION);
-                            case 429 -> new ApiException(ApiException.Type.RATE_LIMIT);
-                            default -> {
-                                if (response.statusCode() >= 500) {
-                                    yield new ApiException(ApiException.Type.SERVER_ERROR,
-                                            "HTTP " + response.statusCode());
-                                }
-                                yield new ApiException(ApiException.Type.NETWORK_ERROR,
-                                        "HTTP " + response.statusCode());
-                            }
-                        };
-                    }
-
-                    CraftAssistMod.LOGGER.debug("[CraftAssist] {} API 回應 | HTTP {} | 耗時: {}ms",
-                            stage, response.statusCode(), elapsedMs);
-                    return response.body();
-                });
+    /**
+     * 取出 chat completion 回應中的模型輸出。
+     */
+    static String extractContent(String responseBody) {
+        JsonObject response = JsonParser.parseString(responseBody).getAsJsonObject();
+        return response.getAsJsonArray("choices")
+                .get(0).getAsJsonObject()
+                .getAsJsonObject("message")
+                .get("content").getAsString();
     }
 
     private static String parseTextResponse(String responseBody, String stage) {
         try {
-            JsonObject response = JsonParser.parseString(responseBody).getAsJsonObject();
-            String content = response.getAsJsonArray("choices")
-                    .get(0).getAsJsonObject()
-                    .getAsJsonObject("message")
-                    .get("content").getAsString();
+            String content = extractContent(responseBody);
 
             CraftAssistMod.LOGGER.debug("[CraftAssist] {} 藍圖內容:\n{}", stage, content);
 
@@ -186,14 +288,17 @@ public class OpenRouterClient {
         }
     }
 
-    private static BuildStructure parseBuildResponse(String responseBody, String stage) {
+    private static String extractBuildContent(String responseBody, String stage) {
         try {
-            JsonObject response = JsonParser.parseString(responseBody).getAsJsonObject();
-            String content = response.getAsJsonArray("choices")
-                    .get(0).getAsJsonObject()
-                    .getAsJsonObject("message")
-                    .get("content").getAsString();
+            return extractContent(responseBody);
+        } catch (Exception e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] {} 無法解析 API 回應", stage, e);
+            throw new ApiException(ApiException.Type.PARSE_ERROR, e);
+        }
+    }
 
+    private static BuildStructure parseBuildContent(String content, String stage) {
+        try {
             CraftAssistMod.LOGGER.debug("[CraftAssist] {} LLM 回應內容:\n{}", stage, content);
 
             return GSON.fromJson(content, BuildStructure.class);
@@ -204,7 +309,7 @@ public class OpenRouterClient {
     }
 
     public static void shutdown() {
-        HTTP_CLIENT.close();
+        transport.close();
     }
 
     private static Throwable unwrapCause(Throwable ex) {
@@ -33,6 +33,9 @@ public class PromptBuilder {
                 - Do NOT design internal staircases or multi-floor layouts unless explicitly requested
                 - Do NOT use item_frame, painting, or armor_stand — these are entities, not blocks
                 - Output ONLY the blueprint text, no JSON
+                - End with exactly one line declaring the footprint and entrance wall, e.g.:
+                  FOOTPRINT: width=7 depth=9 height=10 entrance=south
+                  width = X size, depth = Z size, height = Y size including the roof (all in blocks)
 
                 """ + BLOCK_WHITELIST;
     }
@@ -42,7 +45,7 @@ public class PromptBuilder {
      * 根據第一階段的藍圖，一次產出完整的建築 JSON（結構 + 細節）
      */
     public static String buildBuildingPrompt(String blueprint, int maxBlocks) {
-        return """
+        return buildingPrompt("""
                 You are a skilled Minecraft architect. Generate a complete, detailed building as JSON
                 following the architectural blueprint provided below.
 
@@ -53,7 +56,42 @@ public class PromptBuilder {
                 {
                   "regions": [/* rectangular volumes for walls, floors, roofs */],
                   "blocks": [/* individual blocks for doors, windows, furniture, decorations */]
-                }
+                }""".formatted(blueprint), maxBlocks);
+    }
+
+    /**
+     * 單次請求模式：規劃與建築 JSON 合併為一次呼叫。
+     * 模型先在 {@code plan} 欄位寫出藍圖（與第一階段相同的項目），再依藍圖輸出 regions 與 blocks，
+     * 保留「先設計再施工」的順序而不必多一次往返。
+     */
+    public static String buildCombinedPrompt(int maxBlocks) {
+        return buildingPrompt("""
+                You are a creative Minecraft designer and a skilled Minecraft architect. Design a building
+                from the user's brief description, then generate it as complete, detailed JSON.
+
+                === DESIGN FIRST (this is your blueprint) ===
+                Begin the JSON object with a "plan" string, written BEFORE any regions or blocks, covering:
+                  concept and style, dimensions (width X, depth Z, wall height), materials (block IDs for walls,
+                  floor, roof, accents), layout, roof style (flat, gable or hipped), interior, exterior,
+                  and which wall the entrance is on.
+                - Unless the user explicitly asks for multiple floors, design a SINGLE-FLOOR building.
+                - Sizes: Small 5-8, Medium 9-14, Large 15+. Wall height 4-5 blocks.
+                - Keep the plan concise (under 150 words).
+                - End the plan with exactly one footprint line, e.g.:
+                  FOOTPRINT: width=7 depth=9 height=10 entrance=south
+                Then write "regions" and "blocks" that follow the plan exactly.
+
+                === OUTPUT FORMAT ===
+                {
+                  "plan": "concept, dimensions, materials, layout ... FOOTPRINT: width=7 depth=9 height=10 entrance=south",
+                  "regions": [/* rectangular volumes for walls, floors, roofs */],
+                  "blocks": [/* individual blocks for doors, windows, furniture, decorations */]
+                }""", maxBlocks);
+    }
+
+    private static String buildingPrompt(String header, int maxBlocks) {
+        return header + """
+
 
                 === REGIONS (rectangular volumes) ===
                 {
@@ -174,9 +212,12 @@ public class PromptBuilder {
                 - Output ONLY the JSON object, no explanatory text
                 - Follow the blueprint's material choices and layout
                 - Follow the blueprint's entrance wall
+                - If the blueprint declares a FOOTPRINT, keep every coordinate inside it:
+                  X in [0, width-1], Y in [0, height-1], Z in [0, depth-1]
+                - List regions bottom-up (foundation, floor, walls, roof) — they are placed as they are written
                 - Do NOT use item_frame, painting, or armor_stand — these are entities, not blocks
 
-                """.formatted(blueprint, EXAMPLE_HOUSE, maxBlocks) + BLOCK_WHITELIST;
+                """.formatted(EXAMPLE_HOUSE, maxBlocks) + BLOCK_WHITELIST;
     }
 
     /**
@@ -0,0 +1,298 @@
+package craftassist.api;
+
+import craftassist.CraftAssistMod;
+import craftassist.config.ModConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 以內容定址的 LLM 回應快取。
+ * <p>
+ * key 為模型、系統提示詞、使用者提示詞、溫度與輸出格式的 SHA-256，只要請求完全相同就會命中。
+ * 分兩層：記憶體中的 LRU（{@code responseCacheMemoryEntries} 筆）與磁碟上每筆一個檔案的
+ * {@code <key>.cache}（總大小上限 {@code responseCacheMaxDiskMb}，超過時刪除最久未使用的檔案）。
+ * 兩層都以寫入時間計算 {@code responseCacheTtlHours}，過期即視為未命中。
+ * <p>
+ * 磁碟存取集中在單一背景執行緒，{@link #lookup} 與 {@link #store} 不會阻塞呼叫端；
+ * 記憶體層命中直接在呼叫端完成，不必排在磁碟讀寫之後。
+ */
+public class ResponseCache {
+
+    static final String EXTENSION = ".cache";
+
+    // "CARC"
+    private static final int MAGIC = 0x43415243;
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final Path dir;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftAssist-Cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 只由快取執行緒存取；-1 表示尚未掃描目錄
+    private long diskBytes = -1;
+
+    private record Entry(String content, long createdAt) {
+    }
+
+    /**
+     * @param dir 磁碟層目錄，null 表示只使用記憶體層
+     */
+    public ResponseCache(Path dir) {
+        this(dir, System::currentTimeMillis);
+    }
+
+    ResponseCache(Path dir, LongSupplier clock) {
+        this.dir = dir;
+        this.clock = clock;
+    }
+
+    /**
+     * 計算請求的快取 key（64 字元十六進位）。各欄位以長度前綴串接，避免不同切分產生相同輸入。
+     */
+    public static String key(LlmRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, request.model());
+            update(digest, request.systemPrompt());
+            update(digest, request.userPrompt());
+            update(digest, String.valueOf(request.temperature()));
+            update(digest, request.jsonFormat() ? "json" : "text");
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * 查詢快取。記憶體層命中時回傳已完成的結果，只有磁碟層在背景讀取；
+     * 呼叫端若在伺服器執行緒上，須以非同步方式接續後續處理。
+     *
+     * @return 未命中時完成值為 null
+     */
+    public CompletableFuture<String> lookup(String key, ModConfig config) {
+        String content = getMemory(key, config);
+        if (content != null || !diskEnabled(config)) {
+            return CompletableFuture.completedFuture(content);
+        }
+        return CompletableFuture.supplyAsync(() -> getDisk(key, config), executor);
+    }
+
+    /**
+     * 在背景寫入快取，失敗只記錄警告。
+     */
+    public void store(String key, String content, ModConfig config) {
+        executor.execute(() -> put(key, content, config));
+    }
+
+    /**
+     * 先查記憶體層，未命中再讀磁碟層；磁碟命中的內容會提升到記憶體層。
+     */
+    String get(String key, ModConfig config) {
+        String content = getMemory(key, config);
+        if (content != null || !diskEnabled(config)) {
+            return content;
+        }
+        return getDisk(key, config);
+    }
+
+    private String getMemory(String key, ModConfig config) {
+        long ttlMillis = TimeUnit.HOURS.toMillis(config.getResponseCacheTtlHours());
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (clock.getAsLong() - entry.createdAt() < ttlMillis) {
+                return entry.content();
+            }
+            memory.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 讀取磁碟層，只在快取執行緒呼叫。
+     */
+    private String getDisk(String key, ModConfig config) {
+        long now = clock.getAsLong();
+        long ttlMillis = TimeUnit.HOURS.toMillis(config.getResponseCacheTtlHours());
+        Path file = dir.resolve(key + EXTENSION);
+        Entry entry = readFile(file);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.createdAt() >= ttlMillis) {
+            delete(file);
+            return null;
+        }
+        try {
+            // 最後修改時間作為磁碟層的 LRU 順序
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            // 只影響淘汰順序
+        }
+        remember(key, entry, config);
+        return entry.content();
+    }
+
+    void put(String key, String content, ModConfig config) {
+        Entry entry = new Entry(content, clock.getAsLong());
+        remember(key, entry, config);
+        if (!diskEnabled(config)) {
+            return;
+        }
+        try {
+            writeFile(key, entry);
+            evictDisk(config);
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法寫入回應快取", e);
+        }
+    }
+
+    private void remember(String key, Entry entry, ModConfig config) {
+        int capacity = config.getResponseCacheMemoryEntries();
+        synchronized (memory) {
+            if (capacity <= 0) {
+                memory.clear();
+                return;
+            }
+            memory.put(key, entry);
+            var it = memory.entrySet().iterator();
+            while (memory.size() > capacity && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private boolean diskEnabled(ModConfig config) {
+        return dir != null && config.getResponseCacheMaxDiskMb() > 0;
+    }
+
+    private Entry readFile(Path file) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法讀取回應快取 {}", file.getFileName(), e);
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            delete(file);
+            return null;
+        }
+        long createdAt = buffer.getLong();
+        return new Entry(new String(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES, StandardCharsets.UTF_8),
+                createdAt);
+    }
+
+    /**
+     * 先寫入暫存檔再原子性地改名，讀取端不會看到半份檔案。
+     */
+    private void writeFile(String key, Entry entry) throws IOException {
+        Files.createDirectories(dir);
+        Path file = dir.resolve(key + EXTENSION);
+        Path tmp = dir.resolve(key + ".tmp");
+        long previous = Files.exists(file) ? Files.size(file) : 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(entry.createdAt());
+            out.write(entry.content().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(entry.createdAt()));
+        if (diskBytes >= 0) {
+            diskBytes += Files.size(file) - previous;
+        }
+    }
+
+    /**
+     * 總大小超過上限時，依最後使用時間由舊到新刪除，直到低於上限。
+     */
+    private void evictDisk(ModConfig config) throws IOException {
+        long maxBytes = config.getResponseCacheMaxDiskMb() * 1024L * 1024L;
+        if (diskBytes >= 0 && diskBytes <= maxBytes) {
+            return;
+        }
+
+        record CachedFile(Path path, long size, long lastUsed) {
+        }
+        List<CachedFile> files = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path path : stream) {
+                try {
+                    long size = Files.size(path);
+                    files.add(new CachedFile(path, size, Files.getLastModifiedTime(path).toMillis()));
+                    total += size;
+                } catch (NoSuchFileException e) {
+                    // 掃描途中被刪除
+                }
+            }
+        }
+
+        if (total > maxBytes) {
+            files.sort(Comparator.comparingLong(CachedFile::lastUsed));
+            int evicted = 0;
+            for (CachedFile file : files) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                delete(file.path());
+                total -= file.size();
+                evicted++;
+            }
+            CraftAssistMod.LOGGER.debug("[CraftAssist] 回應快取超過上限，淘汰 {} 個檔案", evicted);
+        }
+        diskBytes = total;
+    }
+
+    private void delete(Path file) {
+        try {
+            long size = Files.size(file);
+            Files.deleteIfExists(file);
+            if (diskBytes >= 0) {
+                diskBytes -= size;
+            }
+        } catch (NoSuchFileException e) {
+            // 已不存在
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法刪除回應快取 {}", file.getFileName(), e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package craftassist.api;
+
+/**
+ * 逐行解析 server-sent events，回傳每個事件的 {@code data} 欄位。
+ * 註解行（{@code :} 開頭，例如 OpenRouter 的 keep-alive）與其他欄位會被略過；
+ * 同一事件的多行 {@code data} 以換行連接。
+ */
+class SseReader {
+
+    private final StringBuilder data = new StringBuilder();
+    private boolean hasData = false;
+
+    /**
+     * @return 事件結束（空行）時的資料，其餘情況為 null
+     */
+    String feedLine(String line) {
+        if (line.isEmpty()) {
+            return dispatch();
+        }
+        if (line.startsWith(":")) {
+            return null;
+        }
+        int colon = line.indexOf(':');
+        String field = colon < 0 ? line : line.substring(0, colon);
+        if (!field.equals("data")) {
+            return null;
+        }
+        String value = colon < 0 ? "" : line.substring(colon + 1);
+        if (value.startsWith(" ")) {
+            value = value.substring(1);
+        }
+        if (hasData) {
+            data.append('\n');
+        }
+        data.append(value);
+        hasData = true;
+        return null;
+    }
+
+    /**
+     * 串流結束時取出最後一個沒有以空行結尾的事件。
+     */
+    String finish() {
+        return dispatch();
+    }
+
+    private String dispatch() {
+        if (!hasData) {
+            return null;
+        }
+        String event = data.toString();
+        data.setLength(0);
+        hasData = false;
+        return event;
+    }
+}
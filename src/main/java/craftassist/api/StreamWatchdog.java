@@ -0,0 +1,89 @@
+package craftassist.api;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 串流回應的逾時監看：距離上次收到資料超過閒置時間，或從開始起超過總時間上限時觸發。
+ * <p>
+ * 每收到一行只更新時間戳記；排程的檢查到期時比對最後活動時間，尚未閒置就依剩餘時間重新排程，
+ * 因此持續有資料的串流不論生成多久都不會被中斷。所有串流共用一條 daemon 排程執行緒。
+ */
+final class StreamWatchdog {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CraftAssist-StreamWatchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long idleNanos;
+    private final long maxNanos;
+    private final Consumer<String> onTimeout;
+    private volatile long startTime;
+    private volatile long lastActivity;
+    private volatile boolean stopped = false;
+    private volatile ScheduledFuture<?> pending;
+
+    /**
+     * @param onTimeout 逾時時以原因呼叫一次
+     */
+    StreamWatchdog(long idleMillis, long maxMillis, Consumer<String> onTimeout) {
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        this.onTimeout = onTimeout;
+    }
+
+    void start() {
+        startTime = System.nanoTime();
+        lastActivity = startTime;
+        schedule(Math.min(idleNanos, maxNanos));
+    }
+
+    /**
+     * 收到資料，重新計算閒置時間。
+     */
+    void touch() {
+        lastActivity = System.nanoTime();
+    }
+
+    void stop() {
+        stopped = true;
+        ScheduledFuture<?> task = pending;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private void schedule(long delayNanos) {
+        if (!stopped) {
+            pending = SCHEDULER.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void check() {
+        if (stopped) {
+            return;
+        }
+        long now = System.nanoTime();
+        long remaining = maxNanos - (now - startTime);
+        if (remaining <= 0) {
+            fire("串流超過總時間上限 " + TimeUnit.NANOSECONDS.toSeconds(maxNanos) + " 秒");
+            return;
+        }
+        long idle = now - lastActivity;
+        if (idle >= idleNanos) {
+            fire("串流閒置超過 " + TimeUnit.NANOSECONDS.toSeconds(idleNanos) + " 秒");
+            return;
+        }
+        schedule(Math.min(idleNanos - idle, remaining));
+    }
+
+    private void fire(String reason) {
+        stopped = true;
+        onTimeout.accept(reason);
+    }
+}
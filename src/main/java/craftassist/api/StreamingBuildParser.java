@@ -0,0 +1,142 @@
+package craftassist.api;
+
+import craftassist.CraftAssistMod;
+import craftassist.builder.BuildElementListener;
+import craftassist.builder.BuildStructure;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * 逐段接收 LLM 輸出的建築 JSON，{@code regions[]} 與 {@code blocks[]} 的每個元素一結束就解析並交給 listener，
+ * 不必等整份回應完成。
+ * <p>
+ * 只追蹤字串、跳脫字元與巢狀深度，不建立完整語法樹；第一個左大括號之前的文字（例如 Markdown 圍欄）會被略過。
+ * 完整內容仍保留在 {@link #getContent()}，回應結束後照常以 Gson 解析整份結構。
+ */
+public class StreamingBuildParser {
+
+    private static final Gson GSON = new Gson();
+
+    private final BuildElementListener listener;
+    private final StringBuilder content = new StringBuilder();
+    private final long startTime = System.nanoTime();
+    private int depth = 0;
+    private boolean started = false;
+    private boolean inString = false;
+    private boolean escape = false;
+    private int stringStart = -1;
+    private String lastString;
+    private String key;
+    private String arrayKey;
+    private int elementStart = -1;
+    private int regionIndex = 0;
+    private int blockIndex = 0;
+
+    public StreamingBuildParser(BuildElementListener listener) {
+        this.listener = listener;
+    }
+
+    public void feed(CharSequence delta) {
+        for (int i = 0; i < delta.length(); i++) {
+            char c = delta.charAt(i);
+            content.append(c);
+            process(c, content.length() - 1);
+        }
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    public int getElementCount() {
+        return regionIndex + blockIndex;
+    }
+
+    private void process(char c, int pos) {
+        if (inString) {
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 1) {
+                    lastString = content.substring(stringStart + 1, pos);
+                }
+            }
+            return;
+        }
+        if (!started) {
+            if (c == '{') {
+                started = true;
+                depth = 1;
+            }
+            return;
+        }
+        if (depth == 0) {
+            // 根物件已結束
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                stringStart = pos;
+            }
+            case ':' -> {
+                if (depth == 1) {
+                    key = lastString;
+                }
+            }
+            case ',' -> {
+                if (depth == 1) {
+                    key = null;
+                }
+            }
+            case '{', '[' -> {
+                if (depth == 1 && c == '[') {
+                    arrayKey = key;
+                } else if (depth == 2 && c == '{' && arrayKey != null) {
+                    elementStart = pos;
+                }
+                depth++;
+            }
+            case '}', ']' -> {
+                depth--;
+                if (depth == 2 && c == '}' && elementStart >= 0) {
+                    emit(content.substring(elementStart, pos + 1));
+                    elementStart = -1;
+                } else if (depth == 1 && c == ']') {
+                    arrayKey = null;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void emit(String json) {
+        try {
+            if ("regions".equals(arrayKey)) {
+                BuildStructure.BlockRegion region = GSON.fromJson(json, BuildStructure.BlockRegion.class);
+                logFirst();
+                listener.onRegion(regionIndex++, region);
+            } else if ("blocks".equals(arrayKey)) {
+                BuildStructure.IndividualBlock block = GSON.fromJson(json, BuildStructure.IndividualBlock.class);
+                logFirst();
+                listener.onBlock(blockIndex++, block);
+            }
+        } catch (JsonParseException e) {
+            // 索引不再與最終結構對齊，呼叫端會改用完整解析的結果
+            arrayKey = null;
+            CraftAssistMod.LOGGER.debug("[CraftAssist] 串流元素無法解析，改由完整回應處理: {}", e.getMessage());
+        }
+    }
+
+    private void logFirst() {
+        if (regionIndex + blockIndex == 0) {
+            CraftAssistMod.LOGGER.debug("[CraftAssist] 串流收到第一個建築元素 | 耗時: {}ms",
+                    (System.nanoTime() - startTime) / 1_000_000);
+        }
+    }
+}
@@ -2,15 +2,21 @@ package craftassist.builder;
 
 import craftassist.CraftAssistMod;
 import craftassist.config.ConfigManager;
+import craftassist.config.ModConfig;
+import craftassist.undo.BlockEntitySnapshots;
 import craftassist.undo.UndoData;
 import craftassist.undo.UndoManager;
+import craftassist.util.LongHashSet;
 import craftassist.util.MessageUtil;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,20 +25,49 @@ public class BatchPlacementManager {
 
     private static final Map<UUID, BatchTask> activeTasks = new ConcurrentHashMap<>();
 
+    private static final FairScheduler<UUID> scheduler = new FairScheduler<>();
+    private static volatile PlacementBudget budget = new PlacementBudget(ConfigManager.getConfig().getBlocksPerTick());
+
     public static void init() {
         ServerTickEvents.END_SERVER_TICK.register(server -> {
             if (activeTasks.isEmpty()) {
                 return;
             }
 
-            int blocksPerTick = ConfigManager.getConfig().getBlocksPerTick();
-            List<UUID> completedTasks = new ArrayList<>();
+            ModConfig config = ConfigManager.getConfig();
+            int blocksPerTick = config.isAdaptivePlacement() ? budget.getBlocksPerTick() : config.getBlocksPerTick();
+
+            // 全域預算以加權 deficit round-robin 分給所有任務，總放置量不隨玩家數增加
+            List<UUID> order = new ArrayList<>(activeTasks.keySet());
+            int[] weights = new int[order.size()];
+            for (int i = 0; i < order.size(); i++) {
+                BatchTask task = activeTasks.get(order.get(i));
+                // undo 與 redo 都是還原歷史，使用 undo 權重
+                weights[i] = task != null && task.getType() != TaskType.BUILD
+                        ? config.getUndoTaskWeight() : config.getBuildTaskWeight();
+            }
+            int[] grants = scheduler.allocate(order, weights, blocksPerTick);
 
-            for (Map.Entry<UUID, BatchTask> entry : activeTasks.entrySet()) {
-                UUID playerUuid = entry.getKey();
-                BatchTask task = entry.getValue();
+            List<UUID> completedTasks = new ArrayList<>();
+            long elapsedNanos = 0;
+            // 略過的方塊同樣計入耗時，必須一併計入處理數，否則每方塊耗時會被高估
+            int processedThisTick = 0;
+
+            for (int i = 0; i < order.size(); i++) {
+                UUID playerUuid = order.get(i);
+                BatchTask task = activeTasks.get(playerUuid);
+                if (task == null) {
+                    continue;
+                }
 
-                boolean done = task.processBatch(blocksPerTick);
+                int before = task.getPlacedBlocks();
+                int skippedBefore = task.getSkippedBlocks();
+                long start = System.nanoTime();
+                boolean done = task.processBatch(grants[i]);
+                elapsedNanos += System.nanoTime() - start;
+                int placed = task.getPlacedBlocks() - before;
+                processedThisTick += placed + task.getSkippedBlocks() - skippedBefore;
+                scheduler.consume(playerUuid, placed);
 
                 ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
                 if (player != null) {
@@ -46,9 +81,33 @@ public class BatchPlacementManager {
             }
 
             completedTasks.forEach(activeTasks::remove);
+            scheduler.retain(new ArrayList<>(activeTasks.keySet()));
+
+            if (config.isAdaptivePlacement()) {
+                budget.record(elapsedNanos, processedThisTick, server.getAverageTickTimeNanos(),
+                        config.getPlacementBudgetMs() * 1_000_000L, config.getMaxBlocksPerTick());
+            }
         });
     }
 
+    /**
+     * 目前的放置速率控制器，供 {@code /ca status} 顯示與調校。
+     */
+    public static PlacementBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * 設定重新載入後以新的 blocksPerTick 重新開始量測。
+     */
+    public static void resetBudget() {
+        budget = new PlacementBudget(ConfigManager.getConfig().getBlocksPerTick());
+    }
+
+    public static int getActiveTaskCount() {
+        return activeTasks.size();
+    }
+
     public static boolean startTask(UUID playerUuid, BatchTask task) {
         return activeTasks.putIfAbsent(playerUuid, task) == null;
     }
@@ -60,22 +119,86 @@ public class BatchPlacementManager {
     public static void shutdown() {
         if (!activeTasks.isEmpty()) {
             CraftAssistMod.LOGGER.warn("[CraftAssist] 伺服器關閉時仍有 {} 個未完成的批次任務", activeTasks.size());
+            activeTasks.forEach((playerUuid, task) -> {
+                task.cancel();
+                // 放置到一半的建築仍保存已放置部分的 undo 資料，重新啟動後可以復原；
+                // undo/redo 任務的紀錄檔在完整讀完前不會刪除，下次啟動會重新載入
+                if (task.getType() == TaskType.BUILD && task.getPlacedBlocks() > 0
+                        && persistBuildUndo(playerUuid, task)) {
+                    CraftAssistMod.LOGGER.info("[CraftAssist] 已保存未完成建築的 undo 紀錄（{} 個方塊）",
+                            task.getPlacedBlocks());
+                }
+            });
             activeTasks.clear();
         }
     }
 
+    /**
+     * 保存 build 任務的 undo 資料。無法保存時，擷取方塊實體時清空的容器內容物掉回世界，避免永久消失。
+     */
+    private static boolean persistBuildUndo(UUID playerUuid, BatchTask task) {
+        if (UndoManager.recordUndo(playerUuid, task.getUndoData(), task.getDimensionId())) {
+            return true;
+        }
+        int dropped = BlockEntitySnapshots.dropContents(task.world, task.getUndoData());
+        if (dropped > 0) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] undo 紀錄無法保存，已將 {} 個容器的內容物掉落在原位置", dropped);
+        }
+        return false;
+    }
+
     private static void onTaskComplete(UUID playerUuid, BatchTask task, ServerPlayer player) {
-        if (task.isUndoTask()) {
-            CraftAssistMod.LOGGER.info("[CraftAssist] 復原了 {} 個方塊", task.getTotalBlocks());
+        String dimension = task.getDimensionId();
+        if (task.getType() == TaskType.UNDO) {
+            // 復原時覆蓋掉的狀態即為 redo 資料
+            if (task.getPlacedBlocks() > 0 && !UndoManager.recordRedo(playerUuid, task.getUndoData(), dimension)) {
+                MessageUtil.sendError(player, "無法保存 redo 紀錄");
+            }
+            if (task.getFailure() != null) {
+                MessageUtil.sendError(player, "讀取 undo 紀錄失敗：" + task.getFailure().getMessage());
+                return;
+            }
+            CraftAssistMod.LOGGER.info("[CraftAssist] 復原了 {} 個方塊", task.getPlacedBlocks());
             if (player != null) {
-                MessageUtil.sendSuccess(player, "已復原 " + task.getTotalBlocks() + " 個方塊");
+                MessageUtil.sendSuccess(player, "已復原 " + task.getPlacedBlocks() + " 個方塊");
+            }
+        } else if (task.getType() == TaskType.REDO) {
+            if (task.getPlacedBlocks() > 0 && !UndoManager.recordUndoAfterRedo(playerUuid, task.getUndoData(), dimension)) {
+                MessageUtil.sendError(player, "無法保存 undo 紀錄");
+            }
+            if (task.getFailure() != null) {
+                MessageUtil.sendError(player, "讀取 redo 紀錄失敗：" + task.getFailure().getMessage());
+                return;
             }
+            CraftAssistMod.LOGGER.info("[CraftAssist] 重做了 {} 個方塊", task.getPlacedBlocks());
+            if (player != null) {
+                MessageUtil.sendSuccess(player, "已重做 " + task.getPlacedBlocks() + " 個方塊");
+            }
+        } else if (task.getFailure() != null) {
+            // 準備失敗時仍保留已放置部分的 undo 資料
+            if (task.getPlacedBlocks() > 0 && !persistBuildUndo(playerUuid, task)) {
+                MessageUtil.sendError(player, "無法保存 undo 紀錄，已放置的部分將無法復原");
+            }
+            MessageUtil.sendError(player, "放置準備失敗：" + task.getFailure().getMessage());
+        } else if (task.getPlacedBlocks() == 0 && task.getSkippedBlocks() > 0) {
+            if (player != null) {
+                MessageUtil.sendSuccess(player, "世界中已是相同的建築，略過 " + task.getSkippedBlocks() + " 個方塊");
+            }
+        } else if (task.getPlacedBlocks() == 0) {
+            MessageUtil.sendError(player, "建築結構為空，沒有方塊可放置");
         } else {
             // 僅 build 任務記錄 undo 資料
-            UndoManager.recordUndo(playerUuid, task.getUndoData());
-            CraftAssistMod.LOGGER.info("[CraftAssist] 放置了 {} 個方塊", task.getTotalBlocks());
+            if (!persistBuildUndo(playerUuid, task)) {
+                MessageUtil.sendError(player, "無法保存 undo 紀錄，此建築將無法復原");
+            }
+            CraftAssistMod.LOGGER.info("[CraftAssist] 放置了 {} 個方塊，略過 {} 個未變更的方塊",
+                    task.getPlacedBlocks(), task.getSkippedBlocks());
             if (player != null) {
-                MessageUtil.sendSuccess(player, "完成！放置了 " + task.getTotalBlocks() + " 個方塊");
+                String message = "完成！放置了 " + task.getPlacedBlocks() + " 個方塊";
+                if (task.getSkippedBlocks() > 0) {
+                    message += "（略過 " + task.getSkippedBlocks() + " 個未變更的方塊）";
+                }
+                MessageUtil.sendSuccess(player, message);
             }
         }
     }
@@ -91,42 +214,82 @@ public class BatchPlacementManager {
         int barLen = 20;
         int filled = percent * barLen / 100;
 
-        String label = task.isUndoTask() ? "復原中" : "建築中";
+        String label = switch (task.getType()) {
+            case UNDO -> "復原中";
+            case REDO -> "重做中";
+            case BUILD -> "建築中";
+        };
         StringBuilder bar = new StringBuilder("§6[CraftAssist] " + label + " §a[");
         for (int i = 0; i < barLen; i++) {
             bar.append(i < filled ? "█" : "░");
         }
         bar.append("§a] §e").append(percent).append("% §7(")
-                .append(task.getCurrentIndex()).append("/").append(task.getTotalBlocks()).append(")");
+                .append(task.getPlacedBlocks()).append(")");
 
         player.displayClientMessage(Component.literal(bar.toString()), true);
     }
 
     // ========== 批次任務資料類別 ==========
 
+    public enum TaskType {
+        BUILD,
+        UNDO,
+        REDO
+    }
+
     public static class BatchTask {
+        // 略過的放置只需讀取一次方塊狀態，但仍限制每批次的數量，避免整片未變更的建築在單一 tick 內走完
+        private static final int MAX_SKIPPED_FACTOR = 16;
+
         private final ServerLevel world;
-        private final List<BlockPlacement> placements;
+        private final PlacementSource source;
         private final UndoData undoData;
-        private final Set<BlockPos> recordedPositions;
-        private final boolean undoTask;
-        private int currentIndex = 0;
+        // 已記錄 undo 的位置（BlockPos.asLong），避免包裝物件與 HashMap 節點的額外記憶體；
+        // 來源保證座標不重複時為 null
+        private final LongHashSet recordedPositions;
+        private final TaskType type;
+        private final SectionBulkWriter bulkWriter;
+        private int placedBlocks = 0;
+        private int skippedBlocks = 0;
+        private boolean exhausted = false;
         private int lastReportedPercent = -1;
 
-        public BatchTask(ServerLevel world, List<BlockPlacement> placements) {
-            this(world, placements, false);
+        public BatchTask(ServerLevel world, PlacementSource source) {
+            this(world, source, TaskType.BUILD);
         }
 
-        public BatchTask(ServerLevel world, List<BlockPlacement> placements, boolean undoTask) {
+        public BatchTask(ServerLevel world, PlacementSource source, TaskType type) {
             this.world = world;
-            this.placements = placements;
+            this.source = source;
             this.undoData = new UndoData();
-            this.recordedPositions = new HashSet<>();
-            this.undoTask = undoTask;
+            this.recordedPositions = source.isUnique() ? null : new LongHashSet();
+            this.type = type;
+            this.bulkWriter = type == TaskType.BUILD && ConfigManager.getConfig().isBulkWriteStructural()
+                    ? new SectionBulkWriter(world) : null;
+        }
+
+        public TaskType getType() {
+            return type;
+        }
+
+        // 只有原本帶方塊實體的位置才需要擷取，一般方塊不增加任何成本
+        private byte[] captureBlockEntity(LevelChunk chunk, BlockPos pos, BlockState original) {
+            if (!original.hasBlockEntity()) {
+                return null;
+            }
+            BlockEntity blockEntity = chunk.getBlockEntity(pos);
+            return blockEntity == null ? null : BlockEntitySnapshots.capture(world, blockEntity);
+        }
+
+        /**
+         * 任務所在維度的 ID，記錄在 undo 紀錄中以便在正確的維度還原。
+         */
+        public String getDimensionId() {
+            return world.dimension().identifier().toString();
         }
 
         public boolean isUndoTask() {
-            return undoTask;
+            return type == TaskType.UNDO;
         }
 
         /**
@@ -135,39 +298,103 @@ public class BatchPlacementManager {
          * @return true 如果全部完成
          */
         public boolean processBatch(int batchSize) {
-            int end = Math.min(currentIndex + batchSize, placements.size());
-
-            for (int i = currentIndex; i < end; i++) {
-                BlockPlacement bp = placements.get(i);
+            if (exhausted) {
+                // 來源已讀完，只剩快速寫入的光照與重送
+                return bulkWriter == null || bulkWriter.flush(batchSize);
+            }
+            // 計畫依 section 排序，連續的放置通常落在同一個 chunk，快取以省去重複查找
+            LevelChunk chunk = null;
+            int chunkX = 0;
+            int chunkZ = 0;
+            int placed = 0;
+            int skipped = 0;
+            int maxSkipped = batchSize * MAX_SKIPPED_FACTOR;
+            while (placed < batchSize && skipped < maxSkipped) {
+                if (!source.advance()) {
+                    // 非同步來源可能只是暫時沒有資料，下個 tick 再試
+                    exhausted = source.isComplete();
+                    break;
+                }
+                long packed = source.pos();
+                BlockPos pos = BlockPos.of(packed);
+                int cx = SectionPos.blockToSectionCoord(pos.getX());
+                int cz = SectionPos.blockToSectionCoord(pos.getZ());
+                if (chunk == null || cx != chunkX || cz != chunkZ) {
+                    chunk = world.getChunk(cx, cz);
+                    chunkX = cx;
+                    chunkZ = cz;
+                }
+                BlockState original = chunk.getBlockState(pos);
+                BlockState target = source.state();
+                byte[] targetEntity = source.blockEntity();
+                // 世界中已是目標狀態：不寫入、不記錄 undo，也不佔用放置預算
+                if (original == target && targetEntity == null) {
+                    skipped++;
+                    continue;
+                }
                 // 同一位置只記錄第一次的原始狀態，避免重疊 region 覆蓋真正的原始方塊
-                if (recordedPositions.add(bp.pos())) {
-                    BlockState original = world.getBlockState(bp.pos());
-                    undoData.addSnapshot(bp.pos(), original);
+                if (recordedPositions == null || recordedPositions.add(packed)) {
+                    undoData.addSnapshot(packed, original, captureBlockEntity(chunk, pos, original));
+                }
+
+                if (original != target && (bulkWriter == null || !source.isStructural()
+                        || !bulkWriter.write(chunk, pos, original, target))) {
+                    world.setBlockAndUpdate(pos, target);
                 }
-                world.setBlockAndUpdate(bp.pos(), bp.state());
+                if (targetEntity != null) {
+                    BlockEntitySnapshots.restore(world, pos, target, targetEntity);
+                }
+                placed++;
             }
 
-            currentIndex = end;
-            return currentIndex >= placements.size();
+            placedBlocks += placed;
+            skippedBlocks += skipped;
+            boolean flushed = true;
+            if (bulkWriter != null) {
+                if (exhausted) {
+                    bulkWriter.finish();
+                }
+                // 光照檢查與放置共用同一份每 tick 預算，耗時也計入放置速率的量測
+                flushed = bulkWriter.flush(batchSize);
+            }
+            if (exhausted) {
+                // 檔案來源讀完後在此刪除對應的 undo 檔案
+                source.close();
+            }
+            return exhausted && flushed;
         }
 
         public int getProgressPercent() {
-            if (placements.isEmpty()) return 100;
-            return (int) ((long) currentIndex * 100 / placements.size());
+            if (exhausted) return 100;
+            if (source.total() == 0) return 0;
+            return (int) Math.min(99, source.progress() * 100 / source.total());
         }
 
-        public int getCurrentIndex() {
-            return currentIndex;
+        public int getPlacedBlocks() {
+            return placedBlocks;
         }
 
-        public int getTotalBlocks() {
-            return placements.size();
+        public int getSkippedBlocks() {
+            return skippedBlocks;
         }
 
         public UndoData getUndoData() {
             return undoData;
         }
 
+        public Throwable getFailure() {
+            return source.getFailure();
+        }
+
+        public void cancel() {
+            source.close();
+            if (bulkWriter != null) {
+                // 取消後不再有 tick，剩下的工作一次送出；已離開的 chunk 大多已在放置途中處理完
+                bulkWriter.finish();
+                bulkWriter.flush(Integer.MAX_VALUE);
+            }
+        }
+
         public int getLastReportedPercent() {
             return lastReportedPercent;
         }
@@ -176,7 +403,4 @@ public class BatchPlacementManager {
             this.lastReportedPercent = percent;
         }
     }
-
-    public record BlockPlacement(BlockPos pos, BlockState state) {
-    }
 }
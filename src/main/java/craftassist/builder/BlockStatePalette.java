@@ -0,0 +1,88 @@
+package craftassist.builder;
+
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 將 (方塊 ID, facing, properties) 編譯為 {@link BlockState} 的快取。
+ * <p>
+ * 建築通常只有幾十種不同的組合，卻有成千上萬個元素；每種組合只做一次登錄表查詢與屬性解析，
+ * 之後相同組合直接取用結果（無效的組合也會記住，回傳 null）。
+ * 一棟建築共用一個 palette，非執行緒安全，由同一時間只有一條的準備執行緒使用。
+ */
+public class BlockStatePalette {
+
+    /**
+     * 解析單一組合，回傳 null 表示方塊無效。
+     */
+    interface Resolver {
+        BlockState resolve(String blockId, String facing, Map<String, String> properties);
+    }
+
+    private record Key(String block, String facing, Map<String, String> properties) {
+    }
+
+    // 無效組合的標記，HashMap 的 null 值無法與未命中區分
+    private static final Object INVALID = new Object();
+
+    private final Resolver resolver;
+    private final Map<Key, Object> states = new HashMap<>();
+
+    public BlockStatePalette() {
+        this(BlockStatePalette::compile);
+    }
+
+    BlockStatePalette(Resolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * region 的方塊狀態：有 properties 時以 properties 為準，否則套用 facing。
+     */
+    public BlockState regionState(BuildStructure.BlockRegion region) {
+        Map<String, String> properties = region.getProperties();
+        boolean hasProperties = properties != null && !properties.isEmpty();
+        return get(region.getBlock(), hasProperties ? null : region.getFacing(), hasProperties ? properties : null);
+    }
+
+    public BlockState blockState(BuildStructure.IndividualBlock block) {
+        Map<String, String> properties = block.getProperties();
+        return get(block.getBlock(), null, properties == null || properties.isEmpty() ? null : properties);
+    }
+
+    /**
+     * 已編譯的不同組合數（含無效組合）。
+     */
+    public int size() {
+        return states.size();
+    }
+
+    BlockState get(String blockId, String facing, Map<String, String> properties) {
+        if (blockId == null) {
+            return null;
+        }
+        // 查詢時直接使用傳入的 Map，只有新增時才複製，避免之後的修改（例如旋轉）影響 key
+        Object cached = states.get(new Key(blockId, facing, properties));
+        if (cached == null) {
+            BlockState state = resolver.resolve(blockId, facing, properties);
+            cached = state != null ? state : INVALID;
+            states.put(new Key(blockId, facing, properties == null ? null : new HashMap<>(properties)), cached);
+        }
+        return cached == INVALID ? null : (BlockState) cached;
+    }
+
+    private static BlockState compile(String blockId, String facing, Map<String, String> properties) {
+        Block block = BlockValidator.validate(blockId);
+        if (block == null) {
+            return null;
+        }
+        BlockState state = block.defaultBlockState();
+        if (properties != null) {
+            return PropertyApplier.applyProperties(state, properties);
+        }
+        return PropertyApplier.applyFacing(state, facing);
+    }
+}
@@ -5,8 +5,13 @@ import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.Identifier;
 import net.minecraft.world.level.block.Block;
 
+import java.util.List;
+
 public class BlockValidator {
 
+    // 登錄表在啟動完成後即固定，第一次使用時建立
+    private static volatile List<String> knownBlockIds;
+
     public static Block validate(String blockId) {
         if (blockId == null || blockId.isEmpty()) {
             return null;
@@ -25,4 +30,19 @@ public class BlockValidator {
 
         return BuiltInRegistries.BLOCK.getValue(id);
     }
+
+    /**
+     * 登錄表中所有方塊 ID，依字典順序排列。
+     */
+    public static List<String> knownBlockIds() {
+        List<String> ids = knownBlockIds;
+        if (ids == null) {
+            ids = BuiltInRegistries.BLOCK.keySet().stream()
+                    .map(Identifier::toString)
+                    .sorted()
+                    .toList();
+            knownBlockIds = ids;
+        }
+        return ids;
+    }
 }
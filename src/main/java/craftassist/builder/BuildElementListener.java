@@ -0,0 +1,17 @@
+package craftassist.builder;
+
+/**
+ * 接收串流解析出的建築元素。元素依 LLM 輸出順序逐一送達，索引與最終 {@link BuildStructure} 中的位置相同。
+ */
+public interface BuildElementListener {
+
+    void onRegion(int index, BuildStructure.BlockRegion region);
+
+    void onBlock(int index, BuildStructure.IndividualBlock block);
+
+    /**
+     * 請求失敗後重試，之前送達的元素作廢，索引從 0 重新開始。
+     */
+    default void onRestart() {
+    }
+}
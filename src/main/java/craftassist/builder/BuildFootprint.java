@@ -0,0 +1,89 @@
+package craftassist.builder;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 規劃階段宣告的建築佔地與入口牆面。
+ * <p>
+ * 藍圖最後一行為 {@code FOOTPRINT: width=W depth=D height=H entrance=<牆面>}，建築座標落在
+ * {@code [0, W-1] × [0, H-1] × [0, D-1]}。有了它就能在建築 JSON 生成前決定旋轉次數與 origin，
+ * 讓每個元素一到就能放置；旋轉與偏移的結果與完整結構恰好佔滿此範圍時相同。
+ *
+ * @param width    X 方向格數
+ * @param depth    Z 方向格數
+ * @param height   Y 方向格數
+ * @param entrance 入口所在牆面（旋轉前）
+ */
+public record BuildFootprint(int width, int depth, int height, Direction entrance) {
+
+    private static final int MAX_SIZE = 1000;
+
+    private static final Pattern PATTERN = Pattern.compile(
+            "FOOTPRINT:\\s*width\\s*=\\s*(\\d+)[\\s,]+depth\\s*=\\s*(\\d+)[\\s,]+height\\s*=\\s*(\\d+)"
+                    + "[\\s,]+entrance\\s*=\\s*(north|south|east|west)",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 從藍圖文字中取出最後一個 FOOTPRINT 宣告。
+     *
+     * @return 沒有宣告或數值不合理時回傳 null
+     */
+    public static BuildFootprint parse(String blueprint) {
+        if (blueprint == null) {
+            return null;
+        }
+        Matcher matcher = PATTERN.matcher(blueprint);
+        BuildFootprint found = null;
+        while (matcher.find()) {
+            try {
+                int width = Integer.parseInt(matcher.group(1));
+                int depth = Integer.parseInt(matcher.group(2));
+                int height = Integer.parseInt(matcher.group(3));
+                if (width <= 0 || depth <= 0 || height <= 0
+                        || width > MAX_SIZE || depth > MAX_SIZE || height > MAX_SIZE) {
+                    continue;
+                }
+                Direction entrance = switch (matcher.group(4).toLowerCase(Locale.ROOT)) {
+                    case "north" -> Direction.NORTH;
+                    case "south" -> Direction.SOUTH;
+                    case "east" -> Direction.EAST;
+                    default -> Direction.WEST;
+                };
+                found = new BuildFootprint(width, depth, height, entrance);
+            } catch (NumberFormatException e) {
+                // 數字過大，略過這一筆
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 使入口面對玩家所需的順時針旋轉次數。
+     */
+    public int rotationsFor(Direction playerFacing) {
+        return BuildStructureRotator.computeRotationCount(entrance, playerFacing);
+    }
+
+    /**
+     * 旋轉後的佔地範圍。
+     */
+    public BuildingOffsetCalculator.BoundingBox rotatedBoundingBox(int cwRotations) {
+        boolean swapped = Math.floorMod(cwRotations, 2) == 1;
+        int x = swapped ? depth : width;
+        int z = swapped ? width : depth;
+        return new BuildingOffsetCalculator.BoundingBox(0, 0, 0, x - 1, height - 1, z - 1);
+    }
+
+    /**
+     * 旋轉後建築的 origin，與 {@link BuildingOffsetCalculator#computeOrigin} 的規則相同。
+     */
+    public BlockPos originFor(BlockPos playerPos, Direction playerFacing) {
+        return BuildingOffsetCalculator.computeOrigin(playerPos, playerFacing,
+                rotatedBoundingBox(rotationsFor(playerFacing)));
+    }
+}
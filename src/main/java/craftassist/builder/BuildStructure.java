@@ -9,9 +9,23 @@ import java.util.Map;
 
 public class BuildStructure {
 
+    // 單次請求模式中模型寫在 JSON 開頭的藍圖，兩階段模式為 null
+    private String plan;
     private List<BlockRegion> regions;
     private List<IndividualBlock> blocks;
 
+    public BuildStructure() {
+    }
+
+    public BuildStructure(List<BlockRegion> regions, List<IndividualBlock> blocks) {
+        this.regions = regions;
+        this.blocks = blocks;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
     public List<BlockRegion> getRegions() {
         return regions;
     }
@@ -29,6 +43,22 @@ public class BuildStructure {
         private Map<String, String> properties;
         private JsonArray exclude;
 
+        public BlockRegion() {
+        }
+
+        public BlockRegion(String block, int[] from, int[] to, boolean hollow, String facing,
+                           Map<String, String> properties, List<int[][]> exclude) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+            this.hollow = hollow;
+            this.facing = facing;
+            this.properties = properties;
+            if (exclude != null) {
+                setExclude(exclude);
+            }
+        }
+
         public String getBlock() {
             return block;
         }
@@ -161,6 +191,15 @@ public class BuildStructure {
         private int[] pos;
         private Map<String, String> properties;
 
+        public IndividualBlock() {
+        }
+
+        public IndividualBlock(String block, int[] pos, Map<String, String> properties) {
+            this.block = block;
+            this.pos = pos;
+            this.properties = properties;
+        }
+
         public String getBlock() {
             return block;
         }
@@ -0,0 +1,366 @@
+package craftassist.builder;
+
+import craftassist.config.ModConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 在本地修正驗證失敗的建築，能確定怎麼修的問題不必再呼叫一次 API：
+ * <ul>
+ *   <li>缺少方塊或座標格式錯誤的元素直接移除</li>
+ *   <li>區域超出座標範圍時裁切到範圍內，完全在範圍外的區域與超出範圍的單一方塊移除；
+ *       空心區域只保留原外殼在範圍內的部分，拆成實心面，不在裁切面上補牆</li>
+ *   <li>放置方塊數（空心區域只計外殼）超過上限的區域沿最長軸對半切分為合法的子區域；
+ *       空心區域先拆成不重疊的六個面</li>
+ *   <li>未知的方塊 ID 正規化（大小寫、空白、缺少 namespace、{@code [key=value]} 狀態後綴）
+ *       後以編輯距離對照方塊登錄表，夠相近時替換</li>
+ * </ul>
+ * 找不到相近方塊的 ID 保留原樣，重新驗證後仍有的問題才交給修正階段。
+ */
+public class BuildStructureRepairer {
+
+    private static final String DEFAULT_NAMESPACE = "minecraft:";
+
+    public static RepairResult repair(BuildStructure structure, ModConfig config) {
+        return repair(structure, config, blockId -> BlockValidator.validate(blockId) != null,
+                BlockValidator.knownBlockIds());
+    }
+
+    /**
+     * @param knownBlocks 比對用的方塊 ID，依字典順序排列（距離相同時取較前者）
+     */
+    public static RepairResult repair(BuildStructure structure, ModConfig config,
+                                      Predicate<String> blockValidator, List<String> knownBlocks) {
+        Repair repair = new Repair(config, blockValidator, knownBlocks);
+        List<BuildStructure.BlockRegion> regions = new ArrayList<>();
+        List<BuildStructure.IndividualBlock> blocks = new ArrayList<>();
+
+        if (structure.getRegions() != null) {
+            for (int i = 0; i < structure.getRegions().size(); i++) {
+                repair.region(i, structure.getRegions().get(i), regions);
+            }
+        }
+        if (structure.getBlocks() != null) {
+            for (int i = 0; i < structure.getBlocks().size(); i++) {
+                BuildStructure.IndividualBlock block = repair.block(i, structure.getBlocks().get(i));
+                if (block != null) {
+                    blocks.add(block);
+                }
+            }
+        }
+
+        return new RepairResult(new BuildStructure(regions, blocks), repair.repairs);
+    }
+
+    private static class Repair {
+        private final int maxCoord;
+        private final long maxVolume;
+        private final Predicate<String> blockValidator;
+        private final List<String> knownBlocks;
+        private final List<String> repairs = new ArrayList<>();
+        // 同一個錯誤 ID 通常出現多次，比對結果（含找不到的 null）只算一次
+        private final Map<String, String> resolved = new HashMap<>();
+
+        Repair(ModConfig config, Predicate<String> blockValidator, List<String> knownBlocks) {
+            this.maxCoord = config.getMaxCoordinate();
+            this.maxVolume = Math.max(1, config.getMaxRegionVolume());
+            this.blockValidator = blockValidator;
+            this.knownBlocks = knownBlocks;
+        }
+
+        void region(int i, BuildStructure.BlockRegion region, List<BuildStructure.BlockRegion> out) {
+            String prefix = "Region[" + i + "]";
+            if (region.getBlock() == null || region.getBlock().isBlank()) {
+                repairs.add(prefix + ": 缺少方塊，已移除");
+                return;
+            }
+            int[] from = region.getFrom();
+            int[] to = region.getTo();
+            if (from == null || from.length != 3 || to == null || to.length != 3) {
+                repairs.add(prefix + ": 座標格式錯誤，已移除");
+                return;
+            }
+
+            Map<String, String> properties = region.getProperties();
+            String block = region.getBlock();
+            if (!blockValidator.test(block)) {
+                properties = mergeStateSuffix(block, properties);
+                block = resolveBlock(prefix, block);
+            }
+
+            int[] bounds = CuboidSubtraction.box(from, to);
+            int[] inRange = clip(bounds);
+            if (inRange == null) {
+                repairs.add(prefix + ": 完全超出座標範圍 " + maxCoord + "，已移除");
+                return;
+            }
+            boolean hollow = region.isHollow();
+            List<int[]> parts = new ArrayList<>();
+            if (Arrays.equals(bounds, inRange)) {
+                parts.add(bounds);
+            } else if (!hollow) {
+                parts.add(inRange);
+                repairs.add(prefix + ": 已裁切到座標範圍 " + maxCoord + " 內");
+            } else {
+                // 以裁切後的方框保持空心會在裁切面上圍出原本沒有的牆，改為只保留原外殼在範圍內的部分
+                int[] faces = CuboidSubtraction.shell(bounds);
+                for (int f = 0; f < faces.length; f += CuboidSubtraction.STRIDE) {
+                    int[] face = clip(Arrays.copyOfRange(faces, f, f + CuboidSubtraction.STRIDE));
+                    if (face != null) {
+                        parts.add(face);
+                    }
+                }
+                hollow = false;
+                if (parts.isEmpty()) {
+                    repairs.add(prefix + ": 外殼完全超出座標範圍 " + maxCoord + "，已移除");
+                    return;
+                }
+                repairs.add(prefix + ": 已裁切到座標範圍 " + maxCoord + " 內，外殼拆為 "
+                        + parts.size() + " 個實心面");
+            }
+
+            List<int[][]> exclude = region.getExclude();
+            List<int[]> boxes = new ArrayList<>();
+            long emitted = 0;
+            boolean divided = false;
+            for (int[] part : parts) {
+                long volume = CuboidSubtraction.emittedVolume(part, hollow);
+                emitted += volume;
+                if (volume <= maxVolume) {
+                    boxes.add(part);
+                    continue;
+                }
+                // 空心區域先拆成六個實心面，切分後每一塊仍只覆蓋原本的外殼
+                int[] pieces = hollow ? CuboidSubtraction.shell(part) : part;
+                for (int p = 0; p < pieces.length; p += CuboidSubtraction.STRIDE) {
+                    split(Arrays.copyOfRange(pieces, p, p + CuboidSubtraction.STRIDE), boxes, maxVolume);
+                }
+                divided = true;
+            }
+            if (divided) {
+                // 空心區域只有一個 part，切分後全部是實心塊
+                hollow = false;
+                repairs.add(prefix + ": 體積 " + emitted + " 超出最大值 " + maxVolume
+                        + "，已切分為 " + boxes.size() + " 個區域");
+            }
+
+            for (int[] box : boxes) {
+                // 每個子區域需要自己的屬性 Map，旋轉會直接修改
+                out.add(new BuildStructure.BlockRegion(block, Arrays.copyOfRange(box, 0, 3),
+                        Arrays.copyOfRange(box, 3, 6), hollow, region.getFacing(),
+                        properties == null ? null : new HashMap<>(properties), exclude));
+            }
+        }
+
+        /**
+         * 裁切到座標範圍內。
+         *
+         * @return 完全在範圍外時回傳 null
+         */
+        private int[] clip(int[] box) {
+            int[] clipped = box.clone();
+            for (int axis = 0; axis < 3; axis++) {
+                clipped[axis] = Math.max(box[axis], -maxCoord);
+                clipped[3 + axis] = Math.min(box[3 + axis], maxCoord);
+                if (clipped[axis] > clipped[3 + axis]) {
+                    return null;
+                }
+            }
+            return clipped;
+        }
+
+        BuildStructure.IndividualBlock block(int i, BuildStructure.IndividualBlock block) {
+            String prefix = "Block[" + i + "]";
+            if (block.getBlock() == null || block.getBlock().isBlank()) {
+                repairs.add(prefix + ": 缺少方塊，已移除");
+                return null;
+            }
+            int[] pos = block.getPos();
+            if (pos == null || pos.length != 3) {
+                repairs.add(prefix + ": 座標格式錯誤，已移除");
+                return null;
+            }
+            for (int c : pos) {
+                if (Math.abs(c) > maxCoord) {
+                    // 單一方塊移到邊界上只會放錯位置，直接移除
+                    repairs.add(prefix + ": 座標超出範圍 " + maxCoord + "，已移除");
+                    return null;
+                }
+            }
+            if (blockValidator.test(block.getBlock())) {
+                return block;
+            }
+            return new BuildStructure.IndividualBlock(resolveBlock(prefix, block.getBlock()), pos,
+                    mergeStateSuffix(block.getBlock(), block.getProperties()));
+        }
+
+        /**
+         * 找不到相近方塊時回傳原本的 ID，留給重新驗證回報。
+         */
+        private String resolveBlock(String prefix, String blockId) {
+            String match;
+            if (resolved.containsKey(blockId)) {
+                match = resolved.get(blockId);
+            } else {
+                match = findBlock(blockId);
+                resolved.put(blockId, match);
+            }
+            if (match == null) {
+                return blockId;
+            }
+            repairs.add(prefix + ": 方塊 ID " + blockId + " → " + match);
+            return match;
+        }
+
+        private String findBlock(String blockId) {
+            String normalized = normalizeId(blockId);
+            if (normalized.isEmpty()) {
+                return null;
+            }
+            if (blockValidator.test(normalized)) {
+                return normalized;
+            }
+
+            int pathLength = normalized.length() - normalized.indexOf(':') - 1;
+            int limit = Math.max(1, Math.min(3, pathLength / 4));
+            String best = null;
+            for (String candidate : knownBlocks) {
+                int distance = boundedDistance(normalized, candidate, limit);
+                if (distance <= limit) {
+                    best = candidate;
+                    limit = distance - 1;
+                    if (limit < 0) {
+                        break;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 小寫化、去除 {@code [...]} 狀態後綴、空白與連字號轉為底線，缺少 namespace 時補上 minecraft。
+     */
+    static String normalizeId(String blockId) {
+        String id = blockId.trim().toLowerCase(Locale.ROOT);
+        int bracket = id.indexOf('[');
+        if (bracket >= 0) {
+            id = id.substring(0, bracket).trim();
+        }
+        id = id.replace(' ', '_').replace('-', '_');
+        if (!id.isEmpty() && id.indexOf(':') < 0) {
+            id = DEFAULT_NAMESPACE + id;
+        }
+        return id;
+    }
+
+    /**
+     * 將 {@code minecraft:oak_stairs[facing=east,half=top]} 這類後綴解析為屬性，原有的屬性優先。
+     */
+    static Map<String, String> mergeStateSuffix(String blockId, Map<String, String> properties) {
+        int open = blockId.indexOf('[');
+        int close = blockId.lastIndexOf(']');
+        if (open < 0 || close < open) {
+            return properties;
+        }
+        Map<String, String> merged = properties == null ? new HashMap<>() : new HashMap<>(properties);
+        for (String pair : blockId.substring(open + 1, close).split(",")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                merged.putIfAbsent(pair.substring(0, eq).trim().toLowerCase(Locale.ROOT),
+                        pair.substring(eq + 1).trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return merged.isEmpty() ? properties : merged;
+    }
+
+    /**
+     * Levenshtein 距離；確定超過 limit 時提前結束並回傳 limit + 1。
+     */
+    static int boundedDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * 沿最長軸反覆對半切分，直到每一塊都不超過體積上限；輸出順序與座標順序一致。
+     */
+    private static void split(int[] box, List<int[]> out, long maxVolume) {
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(box);
+        while (!pending.isEmpty()) {
+            int[] current = pending.pop();
+            if (CuboidSubtraction.volume(current, 0) <= maxVolume) {
+                out.add(current);
+                continue;
+            }
+            int axis = 0;
+            for (int a = 1; a < 3; a++) {
+                if (current[3 + a] - current[a] > current[3 + axis] - current[axis]) {
+                    axis = a;
+                }
+            }
+            int mid = Math.floorDiv(current[axis] + current[3 + axis], 2);
+            int[] low = current.clone();
+            low[3 + axis] = mid;
+            int[] high = current.clone();
+            high[axis] = mid + 1;
+            // 後進先出，先推高半部才會先輸出低半部
+            pending.push(high);
+            pending.push(low);
+        }
+    }
+
+    public static class RepairResult {
+        private final BuildStructure structure;
+        private final List<String> repairs;
+
+        RepairResult(BuildStructure structure, List<String> repairs) {
+            this.structure = structure;
+            this.repairs = repairs;
+        }
+
+        public BuildStructure getStructure() {
+            return structure;
+        }
+
+        public boolean isEmpty() {
+            return structure.getRegions().isEmpty() && structure.getBlocks().isEmpty();
+        }
+
+        public List<String> getRepairs() {
+            return Collections.unmodifiableList(repairs);
+        }
+    }
+}
@@ -198,48 +198,82 @@ public class BuildStructureRotator {
         // 旋轉所有 regions
         if (structure.getRegions() != null) {
             for (BuildStructure.BlockRegion region : structure.getRegions()) {
-                int[] from = region.getFrom();
-                int[] to = region.getTo();
-                if (from != null && from.length == 3) {
-                    region.setFrom(rotateCW90Coord(from, maxZ));
-                }
-                if (to != null && to.length == 3) {
-                    region.setTo(rotateCW90Coord(to, maxZ));
-                }
-                // 旋轉 properties（優先）或 facing
-                if (region.getProperties() != null && !region.getProperties().isEmpty()) {
-                    rotateProperties(region.getProperties(), 1);
-                } else if (region.getFacing() != null) {
-                    region.setFacing(rotateFacingCW(region.getFacing(), 1));
-                }
-                // 旋轉 exclude 座標
-                List<int[][]> excludeList = region.getExclude();
-                if (excludeList != null && !excludeList.isEmpty()) {
-                    List<int[][]> rotated = new java.util.ArrayList<>();
-                    for (int[][] ex : excludeList) {
-                        if (ex != null && ex.length == 2) {
-                            int[] p0 = (ex[0] != null && ex[0].length == 3) ? rotateCW90Coord(ex[0], maxZ) : ex[0];
-                            int[] p1 = (ex[1] != null && ex[1].length == 3) ? rotateCW90Coord(ex[1], maxZ) : ex[1];
-                            rotated.add(new int[][]{p0, p1});
-                        } else {
-                            rotated.add(ex);
-                        }
-                    }
-                    region.setExclude(rotated);
-                }
+                rotateRegionCW90(region, maxZ);
             }
         }
 
         // 旋轉所有 blocks
         if (structure.getBlocks() != null) {
             for (BuildStructure.IndividualBlock block : structure.getBlocks()) {
-                int[] pos = block.getPos();
-                if (pos != null && pos.length == 3) {
-                    block.setPos(rotateCW90Coord(pos, maxZ));
+                rotateBlockCW90(block, maxZ);
+            }
+        }
+    }
+
+    /**
+     * 依宣告的佔地範圍旋轉單一 region，結果與對佔地恰為 {@code width × depth} 的整個結構呼叫
+     * {@link #rotateStructure} 相同。用於建築尚未生成完畢、無法計算完整 bbox 時逐一旋轉元素。
+     */
+    public static void rotateRegion(BuildStructure.BlockRegion region, int cwRotations, int width, int depth) {
+        cwRotations = ((cwRotations % 4) + 4) % 4;
+        for (int i = 0; i < cwRotations; i++) {
+            rotateRegionCW90(region, footprintMaxZ(i, width, depth));
+        }
+    }
+
+    /**
+     * 依宣告的佔地範圍旋轉單一方塊，參見 {@link #rotateRegion}。
+     */
+    public static void rotateBlock(BuildStructure.IndividualBlock block, int cwRotations, int width, int depth) {
+        cwRotations = ((cwRotations % 4) + 4) % 4;
+        for (int i = 0; i < cwRotations; i++) {
+            rotateBlockCW90(block, footprintMaxZ(i, width, depth));
+        }
+    }
+
+    // 每次旋轉後寬深互換，第 step 次旋轉前的 maxZ 交替為 depth-1、width-1
+    private static int footprintMaxZ(int step, int width, int depth) {
+        return (step % 2 == 0 ? depth : width) - 1;
+    }
+
+    private static void rotateRegionCW90(BuildStructure.BlockRegion region, int maxZ) {
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+        if (from != null && from.length == 3) {
+            region.setFrom(rotateCW90Coord(from, maxZ));
+        }
+        if (to != null && to.length == 3) {
+            region.setTo(rotateCW90Coord(to, maxZ));
+        }
+        // 旋轉 properties（優先）或 facing
+        if (region.getProperties() != null && !region.getProperties().isEmpty()) {
+            rotateProperties(region.getProperties(), 1);
+        } else if (region.getFacing() != null) {
+            region.setFacing(rotateFacingCW(region.getFacing(), 1));
+        }
+        // 旋轉 exclude 座標
+        List<int[][]> excludeList = region.getExclude();
+        if (excludeList != null && !excludeList.isEmpty()) {
+            List<int[][]> rotated = new java.util.ArrayList<>();
+            for (int[][] ex : excludeList) {
+                if (ex != null && ex.length == 2) {
+                    int[] p0 = (ex[0] != null && ex[0].length == 3) ? rotateCW90Coord(ex[0], maxZ) : ex[0];
+                    int[] p1 = (ex[1] != null && ex[1].length == 3) ? rotateCW90Coord(ex[1], maxZ) : ex[1];
+                    rotated.add(new int[][]{p0, p1});
+                } else {
+                    rotated.add(ex);
                 }
-                rotateProperties(block.getProperties(), 1);
             }
+            region.setExclude(rotated);
+        }
+    }
+
+    private static void rotateBlockCW90(BuildStructure.IndividualBlock block, int maxZ) {
+        int[] pos = block.getPos();
+        if (pos != null && pos.length == 3) {
+            block.setPos(rotateCW90Coord(pos, maxZ));
         }
+        rotateProperties(block.getProperties(), 1);
     }
 
     /**
@@ -21,63 +21,73 @@ public class BuildStructureValidator {
     public static ValidationResult validate(BuildStructure structure, ModConfig config,
                                             Predicate<String> blockValidator) {
         List<String> issues = new ArrayList<>();
-        int maxCoord = config.getMaxCoordinate();
-        int maxVolume = config.getMaxRegionVolume();
 
         if (structure.getRegions() != null) {
             for (int i = 0; i < structure.getRegions().size(); i++) {
-                BuildStructure.BlockRegion region = structure.getRegions().get(i);
-                String prefix = "Region[" + i + "] (block=" + region.getBlock() + ")";
-
-                if (region.getBlock() == null || !blockValidator.test(region.getBlock())) {
-                    issues.add(prefix + ": 無效的方塊 ID");
-                }
-
-                int[] from = region.getFrom();
-                int[] to = region.getTo();
-
-                if (from == null || from.length != 3) {
-                    issues.add(prefix + ": 缺少或格式錯誤的 'from' 座標");
-                } else if (exceedsMaxCoord(from, maxCoord)) {
-                    issues.add(prefix + ": 'from' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(from));
-                }
-
-                if (to == null || to.length != 3) {
-                    issues.add(prefix + ": 缺少或格式錯誤的 'to' 座標");
-                } else if (exceedsMaxCoord(to, maxCoord)) {
-                    issues.add(prefix + ": 'to' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(to));
-                }
-
-                if (from != null && from.length == 3 && to != null && to.length == 3) {
-                    long volume = computeVolume(from, to);
-                    if (volume > maxVolume) {
-                        issues.add(prefix + ": 區域體積 " + volume + " 超出最大值 " + maxVolume);
-                    }
-                }
+                validateRegion(i, structure.getRegions().get(i), config, blockValidator, issues);
             }
         }
 
         if (structure.getBlocks() != null) {
             for (int i = 0; i < structure.getBlocks().size(); i++) {
-                BuildStructure.IndividualBlock block = structure.getBlocks().get(i);
-                String prefix = "Block[" + i + "] (block=" + block.getBlock() + ")";
-
-                if (block.getBlock() == null || !blockValidator.test(block.getBlock())) {
-                    issues.add(prefix + ": 無效的方塊 ID");
-                }
-
-                int[] pos = block.getPos();
-                if (pos == null || pos.length != 3) {
-                    issues.add(prefix + ": 缺少或格式錯誤的 'pos' 座標");
-                } else if (exceedsMaxCoord(pos, maxCoord)) {
-                    issues.add(prefix + ": 'pos' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(pos));
-                }
+                validateBlock(i, structure.getBlocks().get(i), config, blockValidator, issues);
             }
         }
 
         return new ValidationResult(issues);
     }
 
+    static void validateRegion(int i, BuildStructure.BlockRegion region, ModConfig config,
+                               Predicate<String> blockValidator, List<String> issues) {
+        int maxCoord = config.getMaxCoordinate();
+        int maxVolume = config.getMaxRegionVolume();
+        String prefix = "Region[" + i + "] (block=" + region.getBlock() + ")";
+
+        if (region.getBlock() == null || !blockValidator.test(region.getBlock())) {
+            issues.add(prefix + ": 無效的方塊 ID");
+        }
+
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+
+        if (from == null || from.length != 3) {
+            issues.add(prefix + ": 缺少或格式錯誤的 'from' 座標");
+        } else if (exceedsMaxCoord(from, maxCoord)) {
+            issues.add(prefix + ": 'from' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(from));
+        }
+
+        if (to == null || to.length != 3) {
+            issues.add(prefix + ": 缺少或格式錯誤的 'to' 座標");
+        } else if (exceedsMaxCoord(to, maxCoord)) {
+            issues.add(prefix + ": 'to' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(to));
+        }
+
+        if (from != null && from.length == 3 && to != null && to.length == 3) {
+            // 空心區域只放外殼，以實際放置的方塊數計算
+            long volume = CuboidSubtraction.emittedVolume(CuboidSubtraction.box(from, to), region.isHollow());
+            if (volume > maxVolume) {
+                issues.add(prefix + ": 區域體積 " + volume + " 超出最大值 " + maxVolume);
+            }
+        }
+    }
+
+    static void validateBlock(int i, BuildStructure.IndividualBlock block, ModConfig config,
+                              Predicate<String> blockValidator, List<String> issues) {
+        int maxCoord = config.getMaxCoordinate();
+        String prefix = "Block[" + i + "] (block=" + block.getBlock() + ")";
+
+        if (block.getBlock() == null || !blockValidator.test(block.getBlock())) {
+            issues.add(prefix + ": 無效的方塊 ID");
+        }
+
+        int[] pos = block.getPos();
+        if (pos == null || pos.length != 3) {
+            issues.add(prefix + ": 缺少或格式錯誤的 'pos' 座標");
+        } else if (exceedsMaxCoord(pos, maxCoord)) {
+            issues.add(prefix + ": 'pos' 座標超出範圍 " + maxCoord + ": " + Arrays.toString(pos));
+        }
+    }
+
     private static boolean exceedsMaxCoord(int[] coords, int max) {
         for (int c : coords) {
             if (Math.abs(c) > max) return true;
@@ -85,11 +95,61 @@ public class BuildStructureValidator {
         return false;
     }
 
-    private static long computeVolume(int[] from, int[] to) {
-        long dx = Math.abs(to[0] - from[0]) + 1;
-        long dy = Math.abs(to[1] - from[1]) + 1;
-        long dz = Math.abs(to[2] - from[2]) + 1;
-        return dx * dy * dz;
+    /**
+     * 串流生成時逐一驗證送達的元素，回應結束時驗證也已完成。
+     * 結果與對完整結構呼叫 {@link #validate} 相同（區域問題在前、單一方塊在後）。
+     */
+    public static class Incremental implements BuildElementListener {
+        private final ModConfig config;
+        private final Predicate<String> blockValidator;
+        private final List<String> regionIssues = new ArrayList<>();
+        private final List<String> blockIssues = new ArrayList<>();
+        private int regionCount = 0;
+        private int blockCount = 0;
+
+        public Incremental(ModConfig config) {
+            this(config, blockId -> BlockValidator.validate(blockId) != null);
+        }
+
+        public Incremental(ModConfig config, Predicate<String> blockValidator) {
+            this.config = config;
+            this.blockValidator = blockValidator;
+        }
+
+        @Override
+        public synchronized void onRegion(int index, BuildStructure.BlockRegion region) {
+            validateRegion(index, region, config, blockValidator, regionIssues);
+            regionCount++;
+        }
+
+        @Override
+        public synchronized void onBlock(int index, BuildStructure.IndividualBlock block) {
+            validateBlock(index, block, config, blockValidator, blockIssues);
+            blockCount++;
+        }
+
+        @Override
+        public synchronized void onRestart() {
+            regionIssues.clear();
+            blockIssues.clear();
+            regionCount = 0;
+            blockCount = 0;
+        }
+
+        /**
+         * 已驗證的元素是否恰好涵蓋整個結構；串流中有元素未被解析出來時需改用完整驗證。
+         */
+        public synchronized boolean covers(BuildStructure structure) {
+            int regions = structure.getRegions() == null ? 0 : structure.getRegions().size();
+            int blocks = structure.getBlocks() == null ? 0 : structure.getBlocks().size();
+            return regionCount == regions && blockCount == blocks;
+        }
+
+        public synchronized ValidationResult getResult() {
+            List<String> issues = new ArrayList<>(regionIssues);
+            issues.addAll(blockIssues);
+            return new ValidationResult(issues);
+        }
     }
 
     public static class ValidationResult {
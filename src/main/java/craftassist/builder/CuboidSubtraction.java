@@ -0,0 +1,128 @@
+package craftassist.builder;
+
+import java.util.Arrays;
+
+/**
+ * 方框相減：從一個 cuboid 扣掉一組方框，得到互不重疊、聯集恰為剩餘格子的子 cuboid。
+ * <p>
+ * 方框以 6 個 int 表示（minX, minY, minZ, maxX, maxY, maxZ，皆含端點），多個方框連續存放在同一個陣列。
+ * 每次扣除時，與扣除框相交的方框依序沿 x、y、z 切下扣除框兩側的板塊，剩下的核心完全落在扣除框內而捨棄，
+ * 因此一次扣除最多把一個方框拆成六塊。
+ */
+final class CuboidSubtraction {
+
+    static final int STRIDE = 6;
+
+    private CuboidSubtraction() {
+    }
+
+    /**
+     * @param box       被扣除的方框
+     * @param holes     要扣除的方框，可為空
+     * @param maxPieces 結果方框數的上限
+     * @return 剩餘的方框；全部被扣除時為空陣列，超過上限時回傳 null
+     */
+    static int[] subtract(int[] box, int[] holes, int maxPieces) {
+        int[] pieces = Arrays.copyOf(box, STRIDE);
+        int count = 1;
+        for (int h = 0; h < holes.length && count > 0; h += STRIDE) {
+            int[] next = new int[Math.max(count * 2, 4) * STRIDE];
+            int n = 0;
+            for (int p = 0; p < count; p++) {
+                int base = p * STRIDE;
+                if (!intersects(pieces, base, holes, h)) {
+                    next = ensure(next, n + 1);
+                    System.arraycopy(pieces, base, next, n * STRIDE, STRIDE);
+                    n++;
+                    continue;
+                }
+                int[] core = Arrays.copyOfRange(pieces, base, base + STRIDE);
+                for (int axis = 0; axis < 3; axis++) {
+                    if (core[axis] < holes[h + axis]) {
+                        next = ensure(next, n + 1);
+                        System.arraycopy(core, 0, next, n * STRIDE, STRIDE);
+                        next[n * STRIDE + 3 + axis] = holes[h + axis] - 1;
+                        n++;
+                        core[axis] = holes[h + axis];
+                    }
+                    if (core[3 + axis] > holes[h + 3 + axis]) {
+                        next = ensure(next, n + 1);
+                        System.arraycopy(core, 0, next, n * STRIDE, STRIDE);
+                        next[n * STRIDE + axis] = holes[h + 3 + axis] + 1;
+                        n++;
+                        core[3 + axis] = holes[h + 3 + axis];
+                    }
+                }
+            }
+            if (n > maxPieces) {
+                return null;
+            }
+            pieces = next;
+            count = n;
+        }
+        return Arrays.copyOf(pieces, count * STRIDE);
+    }
+
+    /**
+     * 空心方框的外殼拆成互不重疊的實心面：上下兩面完整，前後兩面扣掉上下，左右兩面再扣掉前後，
+     * 邊與角只屬於其中一面。任一邊長不超過 2 時沒有內部，方框本身就是外殼。
+     */
+    static int[] shell(int[] box) {
+        int minX = box[0], minY = box[1], minZ = box[2];
+        int maxX = box[3], maxY = box[4], maxZ = box[5];
+        if (maxX - minX < 2 || maxY - minY < 2 || maxZ - minZ < 2) {
+            return Arrays.copyOf(box, STRIDE);
+        }
+        return new int[]{
+                minX, minY, minZ, maxX, minY, maxZ,
+                minX, maxY, minZ, maxX, maxY, maxZ,
+                minX, minY + 1, minZ, maxX, maxY - 1, minZ,
+                minX, minY + 1, maxZ, maxX, maxY - 1, maxZ,
+                minX, minY + 1, minZ + 1, minX, maxY - 1, maxZ - 1,
+                maxX, minY + 1, minZ + 1, maxX, maxY - 1, maxZ - 1
+        };
+    }
+
+    /**
+     * 方框實際放置的格子數；空心時只計外殼。
+     */
+    static long emittedVolume(int[] box, boolean hollow) {
+        long dx = (long) box[3] - box[0] + 1;
+        long dy = (long) box[4] - box[1] + 1;
+        long dz = (long) box[5] - box[2] + 1;
+        long volume = dx * dy * dz;
+        if (!hollow) {
+            return volume;
+        }
+        return volume - Math.max(0, dx - 2) * Math.max(0, dy - 2) * Math.max(0, dz - 2);
+    }
+
+    /**
+     * 由兩個角的座標建立正規化的方框。
+     */
+    static int[] box(int[] from, int[] to) {
+        return new int[]{
+                Math.min(from[0], to[0]), Math.min(from[1], to[1]), Math.min(from[2], to[2]),
+                Math.max(from[0], to[0]), Math.max(from[1], to[1]), Math.max(from[2], to[2])
+        };
+    }
+
+    static boolean intersects(int[] a, int aBase, int[] b, int bBase) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (a[aBase + axis] > b[bBase + 3 + axis] || b[bBase + axis] > a[aBase + 3 + axis]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long volume(int[] boxes, int base) {
+        return ((long) boxes[base + 3] - boxes[base] + 1)
+                * ((long) boxes[base + 4] - boxes[base + 1] + 1)
+                * ((long) boxes[base + 5] - boxes[base + 2] + 1);
+    }
+
+    private static int[] ensure(int[] boxes, int count) {
+        return count * STRIDE <= boxes.length ? boxes : Arrays.copyOf(boxes, Math.max(boxes.length * 2, count * STRIDE));
+    }
+}
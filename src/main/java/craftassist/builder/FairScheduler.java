@@ -0,0 +1,79 @@
+package craftassist.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以加權 deficit round-robin 將每 tick 的全域方塊預算分配給多個任務。
+ * <p>
+ * 每個任務每 tick 依權重取得一份 quantum 累加到 deficit，放置多少就扣多少；
+ * 用不完的額度（例如串流來源暫時沒有資料）不會無限累積，上限為一份 quantum。
+ * 每 tick 從不同任務開始輪詢，整數捨去產生的零頭因此輪流給各任務。
+ */
+public class FairScheduler<K> {
+
+    private final Map<K, Long> deficits = new HashMap<>();
+    private int rotation = 0;
+
+    /**
+     * 計算本 tick 每個任務可放置的方塊數。
+     *
+     * @param tasks   依固定順序排列的任務鍵
+     * @param weights 與 tasks 對應的權重（> 0）
+     * @param budget  本 tick 的全域方塊預算
+     * @return 與 tasks 對應的配額，總和不超過 budget
+     */
+    public int[] allocate(List<K> tasks, int[] weights, int budget) {
+        int n = tasks.size();
+        int[] grants = new int[n];
+        if (n == 0 || budget <= 0) {
+            return grants;
+        }
+
+        long totalWeight = 0;
+        for (int w : weights) {
+            totalWeight += Math.max(1, w);
+        }
+
+        long remaining = budget;
+        int start = Math.floorMod(rotation++, n);
+        for (int i = 0; i < n && remaining > 0; i++) {
+            int idx = (start + i) % n;
+            K key = tasks.get(idx);
+            long quantum = Math.max(1, budget * (long) Math.max(1, weights[idx]) / totalWeight);
+            long deficit = Math.min(deficits.getOrDefault(key, 0L) + quantum, quantum * 2);
+            long grant = Math.min(deficit, remaining);
+            grants[idx] = (int) grant;
+            remaining -= grant;
+            deficits.put(key, deficit);
+        }
+        return grants;
+    }
+
+    /**
+     * 回報任務實際使用的方塊數，從 deficit 扣除。
+     */
+    public void consume(K task, int used) {
+        deficits.computeIfPresent(task, (k, d) -> Math.max(0, d - used));
+    }
+
+    /**
+     * 移除已不存在的任務。
+     */
+    public void retain(List<K> activeTasks) {
+        if (deficits.size() == activeTasks.size()) {
+            return;
+        }
+        for (K key : new ArrayList<>(deficits.keySet())) {
+            if (!activeTasks.contains(key)) {
+                deficits.remove(key);
+            }
+        }
+    }
+
+    long getDeficit(K task) {
+        return deficits.getOrDefault(task, 0L);
+    }
+}
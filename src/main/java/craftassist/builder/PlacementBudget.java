@@ -0,0 +1,82 @@
+package craftassist.builder;
+
+/**
+ * 依實測放置耗時調整每 tick 放置方塊數的時間預算控制器。
+ * <p>
+ * 以指數移動平均估計每個方塊的放置耗時，並讓每 tick 的放置總時間不超過設定的時間片。
+ * 伺服器本身已接近 50ms tick 上限時，時間片會依剩餘空間縮小；有餘裕時則放寬到設定值。
+ */
+public class PlacementBudget {
+
+    static final long TICK_NANOS = 50_000_000L;
+
+    private static final double SMOOTHING = 0.2;
+    private static final int MIN_BLOCKS_PER_TICK = 10;
+    // 時間片最少保留設定值的 1/10，避免嚴重延遲時完全停擺
+    private static final int MIN_SLICE_DIVISOR = 10;
+
+    private int blocksPerTick;
+    private double nanosPerBlock = -1;
+    private long effectiveSliceNanos;
+
+    public PlacementBudget(int initialBlocksPerTick) {
+        this.blocksPerTick = Math.max(MIN_BLOCKS_PER_TICK, initialBlocksPerTick);
+    }
+
+    /**
+     * 本 tick 可放置的方塊總數。
+     */
+    public synchronized int getBlocksPerTick() {
+        return blocksPerTick;
+    }
+
+    /**
+     * 平均每個方塊的放置耗時（奈秒），尚無量測時回傳 -1。
+     */
+    public synchronized double getNanosPerBlock() {
+        return nanosPerBlock;
+    }
+
+    /**
+     * 上次計算出的有效時間片（奈秒）。
+     */
+    public synchronized long getEffectiveSliceNanos() {
+        return effectiveSliceNanos;
+    }
+
+    /**
+     * 記錄一個 tick 的放置結果並計算下一個 tick 的預算。
+     *
+     * @param elapsedNanos  本 tick 放置所花的時間
+     * @param processed     本 tick 處理的方塊數，含世界中已是目標狀態而略過的方塊
+     * @param avgTickNanos  伺服器平均 tick 耗時（含放置）
+     * @param sliceNanos    設定的放置時間片
+     * @param maxBlocks     每 tick 放置上限
+     */
+    public synchronized void record(long elapsedNanos, int processed, long avgTickNanos,
+                                    long sliceNanos, int maxBlocks) {
+        if (processed > 0) {
+            double sample = (double) elapsedNanos / processed;
+            nanosPerBlock = nanosPerBlock < 0 ? sample : nanosPerBlock + SMOOTHING * (sample - nanosPerBlock);
+        }
+
+        // 扣除放置本身後，伺服器其餘工作在一個 tick 內剩下的空間
+        long otherWork = Math.max(0, avgTickNanos - elapsedNanos);
+        long headroom = TICK_NANOS - otherWork;
+        long minSlice = sliceNanos / MIN_SLICE_DIVISOR;
+        effectiveSliceNanos = Math.max(minSlice, Math.min(sliceNanos, headroom));
+
+        if (nanosPerBlock <= 0) {
+            return;
+        }
+
+        long target = (long) (effectiveSliceNanos / nanosPerBlock);
+        // 單次最多加倍，避免量測雜訊造成暴衝
+        target = Math.min(target, (long) blocksPerTick * 2);
+        // 只有用滿預算時才增加，來源暫時沒有資料時不因空轉而放大
+        if (processed < blocksPerTick && target > blocksPerTick) {
+            target = blocksPerTick;
+        }
+        blocksPerTick = (int) Math.max(MIN_BLOCKS_PER_TICK, Math.min(maxBlocks, target));
+    }
+}
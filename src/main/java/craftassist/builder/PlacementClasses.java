@@ -0,0 +1,137 @@
+package craftassist.builder;
+
+import craftassist.CraftAssistMod;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.block.BaseRailBlock;
+import net.minecraft.world.level.block.BasePressurePlateBlock;
+import net.minecraft.world.level.block.BaseTorchBlock;
+import net.minecraft.world.level.block.BedBlock;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.CocoaBlock;
+import net.minecraft.world.level.block.DiodeBlock;
+import net.minecraft.world.level.block.DoorBlock;
+import net.minecraft.world.level.block.FaceAttachedHorizontalDirectionalBlock;
+import net.minecraft.world.level.block.FallingBlock;
+import net.minecraft.world.level.block.FlowerPotBlock;
+import net.minecraft.world.level.block.HangingRootsBlock;
+import net.minecraft.world.level.block.LadderBlock;
+import net.minecraft.world.level.block.LanternBlock;
+import net.minecraft.world.level.block.MultifaceBlock;
+import net.minecraft.world.level.block.RedStoneWireBlock;
+import net.minecraft.world.level.block.TripWireHookBlock;
+import net.minecraft.world.level.block.VineBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.List;
+
+/**
+ * 方塊的放置階段表，依方塊登錄表的數字 ID 索引。
+ * <p>
+ * 伺服器啟動與資料包重新載入時從方塊類別與標籤建立一次，之後每個 palette 條目只做一次陣列查詢，
+ * 所有木材種類的門、床、告示牌、火把、按鈕等變體都會被涵蓋，資料包加入標籤的方塊也一樣。
+ * 階段與 {@link PlacementPlan.Builder#addState} 的 phase 相同，數字小的先放。
+ */
+public class PlacementClasses {
+
+    /** 結構方塊，最先放置 */
+    public static final int STRUCTURE = 0;
+    /** air，在結構之後清空空間 */
+    public static final int AIR = 1;
+    /** 受重力影響的方塊（沙、礫石、混凝土粉末、鐵砧），下方結構就位後才放，避免掉落 */
+    public static final int GRAVITY = 2;
+    /** 多格方塊（門、床），需要牆壁與地板先就位 */
+    public static final int MULTI_PART = 3;
+    /** 附著在牆面、天花板或地面上，需要支撐面的方塊 */
+    public static final int ATTACHED = 4;
+
+    // 以標籤判斷的附著方塊，涵蓋所有木材與顏色變體
+    private static final List<TagKey<Block>> ATTACHED_TAGS = List.of(
+            BlockTags.ALL_SIGNS, BlockTags.ALL_HANGING_SIGNS, BlockTags.BANNERS,
+            BlockTags.BUTTONS, BlockTags.PRESSURE_PLATES, BlockTags.WOOL_CARPETS,
+            BlockTags.RAILS, BlockTags.FLOWER_POTS, BlockTags.CANDLES,
+            BlockTags.SAPLINGS, BlockTags.SMALL_FLOWERS, BlockTags.CROPS
+    );
+
+    // 依登錄表 ID 索引的放置階段；未建立時為 null
+    private static volatile byte[] phases;
+
+    public static void init() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> rebuild());
+        // 資料包可能改變標籤內容
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            if (success) {
+                rebuild();
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> phases = null);
+    }
+
+    /**
+     * 方塊狀態的放置階段。表尚未建立時（例如伺服器啟動前）先建立一次。
+     */
+    public static int phaseOf(BlockState state) {
+        if (state.isAir()) {
+            return AIR;
+        }
+        byte[] table = phases;
+        if (table == null) {
+            table = rebuild();
+        }
+        int id = BuiltInRegistries.BLOCK.getId(state.getBlock());
+        return id >= 0 && id < table.length ? table[id] : STRUCTURE;
+    }
+
+    private static byte[] rebuild() {
+        byte[] table = new byte[BuiltInRegistries.BLOCK.size()];
+        int[] counts = new int[ATTACHED + 1];
+        for (Block block : BuiltInRegistries.BLOCK) {
+            int phase = classify(block);
+            table[BuiltInRegistries.BLOCK.getId(block)] = (byte) phase;
+            counts[phase]++;
+        }
+        phases = table;
+        CraftAssistMod.LOGGER.info("[CraftAssist] 放置階段表已建立：{} 種方塊，重力 {}、多格 {}、附著 {}",
+                table.length, counts[GRAVITY], counts[MULTI_PART], counts[ATTACHED]);
+        return table;
+    }
+
+    private static int classify(Block block) {
+        BlockState state = block.defaultBlockState();
+        if (state.isAir()) {
+            return AIR;
+        }
+        if (block instanceof DoorBlock || block instanceof BedBlock
+                || state.is(BlockTags.DOORS) || state.is(BlockTags.BEDS)) {
+            return MULTI_PART;
+        }
+        if (isAttached(block, state)) {
+            return ATTACHED;
+        }
+        if (block instanceof FallingBlock) {
+            return GRAVITY;
+        }
+        return STRUCTURE;
+    }
+
+    private static boolean isAttached(Block block, BlockState state) {
+        // 按鈕與拉桿（FaceAttached）、火把與牆上火把（BaseTorch）等沒有對應標籤的類別
+        if (block instanceof FaceAttachedHorizontalDirectionalBlock || block instanceof BaseTorchBlock
+                || block instanceof LanternBlock || block instanceof LadderBlock
+                || block instanceof VineBlock || block instanceof MultifaceBlock
+                || block instanceof CocoaBlock || block instanceof TripWireHookBlock
+                || block instanceof BasePressurePlateBlock || block instanceof BaseRailBlock
+                || block instanceof RedStoneWireBlock || block instanceof DiodeBlock
+                || block instanceof FlowerPotBlock || block instanceof HangingRootsBlock) {
+            return true;
+        }
+        for (TagKey<Block> tag : ATTACHED_TAGS) {
+            if (state.is(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
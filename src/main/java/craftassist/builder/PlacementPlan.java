@@ -0,0 +1,592 @@
+package craftassist.builder;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 惰性放置計畫：regions 保留為 cuboid，individual blocks 以 packed long 儲存，
+ * 方塊狀態以 palette 索引表示。座標只在 {@link Cursor} 被消耗時才逐一展開，
+ * 因此建立計畫的成本與 region 數量成正比，而非體積。
+ * <p>
+ * 覆蓋規則與逐格去重一致：後出現的條目覆蓋先出現的（blocks 覆蓋 regions）。
+ * 建構時把被覆蓋的範圍從較早的 region 方框扣掉，計畫中的條目互不重疊，每個座標只會產出一次，
+ * 不需要逐格記錄已產出的位置。
+ * <p>
+ * 走訪順序：先依放置階段（結構 → air → 重力 → 多格 → 附著），階段內依 chunk section 分組，
+ * 讓連續的寫入落在同一個 section。
+ */
+public class PlacementPlan {
+
+    // 對應 PlacementClasses：結構、air、重力、多格、附著
+    public static final int PHASE_COUNT = 5;
+
+    // 每個 region 佔用的 int 數：minX, minY, minZ, maxX, maxY, maxZ, paletteIndex；空心 region 已拆成實心面
+    private static final int REGION_STRIDE = 7;
+    // 實心 region 扣除 exclude 後超過這個塊數時改為逐格檢查，避免大量破碎的排除框撐大計畫
+    static final int MAX_EXCLUDE_PIECES = 256;
+    // 扣除後續條目的覆蓋範圍時的塊數上限；後續 blocks 多半是單格，容許拆得比排除框更碎
+    static final int MAX_CARVE_PIECES = 1024;
+
+    private final List<BlockState> palette;
+    private final int[] regions;
+    private final int regionCount;
+    // 每個 region 仍需逐格檢查的排除框，每框 6 個 int（已正規化的 min/max）；
+    // 只有拆得太碎而無法以方框相減處理的 region 才有
+    private final int[][] regionExcludes;
+    // 覆蓋這個 region 但本身帶有排除框的後續 region（方框 6 個 int，之後接其排除框），無法直接扣除而逐格檢查；多數為 null
+    private final int[][][] maskedOverriders;
+    private final long[] blockPositions;
+    private final int[] blockStates;
+    // 所有條目觸及的 chunk section（SectionPos.asLong，已排序）
+    private final long[] sectionKeys;
+    // 各放置階段的走訪項目：高 32 位為 section 序號，低 32 位為條目索引（先 regions 後 blocks）
+    private final long[][] phaseItems;
+    private final long candidateCount;
+
+    private PlacementPlan(Builder builder) {
+        this.palette = new ArrayList<>(builder.palette);
+
+        // blocks 之間去重：同座標只保留最後一個
+        int rawCount = builder.blockCount;
+        long[] sorted = Arrays.copyOf(builder.blockPositions, rawCount);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < rawCount; i++) {
+            if (i == 0 || sorted[i] != sorted[unique - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+
+        boolean[] claimed = new boolean[unique];
+        boolean[] keep = new boolean[rawCount];
+        int kept = 0;
+        for (int i = rawCount - 1; i >= 0; i--) {
+            int slot = Arrays.binarySearch(sorted, 0, unique, builder.blockPositions[i]);
+            if (!claimed[slot]) {
+                claimed[slot] = true;
+                keep[i] = true;
+                kept++;
+            }
+        }
+        this.blockPositions = new long[kept];
+        this.blockStates = new int[kept];
+        int k = 0;
+        for (int i = 0; i < rawCount; i++) {
+            if (keep[i]) {
+                blockPositions[k] = builder.blockPositions[i];
+                blockStates[k] = builder.blockStates[i];
+                k++;
+            }
+        }
+
+        // region 之間與 region 與 blocks 之間的重疊以方框相減解決，每個座標只屬於一個條目
+        Carving carving = new Carving(builder, blockPositions);
+        this.regionCount = carving.count;
+        this.regions = Arrays.copyOf(carving.regions, regionCount * REGION_STRIDE);
+        this.regionExcludes = carving.excludes.toArray(new int[0][]);
+        this.maskedOverriders = carving.overriders.toArray(new int[0][][]);
+
+        // 依 section 分組：同一 section 內的放置連續進行，減少 chunk 查找並合併客戶端的 section 更新
+        long[] keys = new long[Math.max(16, kept)];
+        int keyCount = 0;
+        for (int r = 0; r < regionCount; r++) {
+            int base = r * REGION_STRIDE;
+            for (int sx = regions[base] >> 4; sx <= regions[base + 3] >> 4; sx++) {
+                for (int sy = regions[base + 1] >> 4; sy <= regions[base + 4] >> 4; sy++) {
+                    for (int sz = regions[base + 2] >> 4; sz <= regions[base + 5] >> 4; sz++) {
+                        if (keyCount == keys.length) {
+                            keys = Arrays.copyOf(keys, keys.length * 2);
+                        }
+                        keys[keyCount++] = SectionPos.asLong(sx, sy, sz);
+                    }
+                }
+            }
+        }
+        for (int b = 0; b < kept; b++) {
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            keys[keyCount++] = sectionOf(blockPositions[b]);
+        }
+        Arrays.sort(keys, 0, keyCount);
+        int sections = 0;
+        for (int i = 0; i < keyCount; i++) {
+            if (i == 0 || keys[i] != keys[sections - 1]) {
+                keys[sections++] = keys[i];
+            }
+        }
+        this.sectionKeys = Arrays.copyOf(keys, sections);
+
+        // 依 palette 的放置階段分桶：先計數再填入，所有條目只走訪兩次；
+        // 階段內依 section 排序，同 section 內保留原始順序
+        int[] phaseSizes = new int[PHASE_COUNT];
+        for (int r = 0; r < regionCount; r++) {
+            int base = r * REGION_STRIDE;
+            phaseSizes[builder.palettePhases[regions[base + 6]]] += sectionSpan(regions, base);
+        }
+        for (int b = 0; b < kept; b++) {
+            phaseSizes[builder.palettePhases[blockStates[b]]]++;
+        }
+        this.phaseItems = new long[PHASE_COUNT][];
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            phaseItems[phase] = new long[phaseSizes[phase]];
+        }
+        int[] filled = new int[PHASE_COUNT];
+        for (int r = 0; r < regionCount; r++) {
+            int base = r * REGION_STRIDE;
+            int phase = builder.palettePhases[regions[base + 6]];
+            long[] items = phaseItems[phase];
+            for (int sx = regions[base] >> 4; sx <= regions[base + 3] >> 4; sx++) {
+                for (int sy = regions[base + 1] >> 4; sy <= regions[base + 4] >> 4; sy++) {
+                    for (int sz = regions[base + 2] >> 4; sz <= regions[base + 5] >> 4; sz++) {
+                        items[filled[phase]++] = item(SectionPos.asLong(sx, sy, sz), r);
+                    }
+                }
+            }
+        }
+        for (int b = 0; b < kept; b++) {
+            int phase = builder.palettePhases[blockStates[b]];
+            phaseItems[phase][filled[phase]++] = item(sectionOf(blockPositions[b]), regionCount + b);
+        }
+        for (long[] items : phaseItems) {
+            Arrays.sort(items);
+        }
+
+        long candidates = kept;
+        for (int r = 0; r < regionCount; r++) {
+            candidates += CuboidSubtraction.volume(regions, r * REGION_STRIDE);
+        }
+        this.candidateCount = candidates;
+    }
+
+    private long item(long sectionKey, int entry) {
+        return ((long) Arrays.binarySearch(sectionKeys, sectionKey) << 32) | entry;
+    }
+
+    // region 跨越的 section 數
+    private static int sectionSpan(int[] regions, int base) {
+        return ((regions[base + 3] >> 4) - (regions[base] >> 4) + 1)
+                * ((regions[base + 4] >> 4) - (regions[base + 1] >> 4) + 1)
+                * ((regions[base + 5] >> 4) - (regions[base + 2] >> 4) + 1);
+    }
+
+    private static long sectionOf(long packedPos) {
+        return SectionPos.asLong(BlockPos.getX(packedPos) >> 4, BlockPos.getY(packedPos) >> 4,
+                BlockPos.getZ(packedPos) >> 4);
+    }
+
+    /**
+     * 計畫觸及的 chunk section 數量。
+     */
+    public int getSectionCount() {
+        return sectionKeys.length;
+    }
+
+    public boolean isEmpty() {
+        return regionCount == 0 && blockPositions.length == 0;
+    }
+
+    /**
+     * 預估的放置方塊數（重疊已扣除；逐格檢查排除框的 region 以整塊計），用於提示訊息。
+     */
+    public long getEstimatedBlocks() {
+        return candidateCount;
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getPaletteSize() {
+        return palette.size();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private boolean emits(int r, int x, int y, int z) {
+        int base = r * REGION_STRIDE;
+        return contains(regions, base, x, y, z) && !containsAny(regionExcludes[r], 0, x, y, z);
+    }
+
+    private boolean isOverridden(int r, int x, int y, int z) {
+        int[][] overriders = maskedOverriders[r];
+        if (overriders == null) {
+            return false;
+        }
+        for (int[] overrider : overriders) {
+            if (contains(overrider, 0, x, y, z) && !containsAny(overrider, CuboidSubtraction.STRIDE, x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] boxes, int base, int x, int y, int z) {
+        return x >= boxes[base] && x <= boxes[base + 3] && y >= boxes[base + 1] && y <= boxes[base + 4]
+                && z >= boxes[base + 2] && z <= boxes[base + 5];
+    }
+
+    private static boolean containsAny(int[] boxes, int from, int x, int y, int z) {
+        for (int i = from; i < boxes.length; i += CuboidSubtraction.STRIDE) {
+            if (contains(boxes, i, x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以方框相減解決重疊：依加入順序處理每個 region，扣掉與它相交的後續 region 與所有 blocks，
+     * 剩下的子 cuboid 互不重疊，走訪時不需要再查詢其他條目。
+     * <p>
+     * blocks 依 x 排序，每個 region 只掃描 x 範圍內的 blocks。
+     * 拆出的塊數超過上限時保留原方框，改把被覆蓋的範圍併入排除框逐格略過。
+     */
+    private static final class Carving {
+        private int[] regions;
+        private int count = 0;
+        private final List<int[]> excludes = new ArrayList<>();
+        private final List<int[][]> overriders = new ArrayList<>();
+
+        Carving(Builder builder, long[] blockPositions) {
+            int sourceCount = builder.regionCount;
+            int[] source = builder.regions;
+            this.regions = new int[Math.max(16, sourceCount) * REGION_STRIDE];
+
+            // 高 32 位為 x，低 32 位為 block 索引
+            long[] blocksByX = new long[blockPositions.length];
+            for (int b = 0; b < blockPositions.length; b++) {
+                blocksByX[b] = ((long) BlockPos.getX(blockPositions[b]) << 32) | b;
+            }
+            Arrays.sort(blocksByX);
+
+            for (int r = 0; r < sourceCount; r++) {
+                int base = r * REGION_STRIDE;
+                int[] box = Arrays.copyOfRange(source, base, base + CuboidSubtraction.STRIDE);
+                int[] holes = new int[16 * CuboidSubtraction.STRIDE];
+                int n = 0;
+                List<int[]> masked = null;
+                for (int later = builder.overrideFrom[r]; later < sourceCount; later++) {
+                    int laterBase = later * REGION_STRIDE;
+                    if (!CuboidSubtraction.intersects(box, 0, source, laterBase)) {
+                        continue;
+                    }
+                    int[] laterExcludes = builder.regionExcludes.get(later);
+                    if (laterExcludes.length > 0) {
+                        // 帶排除框的 region 沒有放滿自己的方框，不能整塊扣除
+                        if (masked == null) {
+                            masked = new ArrayList<>();
+                        }
+                        int[] overrider = Arrays.copyOf(Arrays.copyOfRange(source, laterBase,
+                                laterBase + CuboidSubtraction.STRIDE), CuboidSubtraction.STRIDE + laterExcludes.length);
+                        System.arraycopy(laterExcludes, 0, overrider, CuboidSubtraction.STRIDE, laterExcludes.length);
+                        masked.add(overrider);
+                        continue;
+                    }
+                    holes = ensure(holes, n + 1);
+                    System.arraycopy(source, laterBase, holes, n * CuboidSubtraction.STRIDE, CuboidSubtraction.STRIDE);
+                    n++;
+                }
+                int first = -Arrays.binarySearch(blocksByX, ((long) box[0] << 32) - 1) - 1;
+                for (int i = first; i < blocksByX.length && (int) (blocksByX[i] >> 32) <= box[3]; i++) {
+                    long pos = blockPositions[(int) blocksByX[i]];
+                    int x = BlockPos.getX(pos), y = BlockPos.getY(pos), z = BlockPos.getZ(pos);
+                    if (contains(box, 0, x, y, z)) {
+                        holes = ensure(holes, n + 1);
+                        int h = n * CuboidSubtraction.STRIDE;
+                        holes[h] = holes[h + 3] = x;
+                        holes[h + 1] = holes[h + 4] = y;
+                        holes[h + 2] = holes[h + 5] = z;
+                        n++;
+                    }
+                }
+
+                int[] ownExcludes = builder.regionExcludes.get(r);
+                holes = Arrays.copyOf(holes, n * CuboidSubtraction.STRIDE);
+                int[] pieces = n == 0 ? box : CuboidSubtraction.subtract(box, holes, MAX_CARVE_PIECES);
+                if (pieces == null) {
+                    pieces = box;
+                    ownExcludes = concat(ownExcludes, holes);
+                }
+                int[][] overriding = masked == null ? null : masked.toArray(new int[0][]);
+                for (int p = 0; p < pieces.length; p += CuboidSubtraction.STRIDE) {
+                    append(pieces, p, source[base + 6], ownExcludes, overriding);
+                }
+            }
+        }
+
+        private void append(int[] box, int offset, int paletteIndex, int[] holes, int[][] overriding) {
+            if ((count + 1) * REGION_STRIDE > regions.length) {
+                regions = Arrays.copyOf(regions, regions.length * 2);
+            }
+            System.arraycopy(box, offset, regions, count * REGION_STRIDE, CuboidSubtraction.STRIDE);
+            regions[count * REGION_STRIDE + 6] = paletteIndex;
+            excludes.add(holes);
+            overriders.add(overriding);
+            count++;
+        }
+
+        private static int[] ensure(int[] boxes, int count) {
+            return count * CuboidSubtraction.STRIDE <= boxes.length ? boxes : Arrays.copyOf(boxes, boxes.length * 2);
+        }
+
+        private static int[] concat(int[] a, int[] b) {
+            int[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            return result;
+        }
+    }
+
+    /**
+     * 依放置階段、再依 chunk section 走訪計畫的游標。可跨 tick 暫停與繼續。
+     */
+    public final class Cursor implements PlacementSource {
+        private int phase = 0;
+        private int itemSlot = 0;
+        private boolean inRegion = false;
+        // 目前 region 與 section 的交集範圍
+        private int minX, minY, minZ, maxX, maxY, maxZ;
+        private int x, y, z;
+        private long visited = 0;
+        private long pos;
+        private BlockState state;
+
+        private Cursor() {
+        }
+
+        @Override
+        public boolean advance() {
+            while (phase < PHASE_COUNT) {
+                long[] items = phaseItems[phase];
+                if (itemSlot >= items.length) {
+                    phase++;
+                    itemSlot = 0;
+                    continue;
+                }
+                long item = items[itemSlot];
+                int entry = (int) item;
+                if (entry < regionCount) {
+                    if (nextInRegion(entry, sectionKeys[(int) (item >>> 32)])) {
+                        return true;
+                    }
+                    itemSlot++;
+                    inRegion = false;
+                    continue;
+                }
+                int b = entry - regionCount;
+                itemSlot++;
+                visited++;
+                pos = blockPositions[b];
+                state = palette.get(blockStates[b]);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean nextInRegion(int r, long sectionKey) {
+            int base = r * REGION_STRIDE;
+            if (!inRegion) {
+                inRegion = true;
+                int sectionX = SectionPos.x(sectionKey) << 4;
+                int sectionY = SectionPos.y(sectionKey) << 4;
+                int sectionZ = SectionPos.z(sectionKey) << 4;
+                minX = Math.max(regions[base], sectionX);
+                minY = Math.max(regions[base + 1], sectionY);
+                minZ = Math.max(regions[base + 2], sectionZ);
+                maxX = Math.min(regions[base + 3], sectionX + 15);
+                maxY = Math.min(regions[base + 4], sectionY + 15);
+                maxZ = Math.min(regions[base + 5], sectionZ + 15);
+                x = minX;
+                y = minY;
+                z = minZ - 1;
+            }
+            while (true) {
+                if (++z > maxZ) {
+                    z = minZ;
+                    if (++y > maxY) {
+                        y = minY;
+                        if (++x > maxX) {
+                            return false;
+                        }
+                    }
+                }
+                visited++;
+                if (!emits(r, x, y, z) || isOverridden(r, x, y, z)) {
+                    continue;
+                }
+                pos = BlockPos.asLong(x, y, z);
+                state = palette.get(regions[base + 6]);
+                return true;
+            }
+        }
+
+        @Override
+        public long pos() {
+            return pos;
+        }
+
+        @Override
+        public BlockState state() {
+            return state;
+        }
+
+        @Override
+        public boolean isStructural() {
+            return phase == 0;
+        }
+
+        @Override
+        public boolean isUnique() {
+            return true;
+        }
+
+        @Override
+        public long progress() {
+            return visited;
+        }
+
+        @Override
+        public long total() {
+            return candidateCount;
+        }
+    }
+
+    // ========== 建構 ==========
+
+    /**
+     * 逐一加入 palette、regions 與 blocks，最後 {@link #build()} 產生不可變計畫。
+     * 傳入的座標皆為相對於 origin 的建築座標。
+     */
+    public static class Builder {
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final List<BlockState> palette = new ArrayList<>();
+        private int[] palettePhases = new int[16];
+        private int[] regions = new int[16 * REGION_STRIDE];
+        private int regionCount = 0;
+        private final List<int[]> regionExcludes = new ArrayList<>();
+        private int[] overrideFrom = new int[16];
+        private long[] blockPositions = new long[16];
+        private int[] blockStates = new int[16];
+        private int blockCount = 0;
+
+        public Builder(BlockPos origin) {
+            this.originX = origin.getX();
+            this.originY = origin.getY();
+            this.originZ = origin.getZ();
+        }
+
+        /**
+         * 加入 palette 條目，呼叫端負責避免重複加入同一狀態。
+         *
+         * @param phase 放置階段（0 ~ {@value PHASE_COUNT} - 1），數字小的先放
+         * @return palette 索引
+         */
+        public int addState(BlockState state, int phase) {
+            if (palette.size() == palettePhases.length) {
+                palettePhases = Arrays.copyOf(palettePhases, palettePhases.length * 2);
+            }
+            palettePhases[palette.size()] = Math.max(0, Math.min(PHASE_COUNT - 1, phase));
+            palette.add(state);
+            return palette.size() - 1;
+        }
+
+        /**
+         * 加入一個 cuboid region。
+         * <p>
+         * 空心 region 在這裡拆成互不重疊的六個面，走訪成本與表面積成正比而非體積；
+         * 排除框以方框相減從每一塊扣掉，走訪時不會經過被排除的格子。
+         * 同一個 region 拆出的子 region 互不重疊。
+         *
+         * @param excludes 排除框，每個元素為 {@code {min, max}}，可為 null
+         */
+        public Builder addRegion(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                 int paletteIndex, boolean hollow, List<int[][]> excludes) {
+            int[] box = {
+                    originX + Math.min(minX, maxX), originY + Math.min(minY, maxY), originZ + Math.min(minZ, maxZ),
+                    originX + Math.max(minX, maxX), originY + Math.max(minY, maxY), originZ + Math.max(minZ, maxZ)
+            };
+            int[] holes = normalizeExcludes(box, excludes);
+            int[] parts = hollow ? CuboidSubtraction.shell(box) : box;
+            int first = regionCount;
+            for (int p = 0; p < parts.length; p += CuboidSubtraction.STRIDE) {
+                int[] part = Arrays.copyOfRange(parts, p, p + CuboidSubtraction.STRIDE);
+                int[] pieces = holes.length > 0
+                        ? CuboidSubtraction.subtract(part, holes, MAX_EXCLUDE_PIECES) : null;
+                if (pieces == null) {
+                    appendRegion(part, 0, paletteIndex, holes);
+                    continue;
+                }
+                for (int q = 0; q < pieces.length; q += CuboidSubtraction.STRIDE) {
+                    appendRegion(pieces, q, paletteIndex, new int[0]);
+                }
+            }
+            Arrays.fill(overrideFrom, first, regionCount, regionCount);
+            return this;
+        }
+
+        private void appendRegion(int[] box, int offset, int paletteIndex, int[] holes) {
+            if ((regionCount + 1) * REGION_STRIDE > regions.length) {
+                regions = Arrays.copyOf(regions, regions.length * 2);
+            }
+            if (regionCount == overrideFrom.length) {
+                overrideFrom = Arrays.copyOf(overrideFrom, regionCount * 2);
+            }
+            overrideFrom[regionCount] = regionCount + 1;
+            int base = regionCount * REGION_STRIDE;
+            System.arraycopy(box, offset, regions, base, CuboidSubtraction.STRIDE);
+            regions[base + 6] = paletteIndex;
+            regionExcludes.add(holes);
+            regionCount++;
+        }
+
+        public Builder addBlock(int x, int y, int z, int paletteIndex) {
+            if (blockCount == blockPositions.length) {
+                blockPositions = Arrays.copyOf(blockPositions, blockCount * 2);
+                blockStates = Arrays.copyOf(blockStates, blockCount * 2);
+            }
+            blockPositions[blockCount] = BlockPos.asLong(originX + x, originY + y, originZ + z);
+            blockStates[blockCount] = paletteIndex;
+            blockCount++;
+            return this;
+        }
+
+        public PlacementPlan build() {
+            return new PlacementPlan(this);
+        }
+
+        /**
+         * 排除框轉為絕對座標的 min/max，與 region 不相交的直接捨棄。
+         */
+        private int[] normalizeExcludes(int[] box, List<int[][]> excludes) {
+            if (excludes == null || excludes.isEmpty()) {
+                return new int[0];
+            }
+            int[] boxes = new int[excludes.size() * 6];
+            int n = 0;
+            for (int[][] ex : excludes) {
+                if (ex == null || ex.length != 2 || ex[0] == null || ex[1] == null
+                        || ex[0].length != 3 || ex[1].length != 3) {
+                    continue;
+                }
+                int[] offset = {originX, originY, originZ};
+                for (int axis = 0; axis < 3; axis++) {
+                    boxes[n + axis] = offset[axis] + Math.min(ex[0][axis], ex[1][axis]);
+                    boxes[n + 3 + axis] = offset[axis] + Math.max(ex[0][axis], ex[1][axis]);
+                }
+                if (CuboidSubtraction.intersects(box, 0, boxes, n)) {
+                    n += 6;
+                }
+            }
+            return Arrays.copyOf(boxes, n);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package craftassist.builder;
+
+import craftassist.CraftAssistMod;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 在背景執行緒池準備放置計畫，並將展開後的放置分段串流給伺服器執行緒。
+ * 伺服器執行緒只需建立 {@link PlacementStream} 並啟動批次任務，下一個 tick 即可開始放置。
+ */
+public class PlacementPreparer {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)), runnable -> {
+                Thread thread = new Thread(runnable, "CraftAssist-Prepare-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * 在準備執行緒池執行工作，供需要自行控制生產流程的呼叫端（例如 {@link ProgressiveBuild}）使用。
+     */
+    static void submit(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * 在背景執行 planner 並串流其結果。planner 不得存取世界狀態。
+     */
+    public static PlacementStream prepareAsync(Supplier<PlacementPlan> planner) {
+        PlacementStream stream = new PlacementStream(true);
+        EXECUTOR.execute(() -> {
+            long startTime = System.nanoTime();
+            try {
+                PlacementPlan plan = planner.get();
+                if (!stream.isCancelled()) {
+                    stream.produce(plan);
+                }
+                stream.finish();
+                CraftAssistMod.LOGGER.debug("[CraftAssist] 放置計畫準備完成 | 耗時: {}ms",
+                        (System.nanoTime() - startTime) / 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stream.fail(e);
+            } catch (Exception e) {
+                CraftAssistMod.LOGGER.error("[CraftAssist] 放置計畫準備失敗", e);
+                stream.fail(e);
+            }
+        });
+        return stream;
+    }
+}
@@ -0,0 +1,150 @@
+package craftassist.builder;
+
+import craftassist.CraftAssistMod;
+import craftassist.undo.SnapshotCursor;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.UncheckedIOException;
+
+/**
+ * 批次任務的方塊來源。以游標方式逐一產出放置，座標為 {@link net.minecraft.core.BlockPos#asLong()} 格式。
+ */
+public interface PlacementSource {
+
+    /**
+     * 前進到下一個放置。
+     *
+     * @return false 表示已無更多放置
+     */
+    boolean advance();
+
+    /**
+     * 目前放置的座標（packed long）。
+     */
+    long pos();
+
+    /**
+     * 目前放置的目標狀態。
+     */
+    BlockState state();
+
+    /**
+     * 目前放置要一併還原的方塊實體（壓縮 NBT），一般建築放置為 null。
+     */
+    default byte[] blockEntity() {
+        return null;
+    }
+
+    /**
+     * 目前放置是否屬於結構階段（最先放置、不依附其他方塊的方塊）。
+     */
+    default boolean isStructural() {
+        return false;
+    }
+
+    /**
+     * 每個座標是否最多只會出現一次。是的話批次任務不需要記錄已處理的位置來保留第一次的原始狀態。
+     */
+    default boolean isUnique() {
+        return false;
+    }
+
+    /**
+     * 已走訪的候選格數，與 {@link #total()} 同單位，用於進度顯示。
+     */
+    long progress();
+
+    /**
+     * 候選格總數。
+     */
+    long total();
+
+    /**
+     * {@link #advance()} 回傳 false 時，來源是否已永久結束。
+     * 非同步來源在資料尚未送達時回傳 false，批次任務會在下個 tick 重試。
+     */
+    default boolean isComplete() {
+        return true;
+    }
+
+    /**
+     * 來源在產生放置時發生的錯誤，沒有錯誤時為 null。
+     */
+    default Throwable getFailure() {
+        return null;
+    }
+
+    /**
+     * 停止產生放置並釋放資源。
+     */
+    default void close() {
+    }
+
+    /**
+     * 依記錄順序還原 undo 快照的來源，直接讀取壓縮資料或磁碟檔案，不展開成清單。
+     */
+    static PlacementSource of(SnapshotCursor cursor) {
+        return new SnapshotSource(cursor);
+    }
+
+    final class SnapshotSource implements PlacementSource {
+        private final SnapshotCursor cursor;
+        private Throwable failure;
+
+        private SnapshotSource(SnapshotCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean advance() {
+            if (failure != null) {
+                return false;
+            }
+            try {
+                return cursor.advance();
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+                return false;
+            }
+        }
+
+        @Override
+        public long pos() {
+            return cursor.pos();
+        }
+
+        @Override
+        public BlockState state() {
+            return cursor.state();
+        }
+
+        @Override
+        public byte[] blockEntity() {
+            return cursor.blockEntity();
+        }
+
+        @Override
+        public long progress() {
+            return cursor.consumed();
+        }
+
+        @Override
+        public long total() {
+            return cursor.size();
+        }
+
+        @Override
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        @Override
+        public void close() {
+            try {
+                cursor.close();
+            } catch (UncheckedIOException e) {
+                CraftAssistMod.LOGGER.warn("[CraftAssist] 關閉 undo 來源失敗", e);
+            }
+        }
+    }
+}
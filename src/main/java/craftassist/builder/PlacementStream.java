@@ -0,0 +1,193 @@
+package craftassist.builder;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 由背景執行緒分段產生、伺服器執行緒消耗的放置來源。
+ * <p>
+ * 生產端把放置打包成固定大小的 {@link Chunk}，經由有界佇列交給 {@link BatchPlacementManager.BatchTask}；
+ * 佇列滿時生產端等待，因此緩衝的放置數量有上限。消耗端只做非阻塞的 poll，不會卡住 tick。
+ */
+public class PlacementStream implements PlacementSource {
+
+    static final int CHUNK_SIZE = 4096;
+    static final int QUEUE_CAPACITY = 16;
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final BlockingQueue<Chunk> queue;
+    // 只會送入一個計畫時，放置沿用計畫的唯一性
+    private final boolean singlePlan;
+    private volatile long total = 0;
+    private volatile boolean producerDone = false;
+    private volatile boolean cancelled = false;
+    private volatile Throwable failure;
+
+    private Chunk current;
+    private int index = -1;
+    private long consumedProgress = 0;
+
+    public PlacementStream() {
+        this(QUEUE_CAPACITY, false);
+    }
+
+    /**
+     * @param singlePlan 是否只會呼叫一次 {@link #produce}
+     */
+    public PlacementStream(boolean singlePlan) {
+        this(QUEUE_CAPACITY, singlePlan);
+    }
+
+    PlacementStream(int capacity) {
+        this(capacity, false);
+    }
+
+    PlacementStream(int capacity, boolean singlePlan) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.singlePlan = singlePlan;
+    }
+
+    // ========== 消耗端（伺服器執行緒） ==========
+
+    @Override
+    public boolean advance() {
+        if (current != null && index + 1 < current.size) {
+            index++;
+            return true;
+        }
+        if (current != null) {
+            consumedProgress = current.progressEnd;
+            current = null;
+        }
+        Chunk next = queue.poll();
+        if (next == null) {
+            return false;
+        }
+        current = next;
+        index = 0;
+        return true;
+    }
+
+    @Override
+    public long pos() {
+        return current.positions[index];
+    }
+
+    @Override
+    public BlockState state() {
+        return current.states[index];
+    }
+
+    @Override
+    public boolean isStructural() {
+        return current.structural[index];
+    }
+
+    @Override
+    public boolean isUnique() {
+        return singlePlan;
+    }
+
+    @Override
+    public long progress() {
+        if (current == null) {
+            return consumedProgress;
+        }
+        long span = current.progressEnd - current.progressStart;
+        return current.progressStart + span * (index + 1) / current.size;
+    }
+
+    @Override
+    public long total() {
+        return total;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return (producerDone && queue.isEmpty() && current == null) || cancelled;
+    }
+
+    @Override
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    // ========== 生產端（背景執行緒） ==========
+
+    /**
+     * 將計畫的全部放置分段送入佇列，直到完成或被取消。
+     * 可連續呼叫多次（邊生成邊放置時每批元素一個計畫），總量與進度依序累加；
+     * 建立時宣告為單一計畫的串流只能呼叫一次，否則不同計畫的座標可能重複。
+     */
+    void produce(PlacementPlan plan) throws InterruptedException {
+        PlacementPlan.Cursor cursor = plan.cursor();
+        long base = total;
+        total = base + cursor.total();
+
+        long progressStart = base;
+        Chunk chunk = new Chunk(progressStart);
+        while (!cancelled && cursor.advance()) {
+            chunk.positions[chunk.size] = cursor.pos();
+            chunk.states[chunk.size] = cursor.state();
+            chunk.structural[chunk.size] = cursor.isStructural();
+            chunk.size++;
+            if (chunk.size == CHUNK_SIZE) {
+                chunk.progressEnd = base + cursor.progress();
+                if (!offer(chunk)) {
+                    return;
+                }
+                progressStart = chunk.progressEnd;
+                chunk = new Chunk(progressStart);
+            }
+        }
+        if (chunk.size > 0) {
+            chunk.progressEnd = base + cursor.progress();
+            offer(chunk);
+        }
+    }
+
+    void finish() {
+        producerDone = true;
+    }
+
+    void fail(Throwable t) {
+        failure = t;
+        producerDone = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private boolean offer(Chunk chunk) throws InterruptedException {
+        while (!cancelled) {
+            if (queue.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class Chunk {
+        final long[] positions = new long[CHUNK_SIZE];
+        final BlockState[] states = new BlockState[CHUNK_SIZE];
+        final boolean[] structural = new boolean[CHUNK_SIZE];
+        final long progressStart;
+        long progressEnd;
+        int size = 0;
+
+        Chunk(long progressStart) {
+            this.progressStart = progressStart;
+        }
+    }
+}
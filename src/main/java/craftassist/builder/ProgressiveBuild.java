@@ -0,0 +1,293 @@
+package craftassist.builder;
+
+import craftassist.CraftAssistMod;
+import craftassist.config.ModConfig;
+import com.google.gson.Gson;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * 邊生成邊放置：依規劃階段宣告的 {@link BuildFootprint} 事先決定旋轉與 origin，
+ * 串流送達的每個元素驗證通過後立即旋轉並排入 {@link PlacementStream}，玩家可以看著建築在生成途中長出來。
+ * <p>
+ * 元素在準備執行緒池中依到達順序分批轉成 {@link PlacementPlan}，同一批內仍依放置階段排序。
+ * 覆蓋規則與一次放置相同：後到的元素覆蓋先到的，但 blocks 永遠覆蓋 regions——
+ * 若 region 在 blocks 之後才送達，落在其範圍內且已放置的 blocks 會隨該 region 重新送出。
+ * <p>
+ * 無效元素直接略過（已放置的部分無法再交給修正階段），回應結束後由 {@link #getIssues()} 取得。
+ * <p>
+ * 請求重試時已放置的元素無法收回，重新送達的前段元素逐一與先前的輸出比對；
+ * 供應商不保證溫度 0 的輸出相同，一旦不同就停止放置，避免混合兩次生成的結果。
+ */
+public class ProgressiveBuild implements BuildElementListener {
+
+    private static final Gson GSON = new Gson();
+
+    private final BlockPos origin;
+    private final BuildFootprint footprint;
+    private final int rotations;
+    private final ModConfig config;
+    private final Predicate<String> blockValidator = blockId -> BlockValidator.validate(blockId) != null;
+    private final PlacementStream stream = new PlacementStream();
+    // 只由準備執行緒存取，各批次共用已解析的方塊狀態
+    private final BlockStatePalette palette = new BlockStatePalette();
+
+    private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final List<String> issues = Collections.synchronizedList(new ArrayList<>());
+    // 只由準備執行緒存取
+    private final List<BuildStructure.IndividualBlock> placedBlocks = new ArrayList<>();
+    private volatile boolean ended = false;
+    private volatile boolean finished = false;
+    private int regionsSeen = 0;
+    private int blocksSeen = 0;
+    // 已接受元素在旋轉前的 JSON，重試後用來比對重新送達的元素
+    private final List<String> regionKeys = new ArrayList<>();
+    private final List<String> blockKeys = new ArrayList<>();
+    private boolean restarted = false;
+    private volatile boolean diverged = false;
+
+    public ProgressiveBuild(BuildFootprint footprint, BlockPos playerPos, Direction playerFacing, ModConfig config) {
+        this.footprint = footprint;
+        this.rotations = footprint.rotationsFor(playerFacing);
+        this.origin = footprint.originFor(playerPos, playerFacing);
+        this.config = config;
+    }
+
+    /**
+     * 供 {@link BatchPlacementManager.BatchTask} 消耗的放置來源。
+     */
+    public PlacementStream getStream() {
+        return stream;
+    }
+
+    @Override
+    public synchronized void onRegion(int index, BuildStructure.BlockRegion region) {
+        if (diverged) {
+            return;
+        }
+        String key = GSON.toJson(region);
+        if (index < regionsSeen) {
+            // 重試後重新送達的元素已放置過，必須與先前的輸出相同
+            if (!key.equals(regionKeys.get(index))) {
+                diverge("Region[" + index + "]");
+            }
+            return;
+        }
+        regionsSeen = index + 1;
+        record(regionKeys, index, key);
+        acceptRegion(index, region);
+    }
+
+    @Override
+    public synchronized void onBlock(int index, BuildStructure.IndividualBlock block) {
+        if (diverged) {
+            return;
+        }
+        String key = GSON.toJson(block);
+        if (index < blocksSeen) {
+            if (!key.equals(blockKeys.get(index))) {
+                diverge("Block[" + index + "]");
+            }
+            return;
+        }
+        blocksSeen = index + 1;
+        record(blockKeys, index, key);
+        acceptBlock(index, block);
+    }
+
+    /**
+     * 請求重試：已放置的元素保留，重新送達的前段元素在 {@link #onRegion}/{@link #onBlock} 中比對。
+     */
+    @Override
+    public synchronized void onRestart() {
+        if (regionsSeen > 0 || blocksSeen > 0) {
+            restarted = true;
+            CraftAssistMod.LOGGER.debug("[CraftAssist] 邊生成邊放置重試，比對已放置的 {} 個區域與 {} 個方塊",
+                    regionsSeen, blocksSeen);
+        }
+    }
+
+    /**
+     * 生成完成。串流解析漏掉的元素（例如格式錯誤導致中斷）從完整結構補上，之後結束放置來源。
+     */
+    public synchronized void complete(BuildStructure structure) {
+        if (diverged) {
+            return;
+        }
+        if (structure != null && restarted && (size(structure.getRegions()) < regionsSeen
+                || size(structure.getBlocks()) < blocksSeen)) {
+            // 重試後的輸出比已放置的部分短，前段必定不同
+            diverge("建築");
+            return;
+        }
+        if (structure != null) {
+            Direction detected = BuildStructureRotator.detectEntranceWall(structure);
+            if (detected != null && detected != footprint.entrance()) {
+                CraftAssistMod.LOGGER.warn("[CraftAssist] 宣告的入口牆面 {} 與門的位置 {} 不符，仍依宣告旋轉",
+                        footprint.entrance(), detected);
+            }
+            List<BuildStructure.BlockRegion> regions = structure.getRegions();
+            if (regions != null) {
+                for (int i = regionsSeen; i < regions.size(); i++) {
+                    acceptRegion(i, regions.get(i));
+                }
+                regionsSeen = Math.max(regionsSeen, regions.size());
+            }
+            List<BuildStructure.IndividualBlock> blocks = structure.getBlocks();
+            if (blocks != null) {
+                for (int i = blocksSeen; i < blocks.size(); i++) {
+                    acceptBlock(i, blocks.get(i));
+                }
+                blocksSeen = Math.max(blocksSeen, blocks.size());
+            }
+        }
+        ended = true;
+        scheduleDrain();
+    }
+
+    /**
+     * 生成失敗，已放置的部分保留並可由 undo 復原。
+     */
+    public void fail(Throwable cause) {
+        stream.fail(cause);
+    }
+
+    /**
+     * 重試後的輸出與已放置的部分不同而中止；此時放置任務以失敗結束，已放置的部分可由 undo 復原。
+     */
+    public boolean isDiverged() {
+        return diverged;
+    }
+
+    public List<String> getIssues() {
+        synchronized (issues) {
+            return new ArrayList<>(issues);
+        }
+    }
+
+    private void diverge(String element) {
+        diverged = true;
+        pending.clear();
+        CraftAssistMod.LOGGER.warn("[CraftAssist] 重試後 {} 與先前的輸出不同，停止邊生成邊放置", element);
+        stream.fail(new IllegalStateException("重試後的生成結果與已放置的部分不同，已停止放置"));
+    }
+
+    private static void record(List<String> keys, int index, String key) {
+        while (keys.size() < index) {
+            keys.add(null);
+        }
+        keys.add(key);
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private void acceptRegion(int index, BuildStructure.BlockRegion region) {
+        int before = issues.size();
+        BuildStructureValidator.validateRegion(index, region, config, blockValidator, issues);
+        if (issues.size() != before) {
+            return;
+        }
+        BuildStructureRotator.rotateRegion(region, rotations, footprint.width(), footprint.depth());
+        pending.add(region);
+        scheduleDrain();
+    }
+
+    private void acceptBlock(int index, BuildStructure.IndividualBlock block) {
+        int before = issues.size();
+        BuildStructureValidator.validateBlock(index, block, config, blockValidator, issues);
+        if (issues.size() != before) {
+            return;
+        }
+        BuildStructureRotator.rotateBlock(block, rotations, footprint.width(), footprint.depth());
+        pending.add(block);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            PlacementPreparer.submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<BuildStructure.BlockRegion> regions = new ArrayList<>();
+            List<BuildStructure.IndividualBlock> blocks = new ArrayList<>();
+            Object element;
+            while ((element = pending.poll()) != null) {
+                if (element instanceof BuildStructure.BlockRegion region) {
+                    regions.add(region);
+                    // 晚到的 region 不可蓋掉已放置的 blocks
+                    for (BuildStructure.IndividualBlock placed : placedBlocks) {
+                        if (contains(region, placed.getPos())) {
+                            blocks.add(placed);
+                        }
+                    }
+                } else {
+                    BuildStructure.IndividualBlock block = (BuildStructure.IndividualBlock) element;
+                    blocks.add(block);
+                    placedBlocks.add(block);
+                }
+            }
+
+            if (!regions.isEmpty() || !blocks.isEmpty()) {
+                if (!produce(new BuildStructure(regions, blocks))) {
+                    pending.clear();
+                    return;
+                }
+                continue;
+            }
+
+            if (ended && !finished) {
+                finished = true;
+                stream.finish();
+            }
+            draining.set(false);
+            // 放開旗標後才送達的元素需要重新排程
+            if ((pending.isEmpty() && (!ended || finished)) || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean produce(BuildStructure batch) {
+        if (stream.isCancelled()) {
+            return false;
+        }
+        try {
+            PlacementPlan plan = BlockPlacementEngine.preparePlacements(origin, batch, palette);
+            stream.produce(plan);
+            return !stream.isCancelled();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stream.fail(e);
+            return false;
+        } catch (Exception e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 邊生成邊放置準備失敗", e);
+            stream.fail(e);
+            return false;
+        }
+    }
+
+    private static boolean contains(BuildStructure.BlockRegion region, int[] pos) {
+        int[] from = region.getFrom();
+        int[] to = region.getTo();
+        for (int axis = 0; axis < 3; axis++) {
+            if (pos[axis] < Math.min(from[axis], to[axis]) || pos[axis] > Math.max(from[axis], to[axis])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
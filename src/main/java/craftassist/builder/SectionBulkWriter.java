@@ -0,0 +1,189 @@
+package craftassist.builder;
+
+import craftassist.CraftAssistMod;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.ThreadedLevelLightEngine;
+import net.minecraft.world.entity.ai.village.poi.PoiTypes;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 結構方塊的快速寫入路徑：直接寫入 section palette，不觸發鄰居更新、形狀更新與逐格封包。
+ * <p>
+ * 寫入時只維護 heightmap 與 section 空/非空狀態，並記下每個被寫入的格子。
+ * 放置計畫依 section 排序，寫入離開一個 chunk 時該 chunk 即排入待處理佇列；
+ * {@link #flush} 每次最多對指定數量的格子送出光照檢查，一個 chunk 的格子全部檢查完後，
+ * 等光照完成再把整個 chunk 重送給追蹤中的玩家，因此大型建築在放置途中就會逐個 chunk 出現。
+ * 帶有方塊實體、流體或 POI 的方塊不適用，由呼叫端改走一般的 {@code setBlockAndUpdate}。
+ */
+public class SectionBulkWriter {
+
+    private static final Heightmap.Types[] HEIGHTMAP_TYPES = {
+            Heightmap.Types.MOTION_BLOCKING,
+            Heightmap.Types.MOTION_BLOCKING_NO_LEAVES,
+            Heightmap.Types.OCEAN_FLOOR,
+            Heightmap.Types.WORLD_SURFACE
+    };
+
+    private final ServerLevel world;
+    // 目前正在寫入的 chunk，離開後移到 ready
+    private PendingChunk current;
+    private final Deque<PendingChunk> ready = new ArrayDeque<>();
+    private int written = 0;
+    private int resent = 0;
+
+    /**
+     * 一個 chunk 內尚未送出光照檢查的格子。
+     */
+    private static final class PendingChunk {
+        final LevelChunk chunk;
+        // 每個受影響 section 內被寫入的格子（section 內 12-bit 索引）
+        final Map<Long, BitSet> cells = new HashMap<>();
+
+        PendingChunk(LevelChunk chunk) {
+            this.chunk = chunk;
+        }
+    }
+
+    public SectionBulkWriter(ServerLevel world) {
+        this.world = world;
+    }
+
+    /**
+     * 判斷一次替換是否可走快速路徑。
+     */
+    public static boolean canBulkWrite(BlockState original, BlockState state) {
+        return !state.hasBlockEntity() && !original.hasBlockEntity()
+                && state.getFluidState().isEmpty() && original.getFluidState().isEmpty()
+                && !PoiTypes.hasPoi(state) && !PoiTypes.hasPoi(original);
+    }
+
+    /**
+     * 直接寫入 section palette。
+     *
+     * @return false 表示不適用快速路徑，呼叫端需改走一般寫入
+     */
+    public boolean write(LevelChunk chunk, BlockPos pos, BlockState original, BlockState state) {
+        if (!canBulkWrite(original, state)) {
+            return false;
+        }
+        int sectionIndex = chunk.getSectionIndex(pos.getY());
+        LevelChunkSection[] sections = chunk.getSections();
+        if (sectionIndex < 0 || sectionIndex >= sections.length) {
+            return false;
+        }
+
+        LevelChunkSection section = sections[sectionIndex];
+        int localX = pos.getX() & 15;
+        int localY = pos.getY() & 15;
+        int localZ = pos.getZ() & 15;
+        boolean wasEmpty = section.hasOnlyAir();
+        section.setBlockState(localX, localY, localZ, state, false);
+        for (Heightmap.Types type : HEIGHTMAP_TYPES) {
+            chunk.getOrCreateHeightmapUnprimed(type).update(localX, pos.getY(), localZ, state);
+        }
+        if (wasEmpty != section.hasOnlyAir()) {
+            world.getChunkSource().getLightEngine().updateSectionStatus(SectionPos.of(pos), section.hasOnlyAir());
+        }
+        // 直接寫入 palette 不會標記 chunk；每次寫入都標記，避免在 flush 之前存檔或卸載時遺失。
+        // 只標記第一次不夠：chunk 在兩次寫入之間存檔會清除標記
+        chunk.markUnsaved();
+
+        if (current == null || current.chunk != chunk) {
+            // 離開的 chunk 不會再收到這一輪的寫入，可以開始照明與重送
+            finish();
+            current = new PendingChunk(chunk);
+        }
+        current.cells.computeIfAbsent(SectionPos.asLong(pos), k -> new BitSet(4096))
+                .set((localY << 8) | (localZ << 4) | localX);
+        written++;
+        return true;
+    }
+
+    /**
+     * 目前寫入中的 chunk 也排入待處理佇列，任務結束或取消時呼叫。
+     */
+    public void finish() {
+        if (current != null) {
+            ready.add(current);
+            current = null;
+        }
+    }
+
+    /**
+     * 對已離開的 chunk 送出最多 {@code maxChecks} 個格子的光照檢查；
+     * 一個 chunk 全部檢查完後，光照完成時重送該 chunk。
+     *
+     * @return true 表示沒有待處理的工作（不含仍在寫入中的 chunk）
+     */
+    public boolean flush(int maxChecks) {
+        ThreadedLevelLightEngine lightEngine = world.getChunkSource().getLightEngine();
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        int budget = maxChecks;
+        while (!ready.isEmpty() && budget > 0) {
+            PendingChunk pending = ready.peek();
+            var sections = pending.cells.entrySet().iterator();
+            while (sections.hasNext() && budget > 0) {
+                Map.Entry<Long, BitSet> entry = sections.next();
+                long section = entry.getKey();
+                int baseX = SectionPos.sectionToBlockCoord(SectionPos.x(section));
+                int baseY = SectionPos.sectionToBlockCoord(SectionPos.y(section));
+                int baseZ = SectionPos.sectionToBlockCoord(SectionPos.z(section));
+                BitSet cells = entry.getValue();
+                for (int cell = cells.nextSetBit(0); cell >= 0 && budget > 0; cell = cells.nextSetBit(cell + 1)) {
+                    cursor.set(baseX + (cell & 15), baseY + ((cell >> 8) & 15), baseZ + ((cell >> 4) & 15));
+                    lightEngine.checkBlock(cursor);
+                    cells.clear(cell);
+                    budget--;
+                }
+                if (cells.isEmpty()) {
+                    sections.remove();
+                }
+            }
+            if (!pending.cells.isEmpty()) {
+                break;
+            }
+
+            ready.poll();
+            LevelChunk chunk = pending.chunk;
+            long chunkKey = chunk.getPos().toLong();
+            lightEngine.waitForPendingTasks(ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey))
+                    .thenRunAsync(() -> resend(chunk), world.getServer());
+            resent++;
+        }
+
+        boolean done = ready.isEmpty();
+        if (done && current == null && written > 0) {
+            CraftAssistMod.LOGGER.debug("[CraftAssist] 快速寫入 {} 個方塊，重送 {} 次 chunk", written, resent);
+            written = 0;
+            resent = 0;
+        }
+        return done;
+    }
+
+    private void resend(LevelChunk chunk) {
+        List<ServerPlayer> players = world.getChunkSource().chunkMap.getPlayers(chunk.getPos(), false);
+        if (players.isEmpty()) {
+            return;
+        }
+        ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(
+                chunk, world.getLightEngine(), null, null);
+        for (ServerPlayer player : players) {
+            player.connection.send(packet);
+        }
+    }
+}
@@ -2,18 +2,27 @@ package craftassist.command;
 
 import craftassist.CraftAssistMod;
 import craftassist.api.ApiException;
+import craftassist.api.LatencyMetrics;
 import craftassist.api.OpenRouterClient;
 import craftassist.api.RateLimiter;
 import craftassist.builder.BatchPlacementManager;
 import craftassist.builder.BlockPlacementEngine;
+import craftassist.builder.BuildElementListener;
+import craftassist.builder.BuildFootprint;
 import craftassist.builder.BuildStructure;
+import craftassist.builder.BuildStructureRepairer;
 import craftassist.builder.BuildStructureRotator;
 import craftassist.builder.BuildStructureValidator;
 import craftassist.builder.BuildingOffsetCalculator;
+import craftassist.builder.PlacementPlan;
+import craftassist.builder.PlacementPreparer;
+import craftassist.builder.PlacementStream;
+import craftassist.builder.ProgressiveBuild;
 import craftassist.builder.WaitingAnimationManager;
 import com.google.gson.Gson;
 import craftassist.config.ConfigManager;
 import craftassist.config.ModConfig;
+import craftassist.library.StructureLibrary;
 import craftassist.util.MessageUtil;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.arguments.StringArgumentType;
@@ -29,6 +38,7 @@ import net.minecraft.server.level.ServerPlayer;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class BuildCommand {
 
@@ -65,10 +75,54 @@ public class BuildCommand {
 
         BlockPos playerPos = player.blockPosition();
         Direction facing = player.getDirection();
-        WaitingAnimationManager.startWaiting(playerUuid, "階段 1/2：設計規劃");
+        String totalMetric = config.getPipelineMode() + "/total";
+        long startTime = System.nanoTime();
+
+        CompletableFuture<Void> pipeline;
+        if (ModConfig.PIPELINE_COMBINED.equals(config.getPipelineMode())) {
+            // 單次請求：規劃與建築 JSON 一起生成，省下一次往返
+            WaitingAnimationManager.startWaiting(playerUuid, "階段 1/2：設計與生成");
+            pipeline = generateAndPlace(player, world, server,
+                    listener -> OpenRouterClient.generateCombined(description, facing, config, listener),
+                    "階段 2/2：驗證修正", playerPos, facing, config);
+        } else {
+            WaitingAnimationManager.startWaiting(playerUuid, "階段 1/2：設計規劃");
+            pipeline = planThenBuild(player, world, server, description, playerPos, facing, config);
+        }
+
+        pipeline.whenComplete((ignored, ex) -> {
+                    if (ex == null) {
+                        LatencyMetrics.record(totalMetric, System.nanoTime() - startTime);
+                    } else {
+                        LatencyMetrics.recordFailure(totalMetric);
+                    }
+                })
+                .exceptionally(ex -> {
+                    server.execute(() -> {
+                        WaitingAnimationManager.stopWaiting(playerUuid);
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        if (cause instanceof ApiException apiEx) {
+                            MessageUtil.sendError(player, apiEx.getMessage());
+                        } else {
+                            MessageUtil.sendError(player, "生成失敗：" + cause.getMessage());
+                        }
+                    });
+                    return null;
+                });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * 兩階段流程：先取得建築藍圖，再依藍圖生成建築 JSON。
+     */
+    private static CompletableFuture<Void> planThenBuild(ServerPlayer player, ServerLevel world,
+                                                         MinecraftServer server, String description,
+                                                         BlockPos playerPos, Direction facing, ModConfig config) {
+        UUID playerUuid = player.getUUID();
 
         // 第一階段：創意規劃
-        OpenRouterClient.generatePlan(description, facing, config)
+        return OpenRouterClient.generatePlan(description, facing, config)
                 .thenCompose(blueprint -> {
                     if (blueprint == null || blueprint.isBlank()) {
                         throw new RuntimeException("設計規劃失敗：無法取得建築藍圖");
@@ -78,28 +132,73 @@ public class BuildCommand {
                     server.execute(() ->
                             WaitingAnimationManager.updateStage(playerUuid, "階段 2/2：生成建築"));
 
-                    // 第二階段：完整建築生成
-                    return OpenRouterClient.generateBuilding(blueprint, config);
-                })
+                    // 藍圖宣告了佔地時可事先決定旋轉與位置，邊生成邊放置
+                    BuildFootprint footprint = config.isProgressiveBuild() && config.isStreamResponses()
+                            ? BuildFootprint.parse(blueprint) : null;
+                    if (footprint != null) {
+                        return buildProgressively(player, world, server, blueprint, footprint,
+                                playerPos, facing, config);
+                    }
+                    return generateAndPlace(player, world, server,
+                            listener -> OpenRouterClient.generateBuilding(blueprint, config, listener),
+                            "階段 3/3：驗證修正", playerPos, facing, config);
+                });
+    }
+
+    /**
+     * 生成完整建築，驗證（必要時修正）後旋轉、偏移並開始放置。
+     *
+     * @param generator 以串流驗證器為 listener 發出生成請求
+     * @param fixStage  進入修正階段時顯示的進度提示
+     */
+    private static CompletableFuture<Void> generateAndPlace(
+            ServerPlayer player, ServerLevel world, MinecraftServer server,
+            Function<BuildElementListener, CompletableFuture<BuildStructure>> generator, String fixStage,
+            BlockPos playerPos, Direction facing, ModConfig config) {
+        UUID playerUuid = player.getUUID();
+        BuildStructureValidator.Incremental streamingValidation = new BuildStructureValidator.Incremental(config);
+
+        // 完整建築生成，串流時每個元素一到就先驗證
+        return generator.apply(streamingValidation)
                 .thenCompose(structure -> {
                     if (structure == null) {
                         return CompletableFuture.completedFuture((BuildStructure) null);
                     }
-                    // 驗證建築結構
-                    BuildStructureValidator.ValidationResult result =
-                            BuildStructureValidator.validate(structure, config);
+                    // 驗證建築結構；串流解析漏掉元素時改為完整驗證
+                    BuildStructureValidator.ValidationResult result = streamingValidation.covers(structure)
+                            ? streamingValidation.getResult()
+                            : BuildStructureValidator.validate(structure, config);
                     if (!result.hasIssues()) {
                         return CompletableFuture.completedFuture(structure);
                     }
-                    // 有問題：更新進度並呼叫修正
-                    CraftAssistMod.LOGGER.warn("[CraftAssist] 建築驗證發現問題，嘗試修正：\n{}",
-                            result.getReport());
+                    CraftAssistMod.LOGGER.warn("[CraftAssist] 建築驗證發現問題：\n{}", result.getReport());
+
+                    // 先在本地修正座標、體積與方塊 ID，剩下的問題才呼叫修正階段
+                    BuildStructure candidate = structure;
+                    if (config.isLocalRepair()) {
+                        BuildStructureRepairer.RepairResult repaired = BuildStructureRepairer.repair(structure, config);
+                        if (!repaired.isEmpty()) {
+                            candidate = repaired.getStructure();
+                            result = BuildStructureValidator.validate(candidate, config);
+                            CraftAssistMod.LOGGER.info("[CraftAssist] 本地修正 {} 項，剩餘 {} 個問題",
+                                    repaired.getRepairs().size(), result.getIssues().size());
+                            if (!result.hasIssues()) {
+                                return CompletableFuture.completedFuture(candidate);
+                            }
+                        }
+                    }
+
+                    // 仍有問題：更新進度並呼叫修正
                     server.execute(() ->
-                            WaitingAnimationManager.updateStage(playerUuid, "階段 3/3：驗證修正"));
-                    String originalJson = new Gson().toJson(structure);
+                            WaitingAnimationManager.updateStage(playerUuid, fixStage));
+                    String originalJson = new Gson().toJson(candidate);
                     return OpenRouterClient.fixBuilding(originalJson, result.getReport(), config);
                 })
                 .thenAccept(structure -> {
+                    if (structure != null) {
+                        // 旋轉前暫存，供 /ca save 保存
+                        StructureLibrary.remember(playerUuid, structure);
+                    }
                     server.execute(() -> {
                         WaitingAnimationManager.stopWaiting(playerUuid);
 
@@ -108,57 +207,107 @@ public class BuildCommand {
                             return;
                         }
 
-                        // 偵測入口牆面，必要時旋轉建築使門面對玩家
-                        Direction entranceWall =
-                                BuildStructureRotator.detectEntranceWall(structure);
-                        if (entranceWall != null) {
-                            int rotations = BuildStructureRotator.computeRotationCount(
-                                    entranceWall, facing);
-                            if (rotations != 0) {
-                                BuildStructureRotator.rotateStructure(structure, rotations);
-                            }
+                        if (startPlacement(player, world, structure, playerPos, facing)) {
+                            MessageUtil.sendProgress(player, "開始放置建築...");
                         }
+                    });
+                });
+    }
 
-                        // 旋轉後重新計算 bbox 和 origin，使建築出現在玩家前方
-                        BuildingOffsetCalculator.BoundingBox bbox =
-                                BuildingOffsetCalculator.computeBoundingBox(structure);
-                        BlockPos origin = BuildingOffsetCalculator.computeOrigin(
-                                playerPos, facing, bbox);
+    /**
+     * 旋轉、偏移與放置計畫在背景執行緒準備，放置從下一個 tick 開始串流進行。必須在伺服器執行緒呼叫。
+     *
+     * @return false 表示玩家已有進行中的任務，已通知玩家
+     */
+    static boolean startPlacement(ServerPlayer player, ServerLevel world, BuildStructure structure,
+                                  BlockPos playerPos, Direction facing) {
+        PlacementStream stream = PlacementPreparer.prepareAsync(() ->
+                planPlacements(structure, playerPos, facing));
 
-                        // 預計算所有方塊放置清單
-                        List<BatchPlacementManager.BlockPlacement> placements =
-                                BlockPlacementEngine.preparePlacements(origin, structure);
+        // 啟動批次放置任務
+        BatchPlacementManager.BatchTask task =
+                new BatchPlacementManager.BatchTask(world, stream);
 
-                        if (placements.isEmpty()) {
-                            MessageUtil.sendError(player, "建築結構為空，沒有方塊可放置");
-                            return;
-                        }
+        if (!BatchPlacementManager.startTask(player.getUUID(), task)) {
+            stream.close();
+            MessageUtil.sendError(player, "您已有進行中的建築任務，請稍後再試");
+            return false;
+        }
+        return true;
+    }
 
-                        // 啟動批次放置任務
-                        BatchPlacementManager.BatchTask task =
-                                new BatchPlacementManager.BatchTask(world, placements);
+    /**
+     * 邊生成邊放置：放置任務立即啟動，串流送達的元素驗證後直接排入放置。
+     * 無效元素會被略過而不進入修正階段；生成失敗時已放置的部分保留，可用 undo 復原。
+     */
+    private static CompletableFuture<Void> buildProgressively(ServerPlayer player, ServerLevel world,
+                                                              MinecraftServer server, String blueprint,
+                                                              BuildFootprint footprint, BlockPos playerPos,
+                                                              Direction facing, ModConfig config) {
+        UUID playerUuid = player.getUUID();
+        ProgressiveBuild progressive = new ProgressiveBuild(footprint, playerPos, facing, config);
+        CraftAssistMod.LOGGER.debug("[CraftAssist] 邊生成邊放置 | 佔地: {}", footprint);
 
-                        if (!BatchPlacementManager.startTask(playerUuid, task)) {
-                            MessageUtil.sendError(player, "您已有進行中的建築任務，請稍後再試");
-                            return;
-                        }
+        server.execute(() -> {
+            WaitingAnimationManager.stopWaiting(playerUuid);
+            BatchPlacementManager.BatchTask task =
+                    new BatchPlacementManager.BatchTask(world, progressive.getStream());
+            if (!BatchPlacementManager.startTask(playerUuid, task)) {
+                // 串流關閉後尚未生成的元素會直接丟棄
+                progressive.getStream().close();
+                MessageUtil.sendError(player, "您已有進行中的建築任務，請稍後再試");
+                return;
+            }
+            MessageUtil.sendProgress(player, "開始放置建築（邊生成邊放置）...");
+        });
 
-                        MessageUtil.sendProgress(player, "開始放置 " + placements.size() + " 個方塊...");
-                    });
-                })
-                .exceptionally(ex -> {
-                    server.execute(() -> {
-                        WaitingAnimationManager.stopWaiting(playerUuid);
-                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
-                        if (cause instanceof ApiException apiEx) {
-                            MessageUtil.sendError(player, apiEx.getMessage());
-                        } else {
-                            MessageUtil.sendError(player, "生成失敗：" + cause.getMessage());
-                        }
-                    });
+        return OpenRouterClient.generateBuilding(blueprint, config, progressive)
+                .handle((structure, ex) -> {
+                    if (ex != null) {
+                        // 失敗訊息由放置任務結束時回報
+                        progressive.fail(ex.getCause() != null ? ex.getCause() : ex);
+                        return null;
+                    }
+                    if (structure != null) {
+                        // complete 會旋轉串流漏掉的元素，須先暫存
+                        StructureLibrary.remember(playerUuid, structure);
+                    }
+                    progressive.complete(structure);
+                    if (progressive.isDiverged()) {
+                        // 暫存的結構與已放置的部分不同，失敗訊息由放置任務結束時回報
+                        StructureLibrary.forget(playerUuid);
+                        return null;
+                    }
+                    List<String> issues = progressive.getIssues();
+                    if (!issues.isEmpty()) {
+                        // 含無效元素的建築無法原樣重新放置
+                        StructureLibrary.forget(playerUuid);
+                        CraftAssistMod.LOGGER.warn("[CraftAssist] 邊生成邊放置略過 {} 個無效元素：\n{}",
+                                issues.size(), String.join("\n", issues));
+                        server.execute(() -> MessageUtil.sendError(player,
+                                "略過 " + issues.size() + " 個無效的建築元素"));
+                    }
                     return null;
                 });
+    }
 
-        return Command.SINGLE_SUCCESS;
+    /**
+     * 偵測入口並旋轉建築，計算 origin 後建立放置計畫。只讀寫 structure，可在背景執行緒執行。
+     */
+    private static PlacementPlan planPlacements(BuildStructure structure, BlockPos playerPos, Direction facing) {
+        // 偵測入口牆面，必要時旋轉建築使門面對玩家
+        Direction entranceWall = BuildStructureRotator.detectEntranceWall(structure);
+        if (entranceWall != null) {
+            int rotations = BuildStructureRotator.computeRotationCount(entranceWall, facing);
+            if (rotations != 0) {
+                BuildStructureRotator.rotateStructure(structure, rotations);
+            }
+        }
+
+        // 旋轉後重新計算 bbox 和 origin，使建築出現在玩家前方
+        BuildingOffsetCalculator.BoundingBox bbox = BuildingOffsetCalculator.computeBoundingBox(structure);
+        BlockPos origin = BuildingOffsetCalculator.computeOrigin(playerPos, facing, bbox);
+
+        return BlockPlacementEngine.preparePlacements(origin, structure);
     }
 }
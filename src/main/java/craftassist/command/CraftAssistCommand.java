@@ -1,5 +1,6 @@
 package craftassist.command;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.minecraft.commands.Commands;
@@ -14,10 +15,24 @@ public class CraftAssistCommand {
                     .then(Commands.literal("build")
                             .then(Commands.argument("description", StringArgumentType.greedyString())
                                     .executes(BuildCommand::execute)))
+                    .then(Commands.literal("save")
+                            .then(Commands.argument("name", StringArgumentType.word())
+                                    .executes(LibraryCommand::save)))
+                    .then(Commands.literal("place")
+                            .then(Commands.argument("name", StringArgumentType.word())
+                                    .executes(LibraryCommand::place)))
+                    .then(Commands.literal("list")
+                            .executes(LibraryCommand::list)
+                            .then(Commands.argument("page", IntegerArgumentType.integer(1))
+                                    .executes(LibraryCommand::listPage)))
                     .then(Commands.literal("undo")
                             .executes(UndoCommand::execute))
+                    .then(Commands.literal("redo")
+                            .executes(RedoCommand::execute))
                     .then(Commands.literal("reload")
-                            .executes(ReloadCommand::execute)));
+                            .executes(ReloadCommand::execute))
+                    .then(Commands.literal("status")
+                            .executes(StatusCommand::execute)));
         });
     }
 }
@@ -0,0 +1,159 @@
+package craftassist.command;
+
+import craftassist.CraftAssistMod;
+import craftassist.builder.BatchPlacementManager;
+import craftassist.builder.BuildStructure;
+import craftassist.builder.BuildStructureValidator;
+import craftassist.builder.WaitingAnimationManager;
+import craftassist.config.ConfigManager;
+import craftassist.library.StructureIndex;
+import craftassist.library.StructureLibrary;
+import craftassist.util.MessageUtil;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 建築庫指令：{@code /ca save <名稱>}、{@code /ca place <名稱>} 與 {@code /ca list [頁數]}。
+ */
+public class LibraryCommand {
+
+    private static final int PAGE_SIZE = 10;
+
+    public static int save(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+        String name = StructureLibrary.normalizeName(StringArgumentType.getString(context, "name"));
+        if (name == null) {
+            MessageUtil.sendError(player, "名稱只能包含英數字、底線與連字號，長度 1 到 "
+                    + StructureIndex.MAX_NAME_LENGTH);
+            return 0;
+        }
+
+        if (!StructureLibrary.hasLastBuild(player.getUUID())) {
+            MessageUtil.sendError(player, "沒有可保存的建築，請先使用 /ca build 生成");
+            return 0;
+        }
+
+        StructureIndex.Entry entry;
+        try {
+            entry = StructureLibrary.save(player.getUUID(), name);
+        } catch (StructureLibrary.NameTakenException e) {
+            MessageUtil.sendError(player, e.getMessage() + "，請換一個名稱");
+            return 0;
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法保存建築 {}", name, e);
+            MessageUtil.sendError(player, "保存失敗：" + e.getMessage());
+            return 0;
+        }
+        if (entry == null) {
+            MessageUtil.sendError(player, "沒有可保存的建築，請先使用 /ca build 生成");
+            return 0;
+        }
+
+        MessageUtil.sendSuccess(player, "已保存建築「" + name + "」（" + describe(entry) + "）");
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int place(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+        UUID playerUuid = player.getUUID();
+        String name = StructureLibrary.normalizeName(StringArgumentType.getString(context, "name"));
+        if (name == null) {
+            MessageUtil.sendError(player, "找不到建築：" + StringArgumentType.getString(context, "name"));
+            return 0;
+        }
+
+        if (BatchPlacementManager.hasActiveTask(playerUuid) || WaitingAnimationManager.isWaiting(playerUuid)) {
+            MessageUtil.sendError(player, "您已有進行中的建築任務，請稍後再試");
+            return 0;
+        }
+
+        BuildStructure structure;
+        try {
+            structure = StructureLibrary.load(name);
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法讀取建築 {}", name, e);
+            MessageUtil.sendError(player, "無法讀取建築：" + e.getMessage());
+            return 0;
+        }
+        if (structure == null) {
+            MessageUtil.sendError(player, "找不到建築：" + name);
+            return 0;
+        }
+
+        // 設定或方塊登錄表可能已改變，放置前重新驗證
+        BuildStructureValidator.ValidationResult result =
+                BuildStructureValidator.validate(structure, ConfigManager.getConfig());
+        if (result.hasIssues()) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 建築庫中的 {} 驗證失敗：\n{}", name, result.getReport());
+            MessageUtil.sendError(player, "建築「" + name + "」含有目前無法放置的元素");
+            return 0;
+        }
+
+        if (!BuildCommand.startPlacement(player, context.getSource().getLevel(), structure,
+                player.blockPosition(), player.getDirection())) {
+            return 0;
+        }
+
+        MessageUtil.sendProgress(player, "開始放置建築「" + name + "」...");
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public static int list(CommandContext<CommandSourceStack> context) {
+        return list(context, 1);
+    }
+
+    public static int listPage(CommandContext<CommandSourceStack> context) {
+        return list(context, IntegerArgumentType.getInteger(context, "page"));
+    }
+
+    private static int list(CommandContext<CommandSourceStack> context, int page) {
+        List<StructureIndex.Entry> entries;
+        try {
+            entries = StructureLibrary.list();
+        } catch (IOException e) {
+            context.getSource().sendFailure(Component.literal("[CraftAssist] 無法讀取建築庫：" + e.getMessage()));
+            return 0;
+        }
+        if (entries.isEmpty()) {
+            context.getSource().sendSuccess(() -> Component.literal("[CraftAssist] 建築庫是空的"), false);
+            return Command.SINGLE_SUCCESS;
+        }
+
+        int pages = (entries.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        int current = Math.min(page, pages);
+        StringBuilder sb = new StringBuilder("[CraftAssist] 建築庫（共 ")
+                .append(entries.size()).append(" 棟，第 ").append(current).append("/").append(pages).append(" 頁）");
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        // 最新保存的在前
+        List<StructureIndex.Entry> sorted = entries.stream()
+                .sorted(Comparator.comparingLong(StructureIndex.Entry::savedAt).reversed())
+                .toList();
+        int start = (current - 1) * PAGE_SIZE;
+        for (StructureIndex.Entry entry : sorted.subList(start, Math.min(start + PAGE_SIZE, sorted.size()))) {
+            sb.append("\n").append(entry.name()).append(" - ").append(describe(entry))
+                    .append("，").append(format.format(new Date(entry.savedAt())));
+        }
+
+        String text = sb.toString();
+        context.getSource().sendSuccess(() -> Component.literal(text), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static String describe(StructureIndex.Entry entry) {
+        return entry.width() + "x" + entry.height() + "x" + entry.depth()
+                + "，" + entry.regions() + " 個區域、" + entry.blocks() + " 個方塊";
+    }
+}
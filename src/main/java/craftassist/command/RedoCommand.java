@@ -0,0 +1,40 @@
+package craftassist.command;
+
+import craftassist.builder.BatchPlacementManager;
+import craftassist.undo.UndoManager;
+import craftassist.util.MessageUtil;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.UUID;
+
+public class RedoCommand {
+
+    public static int execute(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+        UUID playerUuid = player.getUUID();
+
+        // 有進行中的批次任務時拒絕
+        if (BatchPlacementManager.hasActiveTask(playerUuid)) {
+            MessageUtil.sendError(player, "請等待當前建築任務完成後再執行重做");
+            return 0;
+        }
+
+        UndoManager.Entry entry = UndoManager.peekRedo(playerUuid);
+        if (entry == null) {
+            MessageUtil.sendError(player, "沒有可重做的復原操作");
+            return 0;
+        }
+
+        // redo 紀錄是復原時被覆蓋的建築方塊，同樣以批次任務放回
+        if (!UndoCommand.startReplay(context.getSource().getServer(), player, entry, BatchPlacementManager.TaskType.REDO)) {
+            return 0;
+        }
+
+        MessageUtil.sendProgress(player, "開始重做 " + entry.count() + " 個方塊...");
+        return Command.SINGLE_SUCCESS;
+    }
+}
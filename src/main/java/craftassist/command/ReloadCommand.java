@@ -1,5 +1,6 @@
 package craftassist.command;
 
+import craftassist.builder.BatchPlacementManager;
 import craftassist.config.ConfigManager;
 import craftassist.util.MessageUtil;
 import com.mojang.brigadier.Command;
@@ -12,6 +13,7 @@ public class ReloadCommand {
 
     public static int execute(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ConfigManager.load();
+        BatchPlacementManager.resetBudget();
 
         if (context.getSource().getEntity() instanceof ServerPlayer player) {
             MessageUtil.sendSuccess(player, "配置已重新載入");
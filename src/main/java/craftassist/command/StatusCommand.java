@@ -0,0 +1,53 @@
+package craftassist.command;
+
+import craftassist.api.LatencyMetrics;
+import craftassist.builder.BatchPlacementManager;
+import craftassist.builder.PlacementBudget;
+import craftassist.config.ConfigManager;
+import craftassist.config.ModConfig;
+import craftassist.undo.UndoManager;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+
+public class StatusCommand {
+
+    public static int execute(CommandContext<CommandSourceStack> context) {
+        ModConfig config = ConfigManager.getConfig();
+        PlacementBudget budget = BatchPlacementManager.getBudget();
+
+        StringBuilder sb = new StringBuilder("[CraftAssist] 放置狀態\n");
+        sb.append("進行中任務: ").append(BatchPlacementManager.getActiveTaskCount()).append("\n");
+        if (config.isAdaptivePlacement()) {
+            double nanosPerBlock = budget.getNanosPerBlock();
+            sb.append("自適應速率: ").append(budget.getBlocksPerTick()).append(" 方塊/tick\n");
+            sb.append("平均耗時: ")
+                    .append(nanosPerBlock < 0 ? "尚無資料" : String.format("%.1f µs/方塊", nanosPerBlock / 1000))
+                    .append("\n");
+            sb.append("時間片: ").append(String.format("%.1f", budget.getEffectiveSliceNanos() / 1_000_000.0))
+                    .append(" / ").append(config.getPlacementBudgetMs()).append(" ms");
+        } else {
+            sb.append("固定速率: ").append(config.getBlocksPerTick()).append(" 方塊/tick");
+        }
+
+        sb.append("\nundo 歷史: ").append(UndoManager.getTotalBytes() / 1024).append(" KB / ")
+                .append(config.getUndoHistoryBudgetMb()).append(" MB");
+
+        sb.append("\n流程模式: ").append(config.getPipelineMode());
+        for (LatencyMetrics.Snapshot snapshot : LatencyMetrics.snapshots()) {
+            sb.append("\n  ").append(snapshot.name()).append(": ").append(snapshot.count()).append(" 次");
+            if (snapshot.count() > 0) {
+                sb.append("，中位數 ").append(snapshot.medianMs()).append(" ms，p95 ")
+                        .append(snapshot.p95Ms()).append(" ms");
+            }
+            if (snapshot.failures() > 0) {
+                sb.append("，失敗 ").append(snapshot.failures()).append(" 次");
+            }
+        }
+
+        String text = sb.toString();
+        context.getSource().sendSuccess(() -> Component.literal(text), false);
+        return Command.SINGLE_SUCCESS;
+    }
+}
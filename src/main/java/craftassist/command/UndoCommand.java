@@ -1,18 +1,23 @@
 package craftassist.command;
 
+import craftassist.CraftAssistMod;
 import craftassist.builder.BatchPlacementManager;
-import craftassist.undo.UndoData;
+import craftassist.builder.PlacementSource;
+import craftassist.undo.SnapshotCursor;
 import craftassist.undo.UndoManager;
 import craftassist.util.MessageUtil;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.Identifier;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.UUID;
 
 public class UndoCommand {
@@ -27,30 +32,50 @@ public class UndoCommand {
             return 0;
         }
 
-        UndoData undoData = UndoManager.popUndo(playerUuid);
-        if (undoData == null) {
+        UndoManager.Entry entry = UndoManager.peekUndo(playerUuid);
+        if (entry == null) {
             MessageUtil.sendError(player, "沒有可復原的建築操作");
             return 0;
         }
 
-        ServerLevel world = context.getSource().getLevel();
+        if (!startReplay(context.getSource().getServer(), player, entry, BatchPlacementManager.TaskType.UNDO)) {
+            return 0;
+        }
 
-        // 大量方塊也走批次還原
-        List<UndoData.BlockSnapshot> snapshots = undoData.getSnapshots();
-        List<BatchPlacementManager.BlockPlacement> restorations = new ArrayList<>(snapshots.size());
+        MessageUtil.sendProgress(player, "開始復原 " + entry.count() + " 個方塊...");
+        return Command.SINGLE_SUCCESS;
+    }
 
-        for (UndoData.BlockSnapshot snapshot : snapshots) {
-            restorations.add(new BatchPlacementManager.BlockPlacement(snapshot.pos(), snapshot.originalState()));
+    /**
+     * 從磁碟串流讀取紀錄，在紀錄所屬的維度開始還原任務。
+     * 任務開始後才把紀錄移出堆疊，任何一步失敗時紀錄保留，可再次執行。
+     */
+    static boolean startReplay(MinecraftServer server, ServerPlayer player, UndoManager.Entry entry,
+                               BatchPlacementManager.TaskType type) {
+        ServerLevel world = server.getLevel(ResourceKey.create(Registries.DIMENSION, Identifier.parse(entry.dimension())));
+        if (world == null) {
+            MessageUtil.sendError(player, "紀錄所在的維度已不存在：" + entry.dimension());
+            return false;
         }
 
-        BatchPlacementManager.BatchTask undoTask = new BatchPlacementManager.BatchTask(world, restorations, true);
-
-        if (!BatchPlacementManager.startTask(playerUuid, undoTask)) {
-            MessageUtil.sendError(player, "無法開始復原任務");
-            return 0;
+        SnapshotCursor cursor;
+        try {
+            cursor = UndoManager.open(entry);
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法讀取紀錄 {}", entry.file(), e);
+            MessageUtil.sendError(player, "無法讀取紀錄：" + e.getMessage());
+            return false;
         }
 
-        MessageUtil.sendProgress(player, "開始復原 " + snapshots.size() + " 個方塊...");
-        return Command.SINGLE_SUCCESS;
+        // 大量方塊也走批次還原，逐筆從檔案讀取快照
+        BatchPlacementManager.BatchTask task = new BatchPlacementManager.BatchTask(
+                world, PlacementSource.of(cursor), type);
+        if (!BatchPlacementManager.startTask(player.getUUID(), task)) {
+            task.cancel();
+            MessageUtil.sendError(player, "無法開始還原任務");
+            return false;
+        }
+        UndoManager.remove(player.getUUID(), entry);
+        return true;
     }
 }
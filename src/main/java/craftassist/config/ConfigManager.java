@@ -37,6 +37,43 @@ public class ConfigManager {
     static boolean validateAndFix(ModConfig cfg) {
         boolean fixed = false;
 
+        String apiUrl = cfg.getApiUrl();
+        if (apiUrl == null || !(apiUrl.startsWith("http://") || apiUrl.startsWith("https://"))) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] apiUrl 無效 ({})，已重設為 OpenRouter", apiUrl);
+            cfg.setApiUrl(ModConfig.DEFAULT_API_URL);
+            fixed = true;
+        }
+
+        String pipelineMode = cfg.getPipelineMode();
+        if (!ModConfig.PIPELINE_STAGED.equals(pipelineMode) && !ModConfig.PIPELINE_COMBINED.equals(pipelineMode)) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] pipelineMode 無效 ({})，已重設為 staged", pipelineMode);
+            cfg.setPipelineMode(ModConfig.PIPELINE_STAGED);
+            fixed = true;
+        }
+
+        if (cfg.getLlmRecordDir() == null) {
+            cfg.setLlmRecordDir("");
+            fixed = true;
+        }
+
+        if (cfg.getResponseCacheTtlHours() <= 0 || cfg.getResponseCacheTtlHours() > 8_760) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] responseCacheTtlHours 無效 ({})，已重設為 168", cfg.getResponseCacheTtlHours());
+            cfg.setResponseCacheTtlHours(168);
+            fixed = true;
+        }
+
+        if (cfg.getResponseCacheMemoryEntries() < 0 || cfg.getResponseCacheMemoryEntries() > 10_000) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] responseCacheMemoryEntries 無效 ({})，已重設為 64", cfg.getResponseCacheMemoryEntries());
+            cfg.setResponseCacheMemoryEntries(64);
+            fixed = true;
+        }
+
+        if (cfg.getResponseCacheMaxDiskMb() < 0 || cfg.getResponseCacheMaxDiskMb() > 65_536) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] responseCacheMaxDiskMb 無效 ({})，已重設為 64", cfg.getResponseCacheMaxDiskMb());
+            cfg.setResponseCacheMaxDiskMb(64);
+            fixed = true;
+        }
+
         if (cfg.getBlocksPerTick() <= 0) {
             CraftAssistMod.LOGGER.warn("[CraftAssist] blocksPerTick 無效 ({})，已重設為 500", cfg.getBlocksPerTick());
             cfg.setBlocksPerTick(500);
@@ -55,6 +92,12 @@ public class ConfigManager {
             fixed = true;
         }
 
+        if (cfg.getStreamMaxSeconds() < 60 || cfg.getStreamMaxSeconds() > 3600) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] streamMaxSeconds 無效 ({})，已重設為 900", cfg.getStreamMaxSeconds());
+            cfg.setStreamMaxSeconds(900);
+            fixed = true;
+        }
+
         if (cfg.getMaxRegionVolume() <= 0 || cfg.getMaxRegionVolume() > 1_000_000) {
             CraftAssistMod.LOGGER.warn("[CraftAssist] maxRegionVolume 無效 ({})，已重設為 100,000", cfg.getMaxRegionVolume());
             cfg.setMaxRegionVolume(100_000);
@@ -85,6 +128,36 @@ public class ConfigManager {
             fixed = true;
         }
 
+        if (cfg.getPlacementBudgetMs() <= 0 || cfg.getPlacementBudgetMs() > 40) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] placementBudgetMs 無效 ({})，已重設為 10", cfg.getPlacementBudgetMs());
+            cfg.setPlacementBudgetMs(10);
+            fixed = true;
+        }
+
+        if (cfg.getMaxBlocksPerTick() <= 0 || cfg.getMaxBlocksPerTick() > 1_000_000) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] maxBlocksPerTick 無效 ({})，已重設為 20,000", cfg.getMaxBlocksPerTick());
+            cfg.setMaxBlocksPerTick(20_000);
+            fixed = true;
+        }
+
+        if (cfg.getBuildTaskWeight() <= 0 || cfg.getBuildTaskWeight() > 100) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] buildTaskWeight 無效 ({})，已重設為 1", cfg.getBuildTaskWeight());
+            cfg.setBuildTaskWeight(1);
+            fixed = true;
+        }
+
+        if (cfg.getUndoTaskWeight() <= 0 || cfg.getUndoTaskWeight() > 100) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] undoTaskWeight 無效 ({})，已重設為 2", cfg.getUndoTaskWeight());
+            cfg.setUndoTaskWeight(2);
+            fixed = true;
+        }
+
+        if (cfg.getUndoHistoryBudgetMb() <= 0 || cfg.getUndoHistoryBudgetMb() > 65_536) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] undoHistoryBudgetMb 無效 ({})，已重設為 256", cfg.getUndoHistoryBudgetMb());
+            cfg.setUndoHistoryBudgetMb(256);
+            fixed = true;
+        }
+
         return fixed;
     }
 
@@ -1,16 +1,38 @@
 package craftassist.config;
 
 public class ModConfig {
+    public static final String DEFAULT_API_URL = "https://openrouter.ai/api/v1/chat/completions";
+    public static final String PIPELINE_STAGED = "staged";
+    public static final String PIPELINE_COMBINED = "combined";
+
     private String apiKey = "";
     private String model = "anthropic/claude-sonnet-4-5";
+    private String apiUrl = DEFAULT_API_URL;
+    private String llmRecordDir = "";
+    private String pipelineMode = PIPELINE_STAGED;
+    private boolean streamResponses = true;
+    private boolean progressiveBuild = false;
+    private boolean localRepair = true;
+    private boolean responseCacheEnabled = true;
+    private int responseCacheTtlHours = 168;
+    private int responseCacheMemoryEntries = 64;
+    private int responseCacheMaxDiskMb = 64;
     private int maxBlocks = 1000000;
     private int blocksPerTick = 500;
     private int timeoutSeconds = 60;
+    private int streamMaxSeconds = 900;
     private int maxRegionVolume = 100000;
     private int maxCoordinate = 200;
     private int rateLimitTokens = 3;
     private int rateLimitRefillSeconds = 60;
     private int maxRetries = 2;
+    private boolean adaptivePlacement = true;
+    private int placementBudgetMs = 10;
+    private int maxBlocksPerTick = 20000;
+    private int buildTaskWeight = 1;
+    private int undoTaskWeight = 2;
+    private boolean bulkWriteStructural = false;
+    private int undoHistoryBudgetMb = 256;
 
     public String getApiKey() {
         return apiKey;
@@ -28,6 +50,86 @@ public class ModConfig {
         this.model = model;
     }
 
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public String getLlmRecordDir() {
+        return llmRecordDir;
+    }
+
+    public void setLlmRecordDir(String llmRecordDir) {
+        this.llmRecordDir = llmRecordDir;
+    }
+
+    public String getPipelineMode() {
+        return pipelineMode;
+    }
+
+    public void setPipelineMode(String pipelineMode) {
+        this.pipelineMode = pipelineMode;
+    }
+
+    public boolean isStreamResponses() {
+        return streamResponses;
+    }
+
+    public void setStreamResponses(boolean streamResponses) {
+        this.streamResponses = streamResponses;
+    }
+
+    public boolean isLocalRepair() {
+        return localRepair;
+    }
+
+    public void setLocalRepair(boolean localRepair) {
+        this.localRepair = localRepair;
+    }
+
+    public boolean isProgressiveBuild() {
+        return progressiveBuild;
+    }
+
+    public void setProgressiveBuild(boolean progressiveBuild) {
+        this.progressiveBuild = progressiveBuild;
+    }
+
+    public boolean isResponseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    public void setResponseCacheEnabled(boolean responseCacheEnabled) {
+        this.responseCacheEnabled = responseCacheEnabled;
+    }
+
+    public int getResponseCacheTtlHours() {
+        return responseCacheTtlHours;
+    }
+
+    public void setResponseCacheTtlHours(int responseCacheTtlHours) {
+        this.responseCacheTtlHours = responseCacheTtlHours;
+    }
+
+    public int getResponseCacheMemoryEntries() {
+        return responseCacheMemoryEntries;
+    }
+
+    public void setResponseCacheMemoryEntries(int responseCacheMemoryEntries) {
+        this.responseCacheMemoryEntries = responseCacheMemoryEntries;
+    }
+
+    public int getResponseCacheMaxDiskMb() {
+        return responseCacheMaxDiskMb;
+    }
+
+    public void setResponseCacheMaxDiskMb(int responseCacheMaxDiskMb) {
+        this.responseCacheMaxDiskMb = responseCacheMaxDiskMb;
+    }
+
     public int getMaxBlocks() {
         return maxBlocks;
     }
@@ -52,6 +154,14 @@ public class ModConfig {
         this.timeoutSeconds = timeoutSeconds;
     }
 
+    public int getStreamMaxSeconds() {
+        return streamMaxSeconds;
+    }
+
+    public void setStreamMaxSeconds(int streamMaxSeconds) {
+        this.streamMaxSeconds = streamMaxSeconds;
+    }
+
     public int getMaxRegionVolume() {
         return maxRegionVolume;
     }
@@ -91,4 +201,60 @@ public class ModConfig {
     public void setMaxRetries(int maxRetries) {
         this.maxRetries = maxRetries;
     }
+
+    public boolean isAdaptivePlacement() {
+        return adaptivePlacement;
+    }
+
+    public void setAdaptivePlacement(boolean adaptivePlacement) {
+        this.adaptivePlacement = adaptivePlacement;
+    }
+
+    public int getPlacementBudgetMs() {
+        return placementBudgetMs;
+    }
+
+    public void setPlacementBudgetMs(int placementBudgetMs) {
+        this.placementBudgetMs = placementBudgetMs;
+    }
+
+    public int getMaxBlocksPerTick() {
+        return maxBlocksPerTick;
+    }
+
+    public void setMaxBlocksPerTick(int maxBlocksPerTick) {
+        this.maxBlocksPerTick = maxBlocksPerTick;
+    }
+
+    public int getBuildTaskWeight() {
+        return buildTaskWeight;
+    }
+
+    public void setBuildTaskWeight(int buildTaskWeight) {
+        this.buildTaskWeight = buildTaskWeight;
+    }
+
+    public int getUndoTaskWeight() {
+        return undoTaskWeight;
+    }
+
+    public void setUndoTaskWeight(int undoTaskWeight) {
+        this.undoTaskWeight = undoTaskWeight;
+    }
+
+    public boolean isBulkWriteStructural() {
+        return bulkWriteStructural;
+    }
+
+    public void setBulkWriteStructural(boolean bulkWriteStructural) {
+        this.bulkWriteStructural = bulkWriteStructural;
+    }
+
+    public int getUndoHistoryBudgetMb() {
+        return undoHistoryBudgetMb;
+    }
+
+    public void setUndoHistoryBudgetMb(int undoHistoryBudgetMb) {
+        this.undoHistoryBudgetMb = undoHistoryBudgetMb;
+    }
 }
@@ -0,0 +1,245 @@
+package craftassist.library;
+
+import craftassist.builder.BuildStructure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 建築結構的二進位編碼，用於建築庫的資料檔。
+ * <p>
+ * 格式（big-endian，{@code varint} 為 7-bit 變長整數，座標以 zigzag 編碼後寫成 varint）：
+ * <pre>
+ * int    magic ("CASD")
+ * byte   版本
+ * varint palette 大小，後接每個 (UTF 方塊 ID, byte 旗標, [UTF facing], [varint 屬性數, (UTF 鍵, UTF 值)...])
+ * varint region 數，後接每個 (palette 索引, from xyz, to xyz, byte hollow, varint 排除數, 每組排除的 from xyz, to xyz)
+ * varint block 數，後接每個 (palette 索引, pos xyz)
+ * </pre>
+ * 方塊 ID、facing 與屬性組合在 palette 中只出現一次，一般建築的檔案約為 JSON 的十分之一。
+ */
+public final class StructureCodec {
+
+    static final int MAGIC = 0x43415344;
+    static final int VERSION = 1;
+
+    private static final int FLAG_FACING = 1;
+    private static final int FLAG_PROPERTIES = 2;
+
+    private StructureCodec() {
+    }
+
+    private record PaletteEntry(String block, String facing, Map<String, String> properties) {
+    }
+
+    public static byte[] encode(BuildStructure structure) {
+        Map<PaletteEntry, Integer> palette = new LinkedHashMap<>();
+        List<BuildStructure.BlockRegion> regions = nonNull(structure.getRegions());
+        List<BuildStructure.IndividualBlock> blocks = nonNull(structure.getBlocks());
+        int[] regionStates = new int[regions.size()];
+        int[] blockStates = new int[blocks.size()];
+        for (int i = 0; i < regions.size(); i++) {
+            BuildStructure.BlockRegion region = regions.get(i);
+            regionStates[i] = paletteIndex(palette, region.getBlock(), region.getFacing(), region.getProperties());
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            BuildStructure.IndividualBlock block = blocks.get(i);
+            blockStates[i] = paletteIndex(palette, block.getBlock(), null, block.getProperties());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            writeVarInt(out, palette.size());
+            for (PaletteEntry entry : palette.keySet()) {
+                out.writeUTF(entry.block());
+                int flags = (entry.facing() != null ? FLAG_FACING : 0)
+                        | (entry.properties() != null ? FLAG_PROPERTIES : 0);
+                out.writeByte(flags);
+                if (entry.facing() != null) {
+                    out.writeUTF(entry.facing());
+                }
+                if (entry.properties() != null) {
+                    writeVarInt(out, entry.properties().size());
+                    for (Map.Entry<String, String> property : entry.properties().entrySet()) {
+                        out.writeUTF(property.getKey());
+                        out.writeUTF(property.getValue());
+                    }
+                }
+            }
+
+            writeVarInt(out, regions.size());
+            for (int i = 0; i < regions.size(); i++) {
+                BuildStructure.BlockRegion region = regions.get(i);
+                writeVarInt(out, regionStates[i]);
+                writePos(out, region.getFrom());
+                writePos(out, region.getTo());
+                out.writeByte(region.isHollow() ? 1 : 0);
+                List<int[][]> exclude = region.getExclude();
+                writeVarInt(out, exclude == null ? 0 : exclude.size());
+                if (exclude != null) {
+                    for (int[][] pair : exclude) {
+                        writePos(out, pair[0]);
+                        writePos(out, pair[1]);
+                    }
+                }
+            }
+
+            writeVarInt(out, blocks.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                writeVarInt(out, blockStates[i]);
+                writePos(out, blocks.get(i).getPos());
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream 不會拋出 IOException
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static BuildStructure decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是建築資料檔");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("不支援的建築資料版本: " + version);
+            }
+
+            int paletteSize = readCount(in, data.length);
+            List<PaletteEntry> palette = new ArrayList<>(paletteSize);
+            for (int i = 0; i < paletteSize; i++) {
+                String block = in.readUTF();
+                int flags = in.readUnsignedByte();
+                String facing = (flags & FLAG_FACING) != 0 ? in.readUTF() : null;
+                Map<String, String> properties = null;
+                if ((flags & FLAG_PROPERTIES) != 0) {
+                    int count = readCount(in, data.length);
+                    properties = new HashMap<>();
+                    for (int j = 0; j < count; j++) {
+                        properties.put(in.readUTF(), in.readUTF());
+                    }
+                }
+                palette.add(new PaletteEntry(block, facing, properties));
+            }
+
+            int regionCount = readCount(in, data.length);
+            List<BuildStructure.BlockRegion> regions = new ArrayList<>(regionCount);
+            for (int i = 0; i < regionCount; i++) {
+                PaletteEntry state = paletteAt(palette, readVarInt(in));
+                int[] from = readPos(in);
+                int[] to = readPos(in);
+                boolean hollow = in.readUnsignedByte() != 0;
+                int excludeCount = readCount(in, data.length);
+                List<int[][]> exclude = null;
+                if (excludeCount > 0) {
+                    exclude = new ArrayList<>(excludeCount);
+                    for (int j = 0; j < excludeCount; j++) {
+                        exclude.add(new int[][]{readPos(in), readPos(in)});
+                    }
+                }
+                regions.add(new BuildStructure.BlockRegion(state.block(), from, to, hollow, state.facing(),
+                        copy(state.properties()), exclude));
+            }
+
+            int blockCount = readCount(in, data.length);
+            List<BuildStructure.IndividualBlock> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                PaletteEntry state = paletteAt(palette, readVarInt(in));
+                blocks.add(new BuildStructure.IndividualBlock(state.block(), readPos(in), copy(state.properties())));
+            }
+            return new BuildStructure(regions, blocks);
+        } catch (EOFException e) {
+            throw new IOException("建築資料檔不完整", e);
+        }
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    private static int paletteIndex(Map<PaletteEntry, Integer> palette, String block, String facing,
+                                    Map<String, String> properties) {
+        // 以排序後的副本作為 key，屬性順序不同的相同狀態共用一筆
+        Map<String, String> sorted = properties == null ? null : new TreeMap<>(properties);
+        PaletteEntry entry = new PaletteEntry(block == null ? "" : block, facing, sorted);
+        return palette.computeIfAbsent(entry, k -> palette.size());
+    }
+
+    private static PaletteEntry paletteAt(List<PaletteEntry> palette, int index) throws IOException {
+        if (index < 0 || index >= palette.size()) {
+            throw new IOException("palette 索引超出範圍: " + index);
+        }
+        return palette.get(index);
+    }
+
+    /**
+     * 旋轉會直接修改屬性，每個元素需要自己的 Map。
+     */
+    private static Map<String, String> copy(Map<String, String> properties) {
+        return properties == null ? null : new HashMap<>(properties);
+    }
+
+    private static int readCount(DataInput in, int limit) throws IOException {
+        int count = readVarInt(in);
+        // 每個元素至少佔一個 byte，超過檔案大小必定損壞
+        if (count < 0 || count > limit) {
+            throw new IOException("數量無效: " + count);
+        }
+        return count;
+    }
+
+    private static void writePos(DataOutput out, int[] pos) throws IOException {
+        if (pos == null || pos.length != 3) {
+            throw new IllegalArgumentException("座標必須是 3 個整數");
+        }
+        for (int value : pos) {
+            writeVarInt(out, (value << 1) ^ (value >> 31));
+        }
+    }
+
+    private static int[] readPos(DataInput in) throws IOException {
+        int[] pos = new int[3];
+        for (int axis = 0; axis < 3; axis++) {
+            int zigzag = readVarInt(in);
+            pos[axis] = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        return pos;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint 過長");
+    }
+}
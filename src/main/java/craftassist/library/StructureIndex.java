@@ -0,0 +1,217 @@
+package craftassist.library;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 建築庫的索引檔，以記憶體映射讀寫。
+ * <p>
+ * 格式（big-endian）：
+ * <pre>
+ * int   magic ("CASI")
+ * byte  版本
+ * byte[3] 保留
+ * int   記錄數
+ * int   保留
+ * 之後為固定 80 bytes 的記錄：
+ *   byte    名稱長度，後接 31 bytes 名稱（ASCII，不足補 0）
+ *   int     region 數
+ *   int     block 數
+ *   short   寬、高、深
+ *   short   保留
+ *   long    保存時間（epoch 毫秒）
+ *   int     資料檔大小
+ *   int     保留
+ *   long[2] 保存者 UUID（高位、低位）
+ * </pre>
+ * 記錄為固定寬度，列出建築時直接從映射區逐筆讀取，不需開啟任何資料檔；
+ * 名稱到位置的對照表在開啟時建立，同名保存直接覆寫原本的記錄。
+ */
+public final class StructureIndex implements AutoCloseable {
+
+    public static final int MAX_NAME_LENGTH = 31;
+
+    static final int MAGIC = 0x43415349;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 80;
+    private static final int COUNT_OFFSET = 8;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    /**
+     * 建築庫中一筆建築的摘要。
+     *
+     * @param owner    保存者
+     * @param width    X 方向格數
+     * @param height   Y 方向格數
+     * @param depth    Z 方向格數
+     * @param savedAt  保存時間（epoch 毫秒）
+     * @param bytes    資料檔大小
+     */
+    public record Entry(String name, UUID owner, int regions, int blocks, int width, int height, int depth,
+                        long savedAt, int bytes) {
+    }
+
+    private StructureIndex(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 開啟索引檔，不存在時建立新的空索引。
+     */
+    public static StructureIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        StructureIndex index = new StructureIndex(channel);
+        try {
+            index.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return index;
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.put(4, (byte) VERSION);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.force();
+            return;
+        }
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            throw new IOException("索引檔大小無效: " + size);
+        }
+        map((int) ((size - HEADER_BYTES) / RECORD_BYTES));
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是建築庫索引檔");
+        }
+        if (buffer.get(4) != VERSION) {
+            throw new IOException("不支援的索引版本: " + buffer.get(4));
+        }
+        count = buffer.getInt(COUNT_OFFSET);
+        if (count < 0 || count > capacity) {
+            throw new IOException("索引記錄數無效: " + count);
+        }
+        for (int slot = 0; slot < count; slot++) {
+            slots.put(readName(slot), slot);
+        }
+    }
+
+    /**
+     * 以指定的記錄容量重新映射，檔案不足時會自動延長。
+     */
+    private void map(int newCapacity) throws IOException {
+        capacity = Math.max(newCapacity, 1);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+    }
+
+    /**
+     * 新增記錄；同名的記錄直接覆寫。是否允許覆寫他人的記錄由呼叫端依 {@link Entry#owner()} 決定。
+     */
+    public synchronized void put(Entry entry) throws IOException {
+        byte[] name = entry.name().getBytes(StandardCharsets.US_ASCII);
+        if (name.length == 0 || name.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("名稱長度必須為 1 到 " + MAX_NAME_LENGTH);
+        }
+        Integer existing = slots.get(entry.name());
+        int slot = existing != null ? existing : count;
+        if (slot >= capacity) {
+            map(capacity * 2);
+        }
+
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            buffer.put(offset + i, (byte) 0);
+        }
+        buffer.put(offset, (byte) name.length);
+        buffer.put(offset + 1, name);
+        buffer.putInt(offset + 32, entry.regions());
+        buffer.putInt(offset + 36, entry.blocks());
+        buffer.putShort(offset + 40, (short) clampShort(entry.width()));
+        buffer.putShort(offset + 42, (short) clampShort(entry.height()));
+        buffer.putShort(offset + 44, (short) clampShort(entry.depth()));
+        buffer.putLong(offset + 48, entry.savedAt());
+        buffer.putInt(offset + 56, entry.bytes());
+        buffer.putLong(offset + 64, entry.owner().getMostSignificantBits());
+        buffer.putLong(offset + 72, entry.owner().getLeastSignificantBits());
+
+        // 記錄寫完才更新記錄數，中途當機最多遺失這一筆
+        if (existing == null) {
+            count++;
+            buffer.putInt(COUNT_OFFSET, count);
+            slots.put(entry.name(), slot);
+        }
+        buffer.force();
+    }
+
+    public synchronized Entry find(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? null : read(slot);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 依保存順序列出所有記錄（覆寫的記錄維持原本的位置）。
+     */
+    public synchronized List<Entry> list() {
+        List<Entry> entries = new ArrayList<>(count);
+        for (int slot = 0; slot < count; slot++) {
+            entries.add(read(slot));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        // 映射在 channel 關閉後仍然有效，由 GC 回收
+        buffer = null;
+        channel.close();
+    }
+
+    private Entry read(int slot) {
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        return new Entry(readName(slot),
+                new UUID(buffer.getLong(offset + 64), buffer.getLong(offset + 72)),
+                buffer.getInt(offset + 32),
+                buffer.getInt(offset + 36),
+                buffer.getShort(offset + 40) & 0xFFFF,
+                buffer.getShort(offset + 42) & 0xFFFF,
+                buffer.getShort(offset + 44) & 0xFFFF,
+                buffer.getLong(offset + 48),
+                buffer.getInt(offset + 56));
+    }
+
+    private String readName(int slot) {
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        int length = Math.min(buffer.get(offset) & 0xFF, MAX_NAME_LENGTH);
+        byte[] name = new byte[length];
+        buffer.get(offset + 1, name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    private static int clampShort(int value) {
+        return Math.max(0, Math.min(0xFFFF, value));
+    }
+}
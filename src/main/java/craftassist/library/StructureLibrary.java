@@ -0,0 +1,187 @@
+package craftassist.library;
+
+import craftassist.CraftAssistMod;
+import craftassist.builder.BuildStructure;
+import craftassist.builder.BuildingOffsetCalculator;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.world.level.storage.LevelResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 建築庫：保存生成過的建築，之後不經 API 直接重新放置。
+ * <p>
+ * 每棟建築以 {@link StructureCodec} 編碼寫入世界資料夾下的 {@code craftassist/structures/<名稱>.castruct}，
+ * 摘要記在同目錄的 {@link StructureIndex}（{@code index.bin}）。保存的是旋轉前的原始座標，
+ * 重新放置時依玩家當下的朝向旋轉與偏移。
+ * 每位玩家最近一次生成的建築暫存在記憶體中（已編碼），供 {@code /ca save} 使用，斷線即清除。
+ * 名稱為所有玩家共用，同名只能由原保存者覆寫。
+ */
+public class StructureLibrary {
+
+    public static final String EXTENSION = ".castruct";
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final Pattern NAME_PATTERN =
+            Pattern.compile("[a-z0-9_-]{1," + StructureIndex.MAX_NAME_LENGTH + "}");
+
+    private static final Map<UUID, LastBuild> lastBuilds = new ConcurrentHashMap<>();
+    private static Path directory;
+    private static StructureIndex index;
+
+    /**
+     * 名稱已被其他玩家使用。
+     */
+    public static final class NameTakenException extends Exception {
+        public NameTakenException(String name) {
+            super("名稱「" + name + "」已被其他玩家使用");
+        }
+    }
+
+    private record LastBuild(byte[] data, int regions, int blocks, BuildingOffsetCalculator.BoundingBox bbox) {
+    }
+
+    public static void init() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server ->
+                load(server.getWorldPath(LevelResource.ROOT).resolve("craftassist").resolve("structures")));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> unload());
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+                forget(handler.getPlayer().getUUID()));
+    }
+
+    static synchronized void load(Path structureDirectory) {
+        unload();
+        directory = structureDirectory;
+        try {
+            Files.createDirectories(directory);
+            index = StructureIndex.open(directory.resolve(INDEX_FILE));
+            if (index.size() > 0) {
+                CraftAssistMod.LOGGER.info("[CraftAssist] 建築庫已載入 {} 棟建築", index.size());
+            }
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法開啟建築庫 {}", directory, e);
+            index = null;
+        }
+    }
+
+    static synchronized void unload() {
+        if (index != null) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                CraftAssistMod.LOGGER.warn("[CraftAssist] 無法關閉建築庫索引", e);
+            }
+        }
+        index = null;
+        directory = null;
+        lastBuilds.clear();
+    }
+
+    /**
+     * 名稱轉為小寫後檢查格式。
+     *
+     * @return 不合法時回傳 null
+     */
+    public static String normalizeName(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        return NAME_PATTERN.matcher(normalized).matches() ? normalized : null;
+    }
+
+    /**
+     * 記住玩家最近一次生成的建築。必須在旋轉前呼叫；結構會立即編碼，之後的修改不影響暫存內容。
+     */
+    public static void remember(UUID playerUuid, BuildStructure structure) {
+        try {
+            byte[] data = StructureCodec.encode(structure);
+            int regions = structure.getRegions() == null ? 0 : structure.getRegions().size();
+            int blocks = structure.getBlocks() == null ? 0 : structure.getBlocks().size();
+            lastBuilds.put(playerUuid, new LastBuild(data, regions, blocks,
+                    BuildingOffsetCalculator.computeBoundingBox(structure)));
+        } catch (IllegalArgumentException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法暫存建築：{}", e.getMessage());
+            lastBuilds.remove(playerUuid);
+        }
+    }
+
+    public static void forget(UUID playerUuid) {
+        lastBuilds.remove(playerUuid);
+    }
+
+    public static boolean hasLastBuild(UUID playerUuid) {
+        return lastBuilds.containsKey(playerUuid);
+    }
+
+    /**
+     * 將玩家最近一次生成的建築以指定名稱保存。同名建築只有原保存者可以覆寫。
+     *
+     * @param name 已經過 {@link #normalizeName} 的名稱
+     * @return 沒有可保存的建築時回傳 null
+     * @throws NameTakenException 名稱屬於其他玩家，資料檔與索引都不會變更
+     */
+    public static synchronized StructureIndex.Entry save(UUID playerUuid, String name)
+            throws IOException, NameTakenException {
+        LastBuild build = lastBuilds.get(playerUuid);
+        if (build == null) {
+            return null;
+        }
+        StructureIndex structureIndex = requireIndex();
+        StructureIndex.Entry existing = structureIndex.find(name);
+        if (existing != null && !playerUuid.equals(existing.owner())) {
+            throw new NameTakenException(name);
+        }
+
+        Path file = directory.resolve(name + EXTENSION);
+        Path tmp = directory.resolve(name + EXTENSION + ".tmp");
+        Files.write(tmp, build.data());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        BuildingOffsetCalculator.BoundingBox bbox = build.bbox();
+        StructureIndex.Entry entry = new StructureIndex.Entry(name, playerUuid, build.regions(), build.blocks(),
+                bbox.width(), bbox.maxY() - bbox.minY() + 1, bbox.depth(),
+                System.currentTimeMillis(), build.data().length);
+        structureIndex.put(entry);
+        return entry;
+    }
+
+    /**
+     * 讀取保存的建築。
+     *
+     * @return 不存在時回傳 null
+     */
+    public static synchronized BuildStructure load(String name) throws IOException {
+        StructureIndex structureIndex = requireIndex();
+        if (structureIndex.find(name) == null) {
+            return null;
+        }
+        try {
+            return StructureCodec.decode(Files.readAllBytes(directory.resolve(name + EXTENSION)));
+        } catch (NoSuchFileException e) {
+            throw new IOException("建築資料檔遺失: " + name + EXTENSION, e);
+        }
+    }
+
+    /**
+     * 依保存順序列出所有建築。
+     */
+    public static synchronized List<StructureIndex.Entry> list() throws IOException {
+        return requireIndex().list();
+    }
+
+    private static StructureIndex requireIndex() throws IOException {
+        if (index == null) {
+            throw new IOException("建築庫尚未初始化");
+        }
+        return index;
+    }
+}
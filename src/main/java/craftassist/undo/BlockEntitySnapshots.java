@@ -0,0 +1,93 @@
+package craftassist.undo;
+
+import craftassist.CraftAssistMod;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.Clearable;
+import net.minecraft.world.Container;
+import net.minecraft.world.Containers;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 方塊實體的擷取與還原。資料以 GZIP 壓縮的 NBT 保存在 {@link UndoData} 中。
+ */
+public final class BlockEntitySnapshots {
+
+    private BlockEntitySnapshots() {
+    }
+
+    /**
+     * 擷取方塊實體的完整資料（含 ID 與元件），並清空容器內容，
+     * 避免方塊被取代時物品掉落在地上，與 undo 資料重複。
+     * 清空後內容物只存在於 undo 資料中；undo 紀錄無法保存時必須呼叫 {@link #dropContents}。
+     *
+     * @return 壓縮後的 NBT，擷取失敗時為 null
+     */
+    public static byte[] capture(ServerLevel world, BlockEntity blockEntity) {
+        try {
+            CompoundTag tag = blockEntity.saveWithFullMetadata(world.registryAccess());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            NbtIo.writeCompressed(tag, out);
+            Clearable.tryClear(blockEntity);
+            return out.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法擷取 {} 的方塊實體", blockEntity.getBlockPos(), e);
+            return null;
+        }
+    }
+
+    /**
+     * undo 紀錄無法保存時，把擷取時清空的容器內容物掉落在原位置，物品不會因此永久消失。
+     *
+     * @return 掉落內容物的容器數
+     */
+    public static int dropContents(ServerLevel world, UndoData undoData) {
+        if (undoData.getBlockEntityCount() == 0) {
+            return 0;
+        }
+        int dropped = 0;
+        UndoData.Cursor cursor = undoData.cursor();
+        while (cursor.advance()) {
+            byte[] data = cursor.blockEntity();
+            if (data == null) {
+                continue;
+            }
+            BlockPos pos = BlockPos.of(cursor.pos());
+            try {
+                CompoundTag tag = NbtIo.readCompressed(new ByteArrayInputStream(data), NbtAccounter.unlimitedHeap());
+                BlockEntity blockEntity = BlockEntity.loadStatic(pos, cursor.state(), tag, world.registryAccess());
+                if (blockEntity instanceof Container container) {
+                    Containers.dropContents(world, pos, container);
+                    dropped++;
+                }
+            } catch (IOException | RuntimeException e) {
+                CraftAssistMod.LOGGER.warn("[CraftAssist] 無法掉落 {} 的容器內容物", pos, e);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * 在已放回原始狀態的位置還原方塊實體。
+     */
+    public static void restore(ServerLevel world, BlockPos pos, BlockState state, byte[] data) {
+        try {
+            CompoundTag tag = NbtIo.readCompressed(new ByteArrayInputStream(data), NbtAccounter.unlimitedHeap());
+            BlockEntity blockEntity = BlockEntity.loadStatic(pos, state, tag, world.registryAccess());
+            if (blockEntity != null) {
+                world.setBlockEntity(blockEntity);
+                blockEntity.setChanged();
+            }
+        } catch (IOException | RuntimeException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法還原 {} 的方塊實體", pos, e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package craftassist.undo;
+
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 以原版 NBT 格式（方塊 ID 與屬性）序列化方塊狀態，跨版本與重新啟動都能正確讀回。
+ */
+public class NbtStateCodec implements UndoFile.StateCodec {
+
+    @Override
+    public void write(DataOutput out, BlockState state) throws IOException {
+        NbtIo.write(NbtUtils.writeBlockState(state), out);
+    }
+
+    @Override
+    public BlockState read(DataInput in) throws IOException {
+        CompoundTag tag = NbtIo.read(in);
+        return NbtUtils.readBlockState(BuiltInRegistries.BLOCK, tag);
+    }
+}
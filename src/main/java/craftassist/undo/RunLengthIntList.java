@@ -0,0 +1,111 @@
+package craftassist.undo;
+
+import java.util.Arrays;
+
+/**
+ * 以 run-length 壓縮的 int 序列，只支援附加與依序讀取。
+ * <p>
+ * 連續相同的值合併為一個 (值, 長度) run；undo 的原始狀態大多是一長串空氣，
+ * 因此通常只需要極少的 run 就能表示整個建築。
+ */
+public class RunLengthIntList {
+
+    private static final int INITIAL_RUNS = 8;
+
+    private int[] values = new int[INITIAL_RUNS];
+    private int[] lengths = new int[INITIAL_RUNS];
+    private int runCount = 0;
+    private int size = 0;
+
+    public void add(int value) {
+        if (runCount > 0 && values[runCount - 1] == value && lengths[runCount - 1] < Integer.MAX_VALUE) {
+            lengths[runCount - 1]++;
+        } else {
+            appendRun(value, 1);
+        }
+        size++;
+    }
+
+    /**
+     * 直接附加一整個 run，用於從序列化資料還原。
+     */
+    public void addRun(int value, int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("run 長度必須大於 0: " + length);
+        }
+        if (size > Integer.MAX_VALUE - length) {
+            throw new IllegalArgumentException("元素數超出上限");
+        }
+        appendRun(value, length);
+        size += length;
+    }
+
+    private void appendRun(int value, int length) {
+        if (runCount == values.length) {
+            int newLength = runCount + (runCount >> 1) + 1;
+            values = Arrays.copyOf(values, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+        }
+        values[runCount] = value;
+        lengths[runCount] = length;
+        runCount++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int runCount() {
+        return runCount;
+    }
+
+    public int runValue(int run) {
+        return values[run];
+    }
+
+    public int runLength(int run) {
+        return lengths[run];
+    }
+
+    /**
+     * 釋放多配置的 run 空間，資料不再增加時呼叫。
+     */
+    public void trim() {
+        if (values.length != runCount) {
+            values = Arrays.copyOf(values, runCount);
+            lengths = Arrays.copyOf(lengths, runCount);
+        }
+    }
+
+    /**
+     * 估計佔用的位元組數（不含物件標頭）。
+     */
+    public long estimateBytes() {
+        return (long) values.length * Integer.BYTES * 2;
+    }
+
+    public Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * 依序讀取每個元素。
+     */
+    public class Reader {
+        private int run = 0;
+        private int remaining = runCount > 0 ? lengths[0] : 0;
+
+        public boolean hasNext() {
+            return remaining > 0 || run + 1 < runCount;
+        }
+
+        public int next() {
+            if (remaining == 0) {
+                run++;
+                remaining = lengths[run];
+            }
+            remaining--;
+            return values[run];
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package craftassist.undo;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * 依記錄順序讀取 undo 快照的游標，資料可能在記憶體或磁碟上。
+ */
+public interface SnapshotCursor extends AutoCloseable {
+
+    /**
+     * 前進到下一個快照。
+     *
+     * @return false 表示已讀完
+     */
+    boolean advance();
+
+    /**
+     * 目前快照的座標（{@code BlockPos.asLong()}）。
+     */
+    long pos();
+
+    /**
+     * 目前快照記錄的原始狀態。
+     */
+    BlockState state();
+
+    /**
+     * 目前快照的方塊實體（壓縮 NBT），該位置原本沒有方塊實體時為 null。
+     */
+    default byte[] blockEntity() {
+        return null;
+    }
+
+    /**
+     * 已讀取的快照數。
+     */
+    int consumed();
+
+    /**
+     * 快照總數。
+     */
+    int size();
+
+    @Override
+    default void close() {
+    }
+}
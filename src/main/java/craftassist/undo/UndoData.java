@@ -4,31 +4,220 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.state.BlockState;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
+/**
+ * 一次建築操作的原始方塊快照，以欄式結構壓縮儲存。
+ * <p>
+ * 座標存為 {@code BlockPos.asLong()} 的 long 陣列；原始狀態先轉為本次 undo 專用 palette 的索引，
+ * 再以 run-length 壓縮（連續的空氣只佔一個 run）。每個方塊約 8 bytes，加上少量 run 與 palette。
+ * 原本帶有方塊實體（箱子、告示牌等）的位置另外以稀疏陣列保存壓縮後的 NBT。
+ */
 public class UndoData {
 
-    private final List<BlockSnapshot> snapshots;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] positions;
+    private int size = 0;
+    private final List<BlockState> palette = new ArrayList<>();
+    // BlockState 為全域唯一實例，以 identity 比對即可
+    private final Map<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+    private final RunLengthIntList stateIndices = new RunLengthIntList();
+    // 方塊實體依快照索引遞增排列，大多數建築完全沒有
+    private int[] blockEntityIndices = new int[0];
+    private byte[][] blockEntityData = new byte[0][];
+    private int blockEntityCount = 0;
+    private long blockEntityBytes = 0;
 
     public UndoData() {
-        this.snapshots = new ArrayList<>();
+        this.positions = new long[INITIAL_CAPACITY];
     }
 
     public UndoData(List<BlockSnapshot> snapshots) {
-        this.snapshots = snapshots;
+        this.positions = new long[Math.max(INITIAL_CAPACITY, snapshots.size())];
+        for (BlockSnapshot snapshot : snapshots) {
+            addSnapshot(snapshot.pos(), snapshot.originalState());
+        }
     }
 
     public void addSnapshot(BlockPos pos, BlockState originalState) {
-        snapshots.add(new BlockSnapshot(pos.immutable(), originalState));
+        addSnapshot(pos.asLong(), originalState);
+    }
+
+    public void addSnapshot(long packedPos, BlockState originalState) {
+        addSnapshot(packedPos, originalState, null);
+    }
+
+    /**
+     * @param blockEntity 原位置方塊實體的壓縮 NBT，沒有時為 null
+     */
+    public void addSnapshot(long packedPos, BlockState originalState, byte[] blockEntity) {
+        if (blockEntity != null) {
+            if (blockEntityCount == blockEntityIndices.length) {
+                int newLength = blockEntityCount + (blockEntityCount >> 1) + 4;
+                blockEntityIndices = Arrays.copyOf(blockEntityIndices, newLength);
+                blockEntityData = Arrays.copyOf(blockEntityData, newLength);
+            }
+            blockEntityIndices[blockEntityCount] = size;
+            blockEntityData[blockEntityCount] = blockEntity;
+            blockEntityCount++;
+            blockEntityBytes += blockEntity.length;
+        }
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size + (size >> 1) + 1);
+        }
+        positions[size++] = packedPos;
+        Integer index = paletteIndex.get(originalState);
+        if (index == null) {
+            index = palette.size();
+            palette.add(originalState);
+            paletteIndex.put(originalState, index);
+        }
+        stateIndices.add(index);
     }
 
-    public List<BlockSnapshot> getSnapshots() {
-        return Collections.unmodifiableList(snapshots);
+    /**
+     * 依記錄順序逐一走訪快照；每次迭代建立新的 {@link BlockSnapshot}，不保留展開後的清單。
+     */
+    public Iterable<BlockSnapshot> getSnapshots() {
+        return () -> new Iterator<>() {
+            private final Cursor cursor = cursor();
+            private boolean ready = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    ready = cursor.advance();
+                }
+                return ready;
+            }
+
+            @Override
+            public BlockSnapshot next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return new BlockSnapshot(BlockPos.of(cursor.pos()), cursor.state());
+            }
+        };
+    }
+
+    /**
+     * 不配置物件的依序讀取游標。
+     */
+    public Cursor cursor() {
+        return new Cursor();
     }
 
     public int size() {
-        return snapshots.size();
+        return size;
+    }
+
+    public int getPaletteSize() {
+        return palette.size();
+    }
+
+    public int getRunCount() {
+        return stateIndices.runCount();
+    }
+
+    public int getBlockEntityCount() {
+        return blockEntityCount;
+    }
+
+    List<BlockState> getPalette() {
+        return palette;
+    }
+
+    RunLengthIntList getStateIndices() {
+        return stateIndices;
+    }
+
+    long positionAt(int index) {
+        return positions[index];
+    }
+
+    int blockEntityIndexAt(int i) {
+        return blockEntityIndices[i];
+    }
+
+    byte[] blockEntityDataAt(int i) {
+        return blockEntityData[i];
+    }
+
+    /**
+     * 資料不再增加後釋放多配置的陣列空間。
+     */
+    public void trim() {
+        if (positions.length != size) {
+            positions = Arrays.copyOf(positions, size);
+        }
+        stateIndices.trim();
+        if (blockEntityIndices.length != blockEntityCount) {
+            blockEntityIndices = Arrays.copyOf(blockEntityIndices, blockEntityCount);
+            blockEntityData = Arrays.copyOf(blockEntityData, blockEntityCount);
+        }
+    }
+
+    /**
+     * 估計佔用的位元組數（座標、run、palette 參考與方塊實體），用於統計。
+     */
+    public long estimateBytes() {
+        return (long) positions.length * Long.BYTES + stateIndices.estimateBytes()
+                + (long) palette.size() * Long.BYTES
+                + (long) blockEntityIndices.length * (Integer.BYTES + Long.BYTES) + blockEntityBytes;
+    }
+
+    public class Cursor implements SnapshotCursor {
+        private final RunLengthIntList.Reader reader = stateIndices.reader();
+        private int index = -1;
+        private int blockEntityCursor = 0;
+        private BlockState state;
+
+        @Override
+        public boolean advance() {
+            if (index + 1 >= size) {
+                return false;
+            }
+            index++;
+            state = palette.get(reader.next());
+            while (blockEntityCursor < blockEntityCount && blockEntityIndices[blockEntityCursor] < index) {
+                blockEntityCursor++;
+            }
+            return true;
+        }
+
+        @Override
+        public byte[] blockEntity() {
+            return blockEntityCursor < blockEntityCount && blockEntityIndices[blockEntityCursor] == index
+                    ? blockEntityData[blockEntityCursor] : null;
+        }
+
+        @Override
+        public long pos() {
+            return positions[index];
+        }
+
+        @Override
+        public BlockState state() {
+            return state;
+        }
+
+        @Override
+        public int consumed() {
+            return index + 1;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 
     public record BlockSnapshot(BlockPos pos, BlockState originalState) {
@@ -0,0 +1,324 @@
+package craftassist.undo;
+
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * undo 快照的二進位檔案格式。
+ * <p>
+ * 格式（big-endian）：
+ * <pre>
+ * int    magic ("CAUD")
+ * byte   版本
+ * byte   種類（0 = undo、1 = redo）
+ * long   序號（全伺服器遞增，用於淘汰順序）
+ * UTF    維度 ID
+ * int    快照數
+ * int    palette 大小，後接每個狀態（由 {@link StateCodec} 編碼）
+ * int    run 數，後接每個 run 的 (palette 索引, 長度)
+ * int    方塊實體數，後接每筆的 (快照索引, 長度, 壓縮 NBT)（版本 2 起）
+ * long[] 座標（BlockPos.asLong），共「快照數」個
+ * </pre>
+ * 座標放在最後且為固定寬度，讀取時以記憶體映射直接存取，不必整份載入 heap。
+ */
+public final class UndoFile {
+
+    public static final String EXTENSION = ".undo";
+
+    static final int MAGIC = 0x43415544;
+    static final int VERSION = 2;
+    // 版本 1 沒有方塊實體區段，仍可讀取
+    private static final int MIN_VERSION = 1;
+    private static final int BLOCK_ENTITY_VERSION = 2;
+    private static final int VERSION_OFFSET = Integer.BYTES;
+
+    private UndoFile() {
+    }
+
+    /**
+     * 方塊狀態的序列化方式，正式環境使用 {@link NbtStateCodec}。
+     */
+    public interface StateCodec {
+        void write(DataOutput out, BlockState state) throws IOException;
+
+        BlockState read(DataInput in) throws IOException;
+    }
+
+    public record Header(boolean redo, long sequence, String dimension, int count) {
+    }
+
+    /**
+     * 寫入 undo 資料。先寫入暫存檔再原子性地改名，中途當機不會留下半份檔案。
+     */
+    public static void write(Path file, UndoData data, Header header, StateCodec codec) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeHeader(out, header);
+
+            List<BlockState> palette = data.getPalette();
+            out.writeInt(palette.size());
+            for (BlockState state : palette) {
+                codec.write(out, state);
+            }
+
+            RunLengthIntList runs = data.getStateIndices();
+            out.writeInt(runs.runCount());
+            for (int i = 0; i < runs.runCount(); i++) {
+                out.writeInt(runs.runValue(i));
+                out.writeInt(runs.runLength(i));
+            }
+
+            out.writeInt(data.getBlockEntityCount());
+            for (int i = 0; i < data.getBlockEntityCount(); i++) {
+                byte[] nbt = data.blockEntityDataAt(i);
+                out.writeInt(data.blockEntityIndexAt(i));
+                out.writeInt(nbt.length);
+                out.write(nbt);
+            }
+
+            for (int i = 0; i < data.size(); i++) {
+                out.writeLong(data.positionAt(i));
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Header readHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 256))) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * 以記憶體映射開啟讀取游標。
+     *
+     * @param deleteWhenDone 讀完全部快照並關閉後刪除檔案；未讀完就關閉則保留
+     */
+    public static Reader open(Path file, StateCodec codec, boolean deleteWhenDone) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("undo 檔案過大: " + size + " bytes");
+            }
+            // 映射在 channel 關閉後仍然有效，由 GC 回收
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        try {
+            return new Reader(file, mapped, codec, deleteWhenDone);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("undo 檔案不完整: " + file, e);
+        }
+    }
+
+    private static void writeHeader(DataOutput out, Header header) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(header.redo() ? 1 : 0);
+        out.writeLong(header.sequence());
+        out.writeUTF(header.dimension());
+        out.writeInt(header.count());
+    }
+
+    private static Header readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("不是 undo 檔案");
+        }
+        int version = in.readUnsignedByte();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("不支援的 undo 檔案版本: " + version);
+        }
+        boolean redo = in.readUnsignedByte() == 1;
+        long sequence = in.readLong();
+        String dimension = in.readUTF();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("快照數無效: " + count);
+        }
+        return new Header(redo, sequence, dimension, count);
+    }
+
+    /**
+     * 從映射的檔案依序讀取快照。palette 與 run 在開啟時解碼，座標直接從映射區讀取，不複製到 heap。
+     */
+    public static final class Reader implements SnapshotCursor {
+        private final Path file;
+        private final Header header;
+        private final List<BlockState> palette;
+        private final RunLengthIntList.Reader indices;
+        private final boolean deleteWhenDone;
+        private final int[] blockEntityIndices;
+        private final byte[][] blockEntityData;
+        private LongBuffer positions;
+        private int blockEntityCursor = 0;
+        private int consumed = 0;
+        private long pos;
+        private BlockState state;
+
+        private Reader(Path file, MappedByteBuffer mapped, StateCodec codec, boolean deleteWhenDone) throws IOException {
+            this.file = file;
+            this.deleteWhenDone = deleteWhenDone;
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(mapped));
+            this.header = readHeader(in);
+
+            int paletteSize = in.readInt();
+            palette = new ArrayList<>(paletteSize);
+            for (int i = 0; i < paletteSize; i++) {
+                palette.add(codec.read(in));
+            }
+
+            RunLengthIntList runs = new RunLengthIntList();
+            int runCount = in.readInt();
+            for (int i = 0; i < runCount; i++) {
+                int value = in.readInt();
+                int length = in.readInt();
+                if (value < 0 || value >= paletteSize) {
+                    throw new IOException("palette 索引超出範圍: " + value);
+                }
+                if (length <= 0 || runs.size() > header.count() - length) {
+                    throw new IOException("run 長度無效: " + length);
+                }
+                runs.addRun(value, length);
+            }
+            if (runs.size() != header.count()) {
+                throw new IOException("run 長度總和 (" + runs.size() + ") 與快照數 (" + header.count() + ") 不符");
+            }
+            this.indices = runs.reader();
+
+            int blockEntityCount = mapped.get(VERSION_OFFSET) >= BLOCK_ENTITY_VERSION ? in.readInt() : 0;
+            if (blockEntityCount < 0 || blockEntityCount > header.count()) {
+                throw new IOException("方塊實體數無效: " + blockEntityCount);
+            }
+            blockEntityIndices = new int[blockEntityCount];
+            blockEntityData = new byte[blockEntityCount][];
+            for (int i = 0; i < blockEntityCount; i++) {
+                int index = in.readInt();
+                int length = in.readInt();
+                if (index < 0 || index >= header.count() || (i > 0 && index <= blockEntityIndices[i - 1])) {
+                    throw new IOException("方塊實體索引無效: " + index);
+                }
+                if (length < 0 || length > mapped.remaining()) {
+                    throw new IOException("方塊實體資料長度無效: " + length);
+                }
+                blockEntityIndices[i] = index;
+                blockEntityData[i] = new byte[length];
+                in.readFully(blockEntityData[i]);
+            }
+
+            if (mapped.remaining() != (long) header.count() * Long.BYTES) {
+                throw new IOException("座標資料長度不符: " + mapped.remaining() + " bytes");
+            }
+            this.positions = mapped.slice().asLongBuffer();
+        }
+
+        public Header getHeader() {
+            return header;
+        }
+
+        @Override
+        public boolean advance() {
+            if (positions == null || consumed >= header.count()) {
+                return false;
+            }
+            pos = positions.get(consumed);
+            state = palette.get(indices.next());
+            while (blockEntityCursor < blockEntityIndices.length && blockEntityIndices[blockEntityCursor] < consumed) {
+                blockEntityCursor++;
+            }
+            consumed++;
+            return true;
+        }
+
+        @Override
+        public byte[] blockEntity() {
+            int index = consumed - 1;
+            return blockEntityCursor < blockEntityIndices.length && blockEntityIndices[blockEntityCursor] == index
+                    ? blockEntityData[blockEntityCursor] : null;
+        }
+
+        @Override
+        public long pos() {
+            return pos;
+        }
+
+        @Override
+        public BlockState state() {
+            return state;
+        }
+
+        @Override
+        public int consumed() {
+            return consumed;
+        }
+
+        @Override
+        public int size() {
+            return header.count();
+        }
+
+        @Override
+        public void close() {
+            if (positions == null) {
+                return;
+            }
+            positions = null;
+            if (!deleteWhenDone || consumed < header.count()) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // 部分平台在映射尚未回收前不允許刪除，改在 JVM 結束時刪除
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 讓 {@link DataInputStream} 從映射區讀取表頭與 palette，讀取位置與 buffer 同步前進。
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -1,31 +1,323 @@
 package craftassist.undo;
 
-import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import craftassist.CraftAssistMod;
+import craftassist.config.ConfigManager;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.world.level.storage.LevelResource;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+/**
+ * 每位玩家的 undo/redo 歷史。
+ * <p>
+ * 快照以 {@link UndoFile} 格式寫入世界資料夾下的 {@code craftassist/undo/<玩家 UUID>/}，
+ * 記憶體中只保留每筆紀錄的索引（檔案、序號、大小、維度），因此玩家斷線或伺服器重新啟動後歷史仍在。
+ * 每位玩家各有一個 undo 堆疊與 redo 堆疊；新的建築會清空 redo。
+ * 所有玩家的歷史共用一個磁碟用量上限，超出時從全伺服器最舊的一筆開始刪除。
+ */
 public class UndoManager {
 
-    private static final Map<UUID, UndoData> playerHistory = new ConcurrentHashMap<>();
+    private static final Map<UUID, History> histories = new HashMap<>();
+    private static UndoFile.StateCodec codec = new NbtStateCodec();
+    private static Path directory;
+    private static long nextSequence = 0;
+    private static long totalBytes = 0;
 
     public static void init() {
-        // 玩家斷線時清理 undo 資料，避免記憶體洩漏
-        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
-            playerHistory.remove(handler.getPlayer().getUUID());
-        });
+        ServerLifecycleEvents.SERVER_STARTED.register(server ->
+                load(server.getWorldPath(LevelResource.ROOT).resolve("craftassist").resolve("undo")));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> unload());
     }
 
-    public static void recordUndo(UUID playerUuid, UndoData undoData) {
-        playerHistory.put(playerUuid, undoData);
+    /**
+     * 掃描目錄中的 undo 檔案並重建索引。
+     */
+    static synchronized void load(Path undoDirectory) {
+        unload();
+        directory = undoDirectory;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        int loaded = 0;
+        try (Stream<Path> players = Files.list(directory)) {
+            for (Path playerDir : (Iterable<Path>) players::iterator) {
+                UUID playerUuid;
+                try {
+                    playerUuid = UUID.fromString(playerDir.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                loaded += loadPlayer(playerUuid, playerDir);
+            }
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法讀取 undo 目錄 {}", directory, e);
+        }
+        if (loaded > 0) {
+            CraftAssistMod.LOGGER.info("[CraftAssist] 已載入 {} 筆 undo 歷史（{} KB）", loaded, totalBytes / 1024);
+        }
+    }
+
+    static synchronized void unload() {
+        histories.clear();
+        directory = null;
+        nextSequence = 0;
+        totalBytes = 0;
+    }
+
+    /**
+     * 測試用：以不依賴遊戲登錄表的方式序列化方塊狀態。
+     */
+    static synchronized void setCodec(UndoFile.StateCodec stateCodec) {
+        codec = stateCodec;
+    }
+
+    /**
+     * 記錄一次建築的 undo 資料，並清空該玩家的 redo 堆疊。
+     *
+     * @return false 表示寫入磁碟失敗，這筆歷史沒有保存
+     */
+    public static synchronized boolean recordUndo(UUID playerUuid, UndoData undoData, String dimension) {
+        History history = history(playerUuid);
+        while (!history.redo.isEmpty()) {
+            delete(history.redo.pop());
+        }
+        return push(playerUuid, history.undo, undoData, dimension, false);
+    }
+
+    /**
+     * redo 完成後把新的 undo 資料放回 undo 堆疊，保留其餘 redo。
+     */
+    public static synchronized boolean recordUndoAfterRedo(UUID playerUuid, UndoData undoData, String dimension) {
+        return push(playerUuid, history(playerUuid).undo, undoData, dimension, false);
+    }
+
+    /**
+     * 記錄一次復原所覆蓋的狀態，供 {@code /ca redo} 使用。
+     */
+    public static synchronized boolean recordRedo(UUID playerUuid, UndoData redoData, String dimension) {
+        return push(playerUuid, history(playerUuid).redo, redoData, dimension, true);
+    }
+
+    /**
+     * 查看最近一筆 undo 紀錄但不移除。還原任務確定開始後再以 {@link #remove} 移除，
+     * 開始失敗時紀錄仍留在堆疊上。
+     */
+    public static synchronized Entry peekUndo(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history == null ? null : history.undo.peek();
+    }
+
+    public static synchronized Entry peekRedo(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history == null ? null : history.redo.peek();
+    }
+
+    /**
+     * 從堆疊移除紀錄但保留檔案。檔案在還原完整讀完後才刪除，中途停止則保留到下次啟動重新載入。
+     *
+     * @return false 表示紀錄已不在堆疊上（例如已被容量上限淘汰）
+     */
+    public static synchronized boolean remove(UUID playerUuid, Entry entry) {
+        History history = histories.get(playerUuid);
+        if (history == null) {
+            return false;
+        }
+        for (Deque<Entry> stack : history.stacks()) {
+            if (stack.remove(entry)) {
+                totalBytes -= entry.bytes();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 開啟紀錄的串流讀取游標，讀完並關閉後刪除檔案。
+     */
+    public static SnapshotCursor open(Entry entry) throws IOException {
+        UndoFile.StateCodec stateCodec;
+        synchronized (UndoManager.class) {
+            stateCodec = codec;
+        }
+        return UndoFile.open(entry.file(), stateCodec, true);
+    }
+
+    public static synchronized boolean hasUndo(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history != null && !history.undo.isEmpty();
     }
 
-    public static UndoData popUndo(UUID playerUuid) {
-        return playerHistory.remove(playerUuid);
+    public static synchronized boolean hasRedo(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history != null && !history.redo.isEmpty();
+    }
+
+    public static synchronized int getUndoDepth(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history == null ? 0 : history.undo.size();
+    }
+
+    public static synchronized int getRedoDepth(UUID playerUuid) {
+        History history = histories.get(playerUuid);
+        return history == null ? 0 : history.redo.size();
+    }
+
+    /**
+     * 所有玩家歷史目前佔用的磁碟位元組數。
+     */
+    public static synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 從最舊的歷史開始刪除，直到總量不超過上限。
+     *
+     * @return 刪除的筆數
+     */
+    static synchronized int evictOldest(long budgetBytes) {
+        int evicted = 0;
+        while (totalBytes > budgetBytes) {
+            Deque<Entry> oldestStack = null;
+            UUID oldestOwner = null;
+            long oldestSequence = Long.MAX_VALUE;
+            for (Map.Entry<UUID, History> e : histories.entrySet()) {
+                for (Deque<Entry> stack : e.getValue().stacks()) {
+                    Entry last = stack.peekLast();
+                    if (last != null && last.sequence() < oldestSequence) {
+                        oldestSequence = last.sequence();
+                        oldestStack = stack;
+                        oldestOwner = e.getKey();
+                    }
+                }
+            }
+            if (oldestStack == null) {
+                break;
+            }
+            delete(oldestStack.pollLast());
+            evicted++;
+            History owner = histories.get(oldestOwner);
+            if (owner.undo.isEmpty() && owner.redo.isEmpty()) {
+                histories.remove(oldestOwner);
+            }
+        }
+        return evicted;
+    }
+
+    private static int loadPlayer(UUID playerUuid, Path playerDir) throws IOException {
+        List<Entry> undo = new ArrayList<>();
+        List<Entry> redo = new ArrayList<>();
+        try (Stream<Path> files = Files.list(playerDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(UndoFile.EXTENSION + ".tmp")) {
+                    // 寫入途中當機留下的暫存檔
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!name.endsWith(UndoFile.EXTENSION)) {
+                    continue;
+                }
+                try {
+                    UndoFile.Header header = UndoFile.readHeader(file);
+                    Entry entry = new Entry(file, header.sequence(), Files.size(file),
+                            header.dimension(), header.count());
+                    (header.redo() ? redo : undo).add(entry);
+                } catch (IOException e) {
+                    CraftAssistMod.LOGGER.warn("[CraftAssist] 略過損壞的 undo 檔案 {}: {}", file, e.getMessage());
+                }
+            }
+        }
+        if (undo.isEmpty() && redo.isEmpty()) {
+            return 0;
+        }
+
+        // 堆疊頂端為序號最大（最新）的紀錄
+        Comparator<Entry> newestFirst = Comparator.comparingLong(Entry::sequence).reversed();
+        undo.sort(newestFirst);
+        redo.sort(newestFirst);
+        History history = history(playerUuid);
+        for (Entry entry : undo) {
+            history.undo.addLast(entry);
+            totalBytes += entry.bytes();
+            nextSequence = Math.max(nextSequence, entry.sequence() + 1);
+        }
+        for (Entry entry : redo) {
+            history.redo.addLast(entry);
+            totalBytes += entry.bytes();
+            nextSequence = Math.max(nextSequence, entry.sequence() + 1);
+        }
+        return undo.size() + redo.size();
+    }
+
+    private static History history(UUID playerUuid) {
+        return histories.computeIfAbsent(playerUuid, k -> new History());
+    }
+
+    // 堆疊頂端在前（push/pop），最舊的在尾端
+    private static boolean push(UUID playerUuid, Deque<Entry> stack, UndoData data, String dimension, boolean redo) {
+        if (directory == null) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] undo 目錄尚未初始化，無法保存歷史");
+            return false;
+        }
+        long sequence = nextSequence++;
+        Path playerDir = directory.resolve(playerUuid.toString());
+        Path file = playerDir.resolve(sequence + UndoFile.EXTENSION);
+        try {
+            Files.createDirectories(playerDir);
+            UndoFile.write(file, data, new UndoFile.Header(redo, sequence, dimension, data.size()), codec);
+            Entry entry = new Entry(file, sequence, Files.size(file), dimension, data.size());
+            stack.push(entry);
+            totalBytes += entry.bytes();
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.error("[CraftAssist] 無法寫入 undo 檔案 {}", file, e);
+            return false;
+        }
+
+        long budgetBytes = ConfigManager.getConfig().getUndoHistoryBudgetMb() * 1024L * 1024L;
+        int evicted = evictOldest(budgetBytes);
+        if (evicted > 0) {
+            CraftAssistMod.LOGGER.info("[CraftAssist] undo 歷史超出上限，已刪除 {} 筆最舊的紀錄（目前 {} KB）",
+                    evicted, totalBytes / 1024);
+        }
+        return true;
+    }
+
+    private static void delete(Entry entry) {
+        totalBytes -= entry.bytes();
+        try {
+            Files.deleteIfExists(entry.file());
+        } catch (IOException e) {
+            CraftAssistMod.LOGGER.warn("[CraftAssist] 無法刪除 undo 檔案 {}", entry.file(), e);
+        }
+    }
+
+    private static final class History {
+        final Deque<Entry> undo = new ArrayDeque<>();
+        final Deque<Entry> redo = new ArrayDeque<>();
+
+        List<Deque<Entry>> stacks() {
+            return List.of(undo, redo);
+        }
     }
 
-    public static boolean hasUndo(UUID playerUuid) {
-        return playerHistory.containsKey(playerUuid);
+    /**
+     * 一筆 undo/redo 紀錄的索引。
+     *
+     * @param dimension 紀錄所屬的維度 ID，還原時回到該維度
+     * @param count     快照數
+     */
+    public record Entry(Path file, long sequence, long bytes, String dimension, int count) {
     }
 }
@@ -0,0 +1,133 @@
+package craftassist.util;
+
+import java.util.Arrays;
+
+/**
+ * 以開放定址（線性探測）實作的 long 集合，用於記錄 {@code BlockPos.asLong()} 打包後的座標。
+ * <p>
+ * 每個元素只佔一個 long 槽位，不需要包裝物件與 HashMap 節點。
+ * 空槽以 {@link #EMPTY} 表示；該值本身另外以旗標記錄，因此所有 long 值都可以存入。
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final int DEFAULT_CAPACITY = 16;
+    // 負載上限 1/2，線性探測在此之下的平均探測長度很短
+    private static final int MAX_LOAD_SHIFT = 1;
+
+    private long[] slots;
+    private int mask;
+    private int size = 0;
+    private boolean containsEmpty = false;
+
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(DEFAULT_CAPACITY, expectedSize) << MAX_LOAD_SHIFT);
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 加入一個值。
+     *
+     * @return true 表示原本不存在
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        int index = mix(value) & mask;
+        while (true) {
+            long slot = slots[index];
+            if (slot == EMPTY) {
+                break;
+            }
+            if (slot == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if ((size << MAX_LOAD_SHIFT) > slots.length) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        int index = mix(value) & mask;
+        while (true) {
+            long slot = slots[index];
+            if (slot == EMPTY) {
+                return false;
+            }
+            if (slot == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    /**
+     * 目前槽位陣列的長度，用於估算記憶體用量。
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = slots;
+        slots = new long[newCapacity];
+        mask = newCapacity - 1;
+        for (long value : old) {
+            if (value == EMPTY) {
+                continue;
+            }
+            int index = mix(value) & mask;
+            while (slots[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = value;
+        }
+    }
+
+    // BlockPos.asLong 的低位元是 y 座標，直接取低位元分佈很差，需先打散
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h ^= h >>> 16;
+        return (int) h;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        return n <= 0 ? 1 << 30 : n;
+    }
+}
@@ -0,0 +1,67 @@
+package craftassist.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @AfterEach
+    void tearDown() {
+        LatencyMetrics.reset();
+    }
+
+    @Test
+    void record_percentiles_nearestRank() {
+        for (int i = 1; i <= 20; i++) {
+            LatencyMetrics.record("staged/plan", i * MS);
+        }
+
+        LatencyMetrics.Snapshot snapshot = LatencyMetrics.snapshots().get(0);
+        assertEquals("staged/plan", snapshot.name());
+        assertEquals(20, snapshot.count());
+        assertEquals(10, snapshot.medianMs());
+        assertEquals(19, snapshot.p95Ms());
+        assertEquals(20, snapshot.lastMs());
+    }
+
+    @Test
+    void record_overSampleSize_oldestSamplesDropped() {
+        for (int i = 0; i < LatencyMetrics.SAMPLE_SIZE; i++) {
+            LatencyMetrics.record("combined/total", 1000 * MS);
+        }
+        for (int i = 0; i < LatencyMetrics.SAMPLE_SIZE; i++) {
+            LatencyMetrics.record("combined/total", 5 * MS);
+        }
+
+        LatencyMetrics.Snapshot snapshot = LatencyMetrics.snapshots().get(0);
+        assertEquals(2 * LatencyMetrics.SAMPLE_SIZE, snapshot.count());
+        assertEquals(5, snapshot.p95Ms());
+    }
+
+    @Test
+    void recordFailure_onlyFailures_noSamples() {
+        LatencyMetrics.recordFailure("staged/build");
+        LatencyMetrics.recordFailure("staged/build");
+
+        LatencyMetrics.Snapshot snapshot = LatencyMetrics.snapshots().get(0);
+        assertEquals(0, snapshot.count());
+        assertEquals(2, snapshot.failures());
+        assertEquals(0, snapshot.medianMs());
+    }
+
+    @Test
+    void snapshots_sortedByName() {
+        LatencyMetrics.record("staged/total", MS);
+        LatencyMetrics.record("combined/total", MS);
+        LatencyMetrics.record("staged/build", MS);
+
+        List<String> names = LatencyMetrics.snapshots().stream().map(LatencyMetrics.Snapshot::name).toList();
+        assertEquals(List.of("combined/total", "staged/build", "staged/total"), names);
+    }
+}
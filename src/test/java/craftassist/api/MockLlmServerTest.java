@@ -0,0 +1,257 @@
+package craftassist.api;
+
+import craftassist.config.ModConfig;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockLlmServerTest {
+
+    private MockLlmServer server;
+    private HttpLlmTransport transport;
+    private ModConfig config;
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockLlmServer(0).setSeed(42);
+        transport = new HttpLlmTransport();
+        dir = Files.createTempDirectory("craftassist-llm");
+        config = new ModConfig();
+        config.setApiKey("test");
+        config.setTimeoutSeconds(10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop();
+        transport.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private String send(LlmStage stage) {
+        LlmRequest request = new LlmRequest(stage, "test/model", "system", "user", stage != LlmStage.PLAN);
+        return transport.send(request, config).join();
+    }
+
+    private static String content(String completion) {
+        JsonObject response = JsonParser.parseString(completion).getAsJsonObject();
+        return response.getAsJsonArray("choices").get(0).getAsJsonObject()
+                .getAsJsonObject("message").get("content").getAsString();
+    }
+
+    private void start() throws IOException {
+        server.start();
+        config.setApiUrl(server.getUrl());
+    }
+
+    @Test
+    void send_plainContent_wrappedAsCompletion() throws IOException {
+        server.addResponse(LlmStage.PLAN, "a small wooden hut");
+        start();
+
+        assertEquals("a small wooden hut", content(send(LlmStage.PLAN)));
+    }
+
+    @Test
+    void send_routesByStageHeader() throws IOException {
+        server.addResponse(LlmStage.PLAN, "plan");
+        server.addResponse(LlmStage.BUILD, "{\"blocks\":[]}");
+        server.addResponse(LlmStage.FIX, "{\"regions\":[]}");
+        start();
+
+        assertEquals("{\"blocks\":[]}", content(send(LlmStage.BUILD)));
+        assertEquals("{\"regions\":[]}", content(send(LlmStage.FIX)));
+        assertEquals("plan", content(send(LlmStage.PLAN)));
+    }
+
+    @Test
+    void send_multipleRecordings_roundRobin() throws IOException {
+        server.addResponse(LlmStage.PLAN, "first").addResponse(LlmStage.PLAN, "second");
+        start();
+
+        assertEquals("first", content(send(LlmStage.PLAN)));
+        assertEquals("second", content(send(LlmStage.PLAN)));
+        assertEquals("first", content(send(LlmStage.PLAN)));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void send_withLatency_delaysResponse() throws IOException {
+        server.addResponse(LlmStage.PLAN, "slow").setLatency(200, 0);
+        start();
+
+        long start = System.nanoTime();
+        send(LlmStage.PLAN);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs >= 200, "elapsed " + elapsedMs + "ms");
+    }
+
+    @Test
+    void send_injectedServerError_throwsServerError() throws IOException {
+        server.addResponse(LlmStage.PLAN, "unused").setErrors(1.0, 503);
+        start();
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> send(LlmStage.PLAN));
+        ApiException apiEx = assertInstanceOf(ApiException.class, ex.getCause());
+        assertEquals(ApiException.Type.SERVER_ERROR, apiEx.getType());
+        assertTrue(apiEx.isRetriable());
+    }
+
+    @Test
+    void send_injectedRateLimit_throwsRateLimit() throws IOException {
+        server.addResponse(LlmStage.PLAN, "unused").setErrors(1.0, 429);
+        start();
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> send(LlmStage.PLAN));
+        assertEquals(ApiException.Type.RATE_LIMIT, assertInstanceOf(ApiException.class, ex.getCause()).getType());
+    }
+
+    @Test
+    void send_noRecording_returns404() throws IOException {
+        start();
+
+        CompletionException ex = assertThrows(CompletionException.class, () -> send(LlmStage.BUILD));
+        ApiException apiEx = assertInstanceOf(ApiException.class, ex.getCause());
+        assertEquals(ApiException.Type.NETWORK_ERROR, apiEx.getType());
+        assertTrue(apiEx.getMessage().contains("HTTP 404"));
+    }
+
+    @Test
+    void stream_chunkedContent_deliveredInPieces() throws IOException {
+        String json = "{\"blocks\":[{\"block\":\"minecraft:stone\",\"pos\":[0,0,0]}]}";
+        server.addResponse(LlmStage.BUILD, json).setStreamChunking(8, 0);
+        start();
+        List<String> pieces = new ArrayList<>();
+
+        LlmRequest request = new LlmRequest(LlmStage.BUILD, "test/model", "system", "user", true);
+        String content = transport.stream(request, config, pieces::add).join();
+
+        assertEquals(json, content);
+        assertEquals(json, String.join("", pieces));
+        assertEquals((json.length() + 7) / 8, pieces.size());
+    }
+
+    @Test
+    void stream_recordedCompletion_unwrapped() throws IOException {
+        server.addResponse(LlmStage.PLAN, MockLlmServer.toCompletion("plain blueprint", new JsonObject()));
+        start();
+
+        LlmRequest request = new LlmRequest(LlmStage.PLAN, "test/model", "system", "user", false);
+        assertEquals("plain blueprint", transport.stream(request, config, piece -> { }).join());
+    }
+
+    @Test
+    void stream_injectedError_throwsBeforeContent() throws IOException {
+        server.addResponse(LlmStage.BUILD, "{}").setErrors(1.0, 502);
+        start();
+        List<String> pieces = new ArrayList<>();
+
+        LlmRequest request = new LlmRequest(LlmStage.BUILD, "test/model", "system", "user", true);
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> transport.stream(request, config, pieces::add).join());
+
+        assertEquals(ApiException.Type.SERVER_ERROR, assertInstanceOf(ApiException.class, ex.getCause()).getType());
+        assertTrue(pieces.isEmpty());
+    }
+
+    @Test
+    void stream_slowButSteady_outlastsTimeout() throws IOException {
+        String json = "{\"blocks\":[{\"block\":\"minecraft:stone\",\"pos\":[0,0,0]}]}";
+        // 每 300ms 一段，共約 2.4 秒，超過 1 秒的閒置逾時但從未閒置
+        server.addResponse(LlmStage.BUILD, json).setStreamChunking(6, 300);
+        start();
+        config.setTimeoutSeconds(1);
+
+        LlmRequest request = new LlmRequest(LlmStage.BUILD, "test/model", "system", "user", true);
+        long start = System.nanoTime();
+        String content = transport.stream(request, config, piece -> { }).join();
+
+        assertEquals(json, content);
+        assertTrue((System.nanoTime() - start) / 1_000_000 > 1000);
+    }
+
+    @Test
+    void stream_stalled_timesOut() throws IOException {
+        server.addResponse(LlmStage.BUILD, "{\"blocks\":[]}").setStreamChunking(4, 2500);
+        start();
+        config.setTimeoutSeconds(1);
+
+        LlmRequest request = new LlmRequest(LlmStage.BUILD, "test/model", "system", "user", true);
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> transport.stream(request, config, piece -> { }).join());
+
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+    }
+
+    @Test
+    void readEvents_commentsAndMultilineData_parsed() {
+        List<String> lines = List.of(
+                ": OPENROUTER PROCESSING",
+                "",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"ab\"}}]}",
+                "",
+                "event: message",
+                "data: {\"choices\":",
+                "data: [{\"delta\":{\"content\":\"c\"}}]}",
+                "",
+                "data: {\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}",
+                "",
+                "data: [DONE]",
+                "",
+                "data: {\"choices\":[{\"delta\":{\"content\":\"ignored\"}}]}");
+        List<String> pieces = new ArrayList<>();
+
+        assertEquals("abc", HttpLlmTransport.readEvents(lines.iterator(), pieces::add));
+        assertEquals(List.of("ab", "c"), pieces);
+    }
+
+    @Test
+    void readEvents_errorEvent_throwsServerError() {
+        List<String> lines = List.of("data: {\"error\":{\"message\":\"overloaded\"}}", "");
+
+        ApiException ex = assertThrows(ApiException.class,
+                () -> HttpLlmTransport.readEvents(lines.iterator(), piece -> { }));
+        assertEquals(ApiException.Type.SERVER_ERROR, ex.getType());
+    }
+
+    @Test
+    void recordDir_savedResponses_replayable() throws IOException {
+        server.addResponse(LlmStage.BUILD, "{\"blocks\":[1]}");
+        start();
+        config.setLlmRecordDir(dir.toString());
+        String original = send(LlmStage.BUILD);
+        server.stop();
+
+        MockLlmServer replay = new MockLlmServer(0);
+        try {
+            assertEquals(1, replay.loadRecordings(dir));
+            replay.start();
+            config.setApiUrl(replay.getUrl());
+            config.setLlmRecordDir("");
+
+            assertEquals(original, send(LlmStage.BUILD));
+        } finally {
+            replay.stop();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package craftassist.api;
+
+import craftassist.builder.BuildElementListener;
+import craftassist.builder.BuildStructure;
+import craftassist.config.ModConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenRouterClientTest {
+
+    private static final String CABIN = """
+            {"regions": [{"block": "minecraft:oak_planks", "from": [0,0,0], "to": [4,3,6]}], "blocks": []}
+            """;
+
+    private ModConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ModConfig();
+        config.setResponseCacheEnabled(true);
+        OpenRouterClient.setResponseCache(new ResponseCache(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        OpenRouterClient.setResponseCache(null);
+    }
+
+    @Test
+    void generateBuilding_memoryCacheHit_continuesOffCallerThread() {
+        String blueprint = "a small cabin";
+        LlmRequest request = new LlmRequest(LlmStage.BUILD, config.getModel(),
+                PromptBuilder.buildBuildingPrompt(blueprint, config.getMaxBlocks()),
+                "Generate the complete building JSON following the blueprint above.", true);
+        ResponseCache cache = new ResponseCache(null);
+        cache.put(ResponseCache.key(request), CABIN, config);
+        OpenRouterClient.setResponseCache(cache);
+
+        AtomicReference<Thread> listenerThread = new AtomicReference<>();
+        BuildStructure structure = OpenRouterClient.generateBuilding(blueprint, config, new BuildElementListener() {
+            @Override
+            public void onRegion(int index, BuildStructure.BlockRegion region) {
+                listenerThread.set(Thread.currentThread());
+            }
+
+            @Override
+            public void onBlock(int index, BuildStructure.IndividualBlock block) {
+            }
+        }).join();
+
+        assertEquals(1, structure.getRegions().size());
+        assertNotNull(listenerThread.get());
+        assertNotSame(Thread.currentThread(), listenerThread.get());
+    }
+}
@@ -54,4 +54,19 @@ class PromptBuilderTest {
         assertTrue(prompt.contains("hinge"));
         assertTrue(prompt.contains("axis"));
     }
+
+    @Test
+    void buildCombinedPrompt_asksForPlanBeforeGeometry() {
+        String prompt = PromptBuilder.buildCombinedPrompt(1000);
+        assertTrue(prompt.contains("\"plan\""));
+        assertTrue(prompt.contains("FOOTPRINT"));
+        assertTrue(prompt.indexOf("\"plan\"") < prompt.indexOf("\"regions\""));
+    }
+
+    @Test
+    void buildCombinedPrompt_injectsMaxBlocks() {
+        String prompt = PromptBuilder.buildCombinedPrompt(12345);
+        assertTrue(prompt.contains("12345"));
+        assertTrue(prompt.contains("hinge"));
+    }
 }
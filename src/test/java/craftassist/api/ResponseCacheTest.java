@@ -0,0 +1,161 @@
+package craftassist.api;
+
+import craftassist.config.ModConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private ModConfig config;
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("craftassist-cache");
+        config = new ModConfig();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private ResponseCache cache() {
+        return new ResponseCache(dir, now::get);
+    }
+
+    private static LlmRequest request(String userPrompt) {
+        return new LlmRequest(LlmStage.BUILD, "test/model", "system", userPrompt, true);
+    }
+
+    private long cacheFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(ResponseCache.EXTENSION)).count();
+        }
+    }
+
+    @Test
+    void key_identicalRequests_sameKey() {
+        assertEquals(ResponseCache.key(request("hut")), ResponseCache.key(request("hut")));
+        assertEquals(64, ResponseCache.key(request("hut")).length());
+    }
+
+    @Test
+    void key_anyFieldDiffers_differentKey() {
+        String base = ResponseCache.key(request("hut"));
+
+        assertNotEquals(base, ResponseCache.key(request("tower")));
+        assertNotEquals(base, ResponseCache.key(new LlmRequest(LlmStage.BUILD, "other/model", "system", "hut", true)));
+        assertNotEquals(base, ResponseCache.key(new LlmRequest(LlmStage.BUILD, "test/model", "system2", "hut", true)));
+        // 不同溫度與輸出格式
+        assertNotEquals(base, ResponseCache.key(new LlmRequest(LlmStage.BUILD, "test/model", "system", "hut", false)));
+        // 欄位邊界不同但串接後相同
+        assertNotEquals(ResponseCache.key(new LlmRequest(LlmStage.BUILD, "ab", "c", "hut", true)),
+                ResponseCache.key(new LlmRequest(LlmStage.BUILD, "a", "bc", "hut", true)));
+    }
+
+    @Test
+    void get_afterPut_returnsContent() {
+        ResponseCache cache = cache();
+        cache.put("k", "{\"blocks\":[]}", config);
+
+        assertEquals("{\"blocks\":[]}", cache.get("k", config));
+        assertNull(cache.get("missing", config));
+    }
+
+    @Test
+    void get_expired_returnsNullAndDeletesFile() throws IOException {
+        config.setResponseCacheTtlHours(2);
+        ResponseCache cache = cache();
+        cache.put("k", "plan", config);
+
+        now.addAndGet(HOUR);
+        assertEquals("plan", cache.get("k", config));
+
+        now.addAndGet(HOUR);
+        assertNull(cache.get("k", config));
+        assertEquals(0, cacheFiles());
+    }
+
+    @Test
+    void get_newInstance_readsDiskTier() {
+        cache().put("k", "建築藍圖", config);
+
+        assertEquals("建築藍圖", cache().get("k", config));
+    }
+
+    @Test
+    void memoryTier_overCapacity_evictsLeastRecentlyUsed() {
+        config.setResponseCacheMemoryEntries(2);
+        config.setResponseCacheMaxDiskMb(0);
+        ResponseCache cache = cache();
+        cache.put("a", "1", config);
+        cache.put("b", "2", config);
+        cache.get("a", config);
+        cache.put("c", "3", config);
+
+        assertEquals("1", cache.get("a", config));
+        assertNull(cache.get("b", config));
+        assertEquals("3", cache.get("c", config));
+    }
+
+    @Test
+    void diskTier_overLimit_evictsLeastRecentlyUsed() throws IOException {
+        config.setResponseCacheMaxDiskMb(1);
+        config.setResponseCacheMemoryEntries(0);
+        ResponseCache cache = cache();
+        String big = "x".repeat(400 * 1024);
+
+        cache.put("a", big, config);
+        now.addAndGet(1_000);
+        cache.put("b", big, config);
+        now.addAndGet(1_000);
+        // 讀取 a 使其成為最近使用
+        assertEquals(big, cache.get("a", config));
+        now.addAndGet(1_000);
+        cache.put("c", big, config);
+
+        assertEquals(2, cacheFiles());
+        assertNull(cache.get("b", config));
+        assertEquals(big, cache.get("a", config));
+        assertEquals(big, cache.get("c", config));
+    }
+
+    @Test
+    void lookup_async_completesWithStoredContent() {
+        ResponseCache cache = cache();
+        cache.store("k", "content", config);
+
+        assertEquals("content", cache.lookup("k", config).join());
+        assertNull(cache.lookup("other", config).join());
+    }
+
+    @Test
+    void lookup_memoryHit_completesImmediately() {
+        ResponseCache cache = cache();
+        cache.put("k", "content", config);
+
+        CompletableFuture<String> result = cache.lookup("k", config);
+
+        assertTrue(result.isDone());
+        assertEquals("content", result.join());
+    }
+}
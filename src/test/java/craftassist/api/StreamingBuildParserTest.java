@@ -0,0 +1,131 @@
+package craftassist.api;
+
+import craftassist.builder.BuildElementListener;
+import craftassist.builder.BuildStructure;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingBuildParserTest {
+
+    private static final String JSON = """
+            {
+              "regions": [
+                {"block":"minecraft:stone","from":[0,0,0],"to":[4,0,4],"exclude":[[[1,0,1],[2,0,2]]]},
+                {"block":"minecraft:oak_planks","from":[0,1,0],"to":[4,3,4],"hollow":true,"properties":{"axis":"y"}}
+              ],
+              "note": "braces {inside} \\"strings\\" [ignored]",
+              "blocks": [
+                {"block":"minecraft:oak_door","pos":[2,1,0],"properties":{"facing":"south","half":"lower"}}
+              ]
+            }
+            """;
+
+    /** 依到達順序記錄元素 */
+    private static class Recorder implements BuildElementListener {
+        final List<String> events = new ArrayList<>();
+        int restarts = 0;
+
+        @Override
+        public void onRegion(int index, BuildStructure.BlockRegion region) {
+            events.add("region" + index + ":" + region.getBlock() + Arrays.toString(region.getTo()));
+        }
+
+        @Override
+        public void onBlock(int index, BuildStructure.IndividualBlock block) {
+            events.add("block" + index + ":" + block.getBlock() + Arrays.toString(block.getPos()));
+        }
+
+        @Override
+        public void onRestart() {
+            restarts++;
+        }
+    }
+
+    private static final List<String> EXPECTED = List.of(
+            "region0:minecraft:stone[4, 0, 4]",
+            "region1:minecraft:oak_planks[4, 3, 4]",
+            "block0:minecraft:oak_door[2, 1, 0]");
+
+    @Test
+    void feed_wholeDocument_emitsAllElementsInOrder() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        parser.feed(JSON);
+
+        assertEquals(EXPECTED, recorder.events);
+        assertEquals(3, parser.getElementCount());
+        assertEquals(JSON, parser.getContent());
+    }
+
+    @Test
+    void feed_oneCharAtATime_sameElements() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        for (int i = 0; i < JSON.length(); i++) {
+            parser.feed(JSON.substring(i, i + 1));
+        }
+
+        assertEquals(EXPECTED, recorder.events);
+    }
+
+    @Test
+    void feed_elementEmittedBeforeDocumentEnds() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+        int firstEnd = JSON.indexOf("]},") + 2;
+
+        parser.feed(JSON.substring(0, firstEnd));
+
+        assertEquals(List.of(EXPECTED.get(0)), recorder.events);
+    }
+
+    @Test
+    void feed_markdownFence_ignoredBeforeRoot() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        parser.feed("```json\n{\"blocks\":[{\"block\":\"minecraft:glass\",\"pos\":[0,0,0]}]}\n```");
+
+        assertEquals(List.of("block0:minecraft:glass[0, 0, 0]"), recorder.events);
+    }
+
+    @Test
+    void feed_otherArrays_notEmitted() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        parser.feed("{\"palette\":[{\"block\":\"minecraft:stone\"}],\"regions\":[]}");
+
+        assertTrue(recorder.events.isEmpty());
+    }
+
+    @Test
+    void feed_malformedElement_stopsEmittingThatArray() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        parser.feed("{\"regions\":[{\"block\":\"minecraft:stone\",\"from\":\"oops\"},"
+                + "{\"block\":\"minecraft:glass\",\"from\":[0,0,0],\"to\":[1,1,1]}],"
+                + "\"blocks\":[{\"block\":\"minecraft:glass\",\"pos\":[0,0,0]}]}");
+
+        assertEquals(List.of("block0:minecraft:glass[0, 0, 0]"), recorder.events);
+    }
+
+    @Test
+    void feed_leadingPlanString_elementsStillEmitted() {
+        Recorder recorder = new Recorder();
+        StreamingBuildParser parser = new StreamingBuildParser(recorder);
+
+        parser.feed("{\"plan\":\"walls [0,0,0] {stone}\\nFOOTPRINT: width=5 depth=5 height=4 entrance=south\","
+                + "\"regions\":[{\"block\":\"minecraft:stone\",\"from\":[0,0,0],\"to\":[4,0,4]}]}");
+
+        assertEquals(List.of("region0:minecraft:stone[4, 0, 4]"), recorder.events);
+    }
+}
@@ -0,0 +1,86 @@
+package craftassist.builder;
+
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BlockStatePaletteTest {
+
+    /** 記錄每次解析的組合，只接受 minecraft: 開頭的方塊 */
+    private final List<String> resolved = new ArrayList<>();
+    private final Map<String, BlockState> states = new HashMap<>();
+    private final BlockStatePalette palette = new BlockStatePalette((blockId, facing, properties) -> {
+        String key = blockId + "|" + facing + "|" + properties;
+        resolved.add(key);
+        return blockId.startsWith("minecraft:") ? states.computeIfAbsent(key, k -> mock(BlockState.class)) : null;
+    });
+
+    @Test
+    void sameTuple_resolvedOnce() {
+        BuildStructure.IndividualBlock a = new BuildStructure.IndividualBlock("minecraft:oak_stairs",
+                new int[]{0, 0, 0}, new HashMap<>(Map.of("facing", "east", "half", "top")));
+        BuildStructure.IndividualBlock b = new BuildStructure.IndividualBlock("minecraft:oak_stairs",
+                new int[]{1, 0, 0}, new HashMap<>(Map.of("half", "top", "facing", "east")));
+
+        BlockState first = palette.blockState(a);
+        BlockState second = palette.blockState(b);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1, resolved.size());
+        assertEquals(1, palette.size());
+    }
+
+    @Test
+    void invalidBlock_cachedAsNull() {
+        BuildStructure.IndividualBlock block = new BuildStructure.IndividualBlock("bogus", new int[]{0, 0, 0}, null);
+
+        assertNull(palette.blockState(block));
+        assertNull(palette.blockState(block));
+        assertEquals(1, resolved.size());
+    }
+
+    @Test
+    void regionWithProperties_ignoresFacing() {
+        BuildStructure.BlockRegion withFacing = new BuildStructure.BlockRegion("minecraft:oak_log",
+                new int[]{0, 0, 0}, new int[]{1, 1, 1}, false, "north", Map.of("axis", "x"), null);
+        BuildStructure.BlockRegion withoutFacing = new BuildStructure.BlockRegion("minecraft:oak_log",
+                new int[]{0, 0, 0}, new int[]{1, 1, 1}, false, null, Map.of("axis", "x"), null);
+
+        assertSame(palette.regionState(withFacing), palette.regionState(withoutFacing));
+        assertEquals(List.of("minecraft:oak_log|null|{axis=x}"), resolved);
+    }
+
+    @Test
+    void regionWithoutProperties_usesFacing() {
+        BuildStructure.BlockRegion north = new BuildStructure.BlockRegion("minecraft:furnace",
+                new int[]{0, 0, 0}, new int[]{0, 0, 0}, false, "north", Map.of(), null);
+        BuildStructure.BlockRegion south = new BuildStructure.BlockRegion("minecraft:furnace",
+                new int[]{0, 0, 0}, new int[]{0, 0, 0}, false, "south", null, null);
+
+        assertNotSame(palette.regionState(north), palette.regionState(south));
+        assertEquals(List.of("minecraft:furnace|north|null", "minecraft:furnace|south|null"), resolved);
+    }
+
+    @Test
+    void propertiesMutatedAfterLookup_cacheKeyUnaffected() {
+        Map<String, String> properties = new HashMap<>(Map.of("facing", "east"));
+        BuildStructure.IndividualBlock block = new BuildStructure.IndividualBlock("minecraft:chest",
+                new int[]{0, 0, 0}, properties);
+        BlockState east = palette.blockState(block);
+
+        // 旋轉會直接修改屬性 Map
+        properties.put("facing", "south");
+        BlockState south = palette.blockState(block);
+
+        assertNotSame(east, south);
+        assertEquals(2, palette.size());
+    }
+}
@@ -0,0 +1,76 @@
+package craftassist.builder;
+
+import net.minecraft.core.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildFootprintTest {
+
+    @Test
+    void parse_declarationLine_returnsFootprint() {
+        String blueprint = """
+                一棟兩層木屋，南側有門廊。
+                FOOTPRINT: width=7 depth=9 height=10 entrance=south
+                """;
+
+        BuildFootprint footprint = BuildFootprint.parse(blueprint);
+
+        assertEquals(new BuildFootprint(7, 9, 10, Direction.SOUTH), footprint);
+    }
+
+    @Test
+    void parse_caseInsensitiveWithCommas_returnsFootprint() {
+        BuildFootprint footprint = BuildFootprint.parse("footprint: Width=12, Depth=5, Height=4, Entrance=EAST");
+
+        assertEquals(new BuildFootprint(12, 5, 4, Direction.EAST), footprint);
+    }
+
+    @Test
+    void parse_multipleDeclarations_usesLast() {
+        String blueprint = """
+                FOOTPRINT: width=7 depth=9 height=10 entrance=south
+                修正後：
+                FOOTPRINT: width=8 depth=8 height=6 entrance=north
+                """;
+
+        assertEquals(new BuildFootprint(8, 8, 6, Direction.NORTH), BuildFootprint.parse(blueprint));
+    }
+
+    @Test
+    void parse_missingDeclaration_returnsNull() {
+        assertNull(BuildFootprint.parse("一棟小木屋"));
+        assertNull(BuildFootprint.parse(null));
+    }
+
+    @Test
+    void parse_invalidSize_returnsNull() {
+        assertNull(BuildFootprint.parse("FOOTPRINT: width=0 depth=9 height=10 entrance=south"));
+        assertNull(BuildFootprint.parse("FOOTPRINT: width=7 depth=5000 height=10 entrance=south"));
+        assertNull(BuildFootprint.parse("FOOTPRINT: width=99999999999 depth=9 height=10 entrance=south"));
+    }
+
+    @Test
+    void rotatedBoundingBox_oddRotations_swapsXZ() {
+        BuildFootprint footprint = new BuildFootprint(7, 9, 10, Direction.SOUTH);
+
+        BuildingOffsetCalculator.BoundingBox straight = footprint.rotatedBoundingBox(2);
+        BuildingOffsetCalculator.BoundingBox turned = footprint.rotatedBoundingBox(1);
+
+        assertEquals(6, straight.maxX());
+        assertEquals(8, straight.maxZ());
+        assertEquals(8, turned.maxX());
+        assertEquals(6, turned.maxZ());
+        assertEquals(9, turned.maxY());
+    }
+
+    @Test
+    void rotationsFor_matchesRotator() {
+        BuildFootprint footprint = new BuildFootprint(7, 9, 10, Direction.NORTH);
+
+        for (Direction facing : new Direction[]{Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST}) {
+            assertEquals(BuildStructureRotator.computeRotationCount(Direction.NORTH, facing),
+                    footprint.rotationsFor(facing));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package craftassist.builder;
+
+import com.google.gson.Gson;
+import craftassist.config.ModConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildStructureRepairerTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final List<String> KNOWN_BLOCKS = List.of(
+            "minecraft:cobblestone", "minecraft:glass", "minecraft:glass_pane", "minecraft:oak_door",
+            "minecraft:oak_planks", "minecraft:oak_stairs", "minecraft:stone", "minecraft:stone_bricks");
+    private static final Predicate<String> BLOCK_VALIDATOR = new HashSet<>(KNOWN_BLOCKS)::contains;
+
+    private ModConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ModConfig();
+        config.setMaxCoordinate(50);
+        config.setMaxRegionVolume(1000);
+    }
+
+    private BuildStructureRepairer.RepairResult repair(String json) {
+        return BuildStructureRepairer.repair(GSON.fromJson(json, BuildStructure.class), config,
+                BLOCK_VALIDATOR, KNOWN_BLOCKS);
+    }
+
+    private void assertValid(BuildStructure structure) {
+        var result = BuildStructureValidator.validate(structure, config, BLOCK_VALIDATOR);
+        assertFalse(result.hasIssues(), result.getReport());
+    }
+
+    @Test
+    void validStructure_unchanged() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[0,0,0],"to":[4,3,4],"hollow":true}],
+                 "blocks":[{"block":"minecraft:oak_door","pos":[2,1,0]}]}
+                """);
+
+        assertTrue(result.getRepairs().isEmpty());
+        BuildStructure.BlockRegion region = result.getStructure().getRegions().get(0);
+        assertArrayEquals(new int[]{0, 0, 0}, region.getFrom());
+        assertArrayEquals(new int[]{4, 3, 4}, region.getTo());
+        assertTrue(region.isHollow());
+        assertEquals(1, result.getStructure().getBlocks().size());
+    }
+
+    @Test
+    void regionOutOfRange_clippedToMaxCoordinate() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[-60,0,45],"to":[3,0,70]}]}
+                """);
+
+        BuildStructure.BlockRegion region = result.getStructure().getRegions().get(0);
+        assertArrayEquals(new int[]{-50, 0, 45}, region.getFrom());
+        assertArrayEquals(new int[]{3, 0, 50}, region.getTo());
+        assertEquals(1, result.getRepairs().size());
+    }
+
+    @Test
+    void hollowRegionOutOfRange_keepsOnlyOriginalShellInRange() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[-55,0,0],"to":[4,4,4],"hollow":true}]}
+                """);
+
+        List<BuildStructure.BlockRegion> regions = result.getStructure().getRegions();
+        assertValid(result.getStructure());
+        Set<String> expected = new HashSet<>();
+        for (String cell : cells(-50, 0, 0, 4, 4, 4)) {
+            int[] p = parseCell(cell);
+            if (p[0] == 4 || p[1] == 0 || p[1] == 4 || p[2] == 0 || p[2] == 4) {
+                expected.add(cell);
+            }
+        }
+        // 裁切面 x = -50 原本是內部空氣，不可補上新牆
+        assertEquals(expected, cellsOf(regions));
+        assertEquals(expected.size(), countCells(regions));
+        assertTrue(regions.stream().noneMatch(BuildStructure.BlockRegion::isHollow));
+    }
+
+    @Test
+    void regionEntirelyOutOfRange_dropped() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[60,0,0],"to":[70,0,0]}]}
+                """);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void oversizedRegion_splitIntoLegalPiecesCoveringSameCells() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[0,0,0],"to":[19,9,19],
+                             "properties":{"axis":"y"}}]}
+                """);
+
+        List<BuildStructure.BlockRegion> regions = result.getStructure().getRegions();
+        assertTrue(regions.size() > 1);
+        assertValid(result.getStructure());
+        assertEquals(cells(0, 0, 0, 19, 9, 19), cellsOf(regions));
+        assertEquals(4000, countCells(regions));
+        // 每塊有自己的屬性 Map
+        assertNotSame(regions.get(0).getProperties(), regions.get(1).getProperties());
+        assertEquals("y", regions.get(1).getProperties().get("axis"));
+    }
+
+    @Test
+    void oversizedHollowRegion_splitIntoShellFacesOnly() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:stone","from":[0,0,0],"to":[29,29,29],"hollow":true}]}
+                """);
+
+        List<BuildStructure.BlockRegion> regions = result.getStructure().getRegions();
+        assertValid(result.getStructure());
+        Set<String> expected = new HashSet<>();
+        for (String cell : cells(0, 0, 0, 29, 29, 29)) {
+            int[] p = parseCell(cell);
+            if (p[0] == 0 || p[0] == 29 || p[1] == 0 || p[1] == 29 || p[2] == 0 || p[2] == 29) {
+                expected.add(cell);
+            }
+        }
+        assertEquals(expected, cellsOf(regions));
+        // 面與面之間不重疊
+        assertEquals(expected.size(), countCells(regions));
+        assertTrue(regions.stream().noneMatch(BuildStructure.BlockRegion::isHollow));
+    }
+
+    @Test
+    void unknownBlockId_mappedToNearestKnownBlock() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:oak_plank","from":[0,0,0],"to":[1,0,1]},
+                            {"block":"Stone Bricks","from":[0,1,0],"to":[1,1,1]},
+                            {"block":"cobble_stone","from":[0,2,0],"to":[1,2,1]}],
+                 "blocks":[{"block":"minecraft:glass_panes","pos":[0,3,0]}]}
+                """);
+
+        List<BuildStructure.BlockRegion> regions = result.getStructure().getRegions();
+        assertEquals("minecraft:oak_planks", regions.get(0).getBlock());
+        assertEquals("minecraft:stone_bricks", regions.get(1).getBlock());
+        assertEquals("minecraft:cobblestone", regions.get(2).getBlock());
+        assertEquals("minecraft:glass_pane", result.getStructure().getBlocks().get(0).getBlock());
+        assertValid(result.getStructure());
+    }
+
+    @Test
+    void blockStateSuffix_movedIntoProperties() {
+        var result = repair("""
+                {"blocks":[{"block":"minecraft:oak_stairs[facing=east,half=top]","pos":[0,0,0],
+                            "properties":{"half":"bottom"}}]}
+                """);
+
+        BuildStructure.IndividualBlock block = result.getStructure().getBlocks().get(0);
+        assertEquals("minecraft:oak_stairs", block.getBlock());
+        // 原有屬性優先
+        assertEquals(Map.of("facing", "east", "half", "bottom"), block.getProperties());
+    }
+
+    @Test
+    void unknownBlockIdWithoutCloseMatch_leftForFixStage() {
+        var result = repair("""
+                {"regions":[{"block":"minecraft:diamond_block","from":[0,0,0],"to":[1,0,1]}]}
+                """);
+
+        assertEquals("minecraft:diamond_block", result.getStructure().getRegions().get(0).getBlock());
+        var validation = BuildStructureValidator.validate(result.getStructure(), config, BLOCK_VALIDATOR);
+        assertEquals(1, validation.getIssues().size());
+    }
+
+    @Test
+    void brokenEntries_dropped() {
+        var result = repair("""
+                {"regions":[{"from":[0,0,0],"to":[1,1,1]},
+                            {"block":"minecraft:stone","from":[0,0],"to":[1,1,1]},
+                            {"block":"minecraft:stone","from":[0,0,0],"to":[1,1,1]}],
+                 "blocks":[{"block":"minecraft:glass"},
+                           {"block":"minecraft:glass","pos":[0,99,0]},
+                           {"block":"minecraft:glass","pos":[0,2,0]}]}
+                """);
+
+        assertEquals(1, result.getStructure().getRegions().size());
+        assertEquals(1, result.getStructure().getBlocks().size());
+        assertEquals(4, result.getRepairs().size());
+        assertValid(result.getStructure());
+    }
+
+    @Test
+    void boundedDistance_exceedsLimit_returnsLimitPlusOne() {
+        assertEquals(1, BuildStructureRepairer.boundedDistance("oak_plank", "oak_planks", 2));
+        assertEquals(3, BuildStructureRepairer.boundedDistance("kitten", "sitting", 3));
+        assertEquals(3, BuildStructureRepairer.boundedDistance("stone", "diamond_block", 2));
+    }
+
+    private static Set<String> cells(int x0, int y0, int z0, int x1, int y1, int z1) {
+        Set<String> cells = new HashSet<>();
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    cells.add(x + "," + y + "," + z);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static Set<String> cellsOf(List<BuildStructure.BlockRegion> regions) {
+        Set<String> cells = new HashSet<>();
+        for (BuildStructure.BlockRegion r : regions) {
+            cells.addAll(cells(r.getFrom()[0], r.getFrom()[1], r.getFrom()[2],
+                    r.getTo()[0], r.getTo()[1], r.getTo()[2]));
+        }
+        return cells;
+    }
+
+    private static int countCells(List<BuildStructure.BlockRegion> regions) {
+        int count = 0;
+        for (BuildStructure.BlockRegion r : regions) {
+            count += (r.getTo()[0] - r.getFrom()[0] + 1) * (r.getTo()[1] - r.getFrom()[1] + 1)
+                    * (r.getTo()[2] - r.getFrom()[2] + 1);
+        }
+        return count;
+    }
+
+    private static int[] parseCell(String cell) {
+        String[] parts = cell.split(",");
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+}
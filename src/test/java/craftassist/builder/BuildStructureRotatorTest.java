@@ -429,6 +429,34 @@ class BuildStructureRotatorTest {
         assertEquals("upper", structure.getBlocks().get(0).getProperties().get("half"));
     }
 
+    // ==================== 逐元素旋轉測試 ====================
+
+    @Test
+    void rotateElements_structureFillsFootprint_matchesRotateStructure() {
+        for (int rotations = 1; rotations <= 3; rotations++) {
+            BuildStructure whole = buildTestHouse("north");
+            BuildStructure perElement = buildTestHouse("north");
+
+            BuildStructureRotator.rotateStructure(whole, rotations);
+            // 測試房子佔地 7x9
+            for (BuildStructure.BlockRegion region : perElement.getRegions()) {
+                BuildStructureRotator.rotateRegion(region, rotations, 7, 9);
+            }
+            for (BuildStructure.IndividualBlock block : perElement.getBlocks()) {
+                BuildStructureRotator.rotateBlock(block, rotations, 7, 9);
+            }
+
+            for (int i = 0; i < whole.getRegions().size(); i++) {
+                assertArrayEquals(whole.getRegions().get(i).getFrom(), perElement.getRegions().get(i).getFrom());
+                assertArrayEquals(whole.getRegions().get(i).getTo(), perElement.getRegions().get(i).getTo());
+            }
+            for (int i = 0; i < whole.getBlocks().size(); i++) {
+                assertArrayEquals(whole.getBlocks().get(i).getPos(), perElement.getBlocks().get(i).getPos());
+                assertEquals(whole.getBlocks().get(i).getProperties(), perElement.getBlocks().get(i).getProperties());
+            }
+        }
+    }
+
     // ==================== 端到端整合測試 ====================
 
     /**
@@ -96,6 +96,21 @@ class BuildStructureValidatorTest {
                 .anyMatch(s -> s.contains("體積")));
     }
 
+    @Test
+    void hollowRegion_volumeCountsShellOnly() {
+        // 100x100x100 外殼約 6 萬格，實心體積為 100 萬
+        BuildStructure structure = parse("""
+                {
+                  "regions": [{"block":"minecraft:stone","from":[0,0,0],"to":[99,99,99],"hollow":true}]
+                }
+                """);
+
+        assertFalse(BuildStructureValidator.validate(structure, config, BLOCK_VALIDATOR).hasIssues());
+
+        config.setMaxRegionVolume(50_000);
+        assertTrue(BuildStructureValidator.validate(structure, config, BLOCK_VALIDATOR).hasIssues());
+    }
+
     @Test
     void missingFromArray_reportedAsIssue() {
         BuildStructure structure = parse("""
@@ -190,4 +205,56 @@ class BuildStructureValidatorTest {
         assertTrue(result.hasIssues());
         assertTrue(result.getIssues().size() >= 2);
     }
+
+    @Test
+    void incremental_sameIssuesAsFullValidation() {
+        BuildStructure structure = parse("""
+                {
+                  "regions": [
+                    {"block":"minecraft:invalid_block","from":[0,0,0],"to":[4,3,4]},
+                    {"block":"minecraft:stone","from":[0,0,0],"to":[999,0,0]}
+                  ],
+                  "blocks": [{"block":"minecraft:glass","pos":[0,500,0]}]
+                }
+                """);
+        var incremental = new BuildStructureValidator.Incremental(config, BLOCK_VALIDATOR);
+
+        // 串流時區域與方塊可能交錯送達
+        incremental.onRegion(0, structure.getRegions().get(0));
+        incremental.onBlock(0, structure.getBlocks().get(0));
+        incremental.onRegion(1, structure.getRegions().get(1));
+
+        assertTrue(incremental.covers(structure));
+        assertEquals(BuildStructureValidator.validate(structure, config, BLOCK_VALIDATOR).getIssues(),
+                incremental.getResult().getIssues());
+    }
+
+    @Test
+    void incremental_restart_discardsEarlierElements() {
+        BuildStructure structure = parse("""
+                {"regions": [{"block":"minecraft:stone","from":[0,0,0],"to":[1,1,1]}]}
+                """);
+        var incremental = new BuildStructureValidator.Incremental(config, BLOCK_VALIDATOR);
+        incremental.onRegion(0, parse("""
+                {"regions": [{"block":"minecraft:bad","from":[0,0,0],"to":[1,1,1]}]}
+                """).getRegions().get(0));
+
+        incremental.onRestart();
+        incremental.onRegion(0, structure.getRegions().get(0));
+
+        assertTrue(incremental.covers(structure));
+        assertFalse(incremental.getResult().hasIssues());
+    }
+
+    @Test
+    void incremental_missingElements_doesNotCover() {
+        BuildStructure structure = parse("""
+                {"regions": [{"block":"minecraft:stone","from":[0,0,0],"to":[1,1,1]}],
+                 "blocks": [{"block":"minecraft:glass","pos":[0,0,0]}]}
+                """);
+        var incremental = new BuildStructureValidator.Incremental(config, BLOCK_VALIDATOR);
+        incremental.onRegion(0, structure.getRegions().get(0));
+
+        assertFalse(incremental.covers(structure));
+    }
 }
@@ -0,0 +1,121 @@
+package craftassist.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CuboidSubtractionTest {
+
+    private static Set<Long> cells(int[] boxes) {
+        Set<Long> cells = new HashSet<>();
+        for (int b = 0; b < boxes.length; b += CuboidSubtraction.STRIDE) {
+            for (int x = boxes[b]; x <= boxes[b + 3]; x++) {
+                for (int y = boxes[b + 1]; y <= boxes[b + 4]; y++) {
+                    for (int z = boxes[b + 2]; z <= boxes[b + 5]; z++) {
+                        cells.add(((long) x << 40) | ((long) (y & 0xFFFFF) << 20) | (z & 0xFFFFF));
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static long totalVolume(int[] boxes) {
+        long total = 0;
+        for (int b = 0; b < boxes.length; b += CuboidSubtraction.STRIDE) {
+            total += CuboidSubtraction.volume(boxes, b);
+        }
+        return total;
+    }
+
+    @Test
+    void subtract_noHoles_returnsBox() {
+        int[] box = {0, 0, 0, 3, 3, 3};
+
+        assertArrayEquals(box, CuboidSubtraction.subtract(box, new int[0], 16));
+    }
+
+    @Test
+    void subtract_disjointHole_returnsBox() {
+        int[] box = {0, 0, 0, 3, 3, 3};
+
+        assertArrayEquals(box, CuboidSubtraction.subtract(box, new int[]{5, 0, 0, 6, 3, 3}, 16));
+    }
+
+    @Test
+    void subtract_centerHole_sixDisjointPieces() {
+        int[] box = {0, 0, 0, 4, 4, 4};
+        int[] hole = {1, 1, 1, 3, 3, 3};
+
+        int[] pieces = CuboidSubtraction.subtract(box, hole, 16);
+
+        assertEquals(6 * CuboidSubtraction.STRIDE, pieces.length);
+        Set<Long> expected = cells(box);
+        expected.removeAll(cells(hole));
+        assertEquals(expected, cells(pieces));
+        // 互不重疊：體積總和等於格子數
+        assertEquals(expected.size(), totalVolume(pieces));
+    }
+
+    @Test
+    void subtract_overlappingHoles_exactRemainder() {
+        int[] box = {-5, 0, -5, 5, 6, 5};
+        int[] holes = {
+                -1, 1, -5, 1, 3, -5,   // 門
+                -4, 2, 5, -2, 4, 5,    // 窗
+                -3, 3, 5, 3, 5, 5,     // 與窗重疊
+                4, 0, 4, 9, 9, 9       // 超出 region 的角落
+        };
+
+        int[] pieces = CuboidSubtraction.subtract(box, holes, 256);
+
+        Set<Long> expected = cells(box);
+        expected.removeAll(cells(holes));
+        assertEquals(expected, cells(pieces));
+        assertEquals(expected.size(), totalVolume(pieces));
+    }
+
+    @Test
+    void subtract_holeCoversBox_empty() {
+        int[] pieces = CuboidSubtraction.subtract(new int[]{1, 1, 1, 2, 2, 2}, new int[]{0, 0, 0, 3, 3, 3}, 16);
+
+        assertEquals(0, pieces.length);
+    }
+
+    @Test
+    void shell_facesDisjointAndCoverSurface() {
+        int[] box = {-2, 0, 3, 4, 5, 7};
+
+        int[] faces = CuboidSubtraction.shell(box);
+
+        assertEquals(6 * CuboidSubtraction.STRIDE, faces.length);
+        Set<Long> expected = cells(box);
+        expected.removeAll(cells(new int[]{-1, 1, 4, 3, 4, 6}));
+        assertEquals(expected, cells(faces));
+        assertEquals(expected.size(), totalVolume(faces));
+        assertEquals(expected.size(), CuboidSubtraction.emittedVolume(box, true));
+    }
+
+    @Test
+    void shell_noInterior_returnsBox() {
+        int[] box = {0, 0, 0, 9, 1, 9};
+
+        assertArrayEquals(box, CuboidSubtraction.shell(box));
+        assertEquals(200, CuboidSubtraction.emittedVolume(box, true));
+    }
+
+    @Test
+    void subtract_tooManyPieces_returnsNull() {
+        int[] holes = new int[10 * CuboidSubtraction.STRIDE];
+        for (int i = 0; i < 10; i++) {
+            int x = i * 2 + 1;
+            System.arraycopy(new int[]{x, 1, 1, x, 1, 1}, 0, holes, i * CuboidSubtraction.STRIDE,
+                    CuboidSubtraction.STRIDE);
+        }
+
+        assertNull(CuboidSubtraction.subtract(new int[]{0, 0, 0, 20, 2, 2}, holes, 8));
+    }
+}
@@ -0,0 +1,93 @@
+package craftassist.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairSchedulerTest {
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values) total += v;
+        return total;
+    }
+
+    @Test
+    void totalGrant_neverExceedsBudget() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        List<String> tasks = List.of("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        int[] weights = {1, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+
+        for (int tick = 0; tick < 50; tick++) {
+            int[] grants = scheduler.allocate(tasks, weights, 500);
+            assertTrue(sum(grants) <= 500);
+            for (int i = 0; i < tasks.size(); i++) {
+                scheduler.consume(tasks.get(i), grants[i]);
+            }
+        }
+    }
+
+    @Test
+    void equalWeights_shareEvenlyOverTime() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        List<String> tasks = List.of("a", "b", "c");
+        int[] weights = {1, 1, 1};
+        long[] totals = new long[3];
+
+        for (int tick = 0; tick < 300; tick++) {
+            int[] grants = scheduler.allocate(tasks, weights, 100);
+            for (int i = 0; i < 3; i++) {
+                totals[i] += grants[i];
+                scheduler.consume(tasks.get(i), grants[i]);
+            }
+        }
+
+        assertEquals(totals[0], totals[1], 300);
+        assertEquals(totals[1], totals[2], 300);
+    }
+
+    @Test
+    void weights_controlShare() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        List<String> tasks = List.of("build", "undo");
+        int[] weights = {1, 3};
+
+        int[] grants = scheduler.allocate(tasks, weights, 400);
+
+        assertEquals(100, grants[0]);
+        assertEquals(300, grants[1]);
+    }
+
+    @Test
+    void unusedDeficit_isCapped() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        List<String> tasks = List.of("idle");
+        int[] weights = {1};
+
+        // 任務連續多個 tick 沒有使用額度
+        for (int tick = 0; tick < 10; tick++) {
+            scheduler.allocate(tasks, weights, 100);
+        }
+
+        assertEquals(200, scheduler.getDeficit("idle"));
+    }
+
+    @Test
+    void retain_dropsFinishedTasks() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        scheduler.allocate(List.of("a", "b"), new int[]{1, 1}, 100);
+
+        scheduler.retain(List.of("b"));
+
+        assertEquals(0, scheduler.getDeficit("a"));
+        assertEquals(50, scheduler.getDeficit("b"));
+    }
+
+    @Test
+    void emptyTaskList_returnsEmptyGrants() {
+        FairScheduler<String> scheduler = new FairScheduler<>();
+        assertEquals(0, scheduler.allocate(List.of(), new int[0], 100).length);
+    }
+}
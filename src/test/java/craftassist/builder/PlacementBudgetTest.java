@@ -0,0 +1,89 @@
+package craftassist.builder;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementBudgetTest {
+
+    private static final long SLICE = 10_000_000L; // 10ms
+    private static final long IDLE_TICK = 5_000_000L;
+
+    @Test
+    void initialRate_usesConfiguredBlocksPerTick() {
+        PlacementBudget budget = new PlacementBudget(500);
+        assertEquals(500, budget.getBlocksPerTick());
+        assertEquals(-1, budget.getNanosPerBlock(), 0.0);
+    }
+
+    @Test
+    void fastPlacement_withSpareTime_growsTowardSlice() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        // 每方塊 1µs：500 方塊只用 0.5ms，遠低於 10ms 時間片
+        for (int i = 0; i < 20; i++) {
+            int placed = budget.getBlocksPerTick();
+            budget.record(placed * 1_000L, placed, IDLE_TICK + placed * 1_000L, SLICE, 100_000);
+        }
+
+        assertEquals(10_000, budget.getBlocksPerTick());
+    }
+
+    @Test
+    void growth_isLimitedToDoublingPerTick() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        budget.record(500 * 1_000L, 500, IDLE_TICK, SLICE, 100_000);
+
+        assertEquals(1000, budget.getBlocksPerTick());
+    }
+
+    @Test
+    void slowPlacement_shrinksToFitSlice() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        // 每方塊 100µs：500 方塊要 50ms
+        budget.record(50_000_000L, 500, 55_000_000L, SLICE, 100_000);
+
+        assertEquals(100, budget.getBlocksPerTick());
+    }
+
+    @Test
+    void laggingServer_shrinksEffectiveSlice() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        // 放置 1ms，但伺服器其他工作已佔 48ms，只剩 2ms
+        budget.record(1_000_000L, 500, 49_000_000L, SLICE, 100_000);
+
+        assertEquals(2_000_000L, budget.getEffectiveSliceNanos());
+        assertEquals(1000, budget.getBlocksPerTick());
+    }
+
+    @Test
+    void overloadedServer_keepsMinimumSlice() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        budget.record(1_000_000L, 500, 120_000_000L, SLICE, 100_000);
+
+        assertEquals(SLICE / 10, budget.getEffectiveSliceNanos());
+    }
+
+    @Test
+    void underfilledTick_doesNotGrow() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        // 來源只提供 50 個方塊，不應因空轉而放大預算
+        budget.record(50_000L, 50, IDLE_TICK, SLICE, 100_000);
+
+        assertEquals(500, budget.getBlocksPerTick());
+    }
+
+    @Test
+    void rate_isClampedToMaximum() {
+        PlacementBudget budget = new PlacementBudget(500);
+
+        budget.record(500L, 500, IDLE_TICK, SLICE, 800);
+
+        assertEquals(800, budget.getBlocksPerTick());
+    }
+}
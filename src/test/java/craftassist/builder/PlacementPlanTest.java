@@ -0,0 +1,405 @@
+package craftassist.builder;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementPlanTest {
+
+    private static List<Long> drain(PlacementPlan plan) {
+        List<Long> result = new ArrayList<>();
+        PlacementPlan.Cursor cursor = plan.cursor();
+        while (cursor.advance()) {
+            result.add(cursor.pos());
+        }
+        return result;
+    }
+
+    private static long pos(int x, int y, int z) {
+        return BlockPos.asLong(x, y, z);
+    }
+
+    @Test
+    void singleRegion_emitsFullVolume() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 2, 1, 3, stone, false, null);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(3 * 2 * 4, positions.size());
+        assertEquals(positions.size(), new HashSet<>(positions).size());
+    }
+
+    @Test
+    void reversedFromTo_isNormalized() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(2, 2, 2, 0, 0, 0, stone, false, null);
+
+        assertEquals(27, drain(builder.build()).size());
+    }
+
+    @Test
+    void origin_isAppliedToRegionsBlocksAndExcludes() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(new BlockPos(100, 64, -50));
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 1, 0, 0, stone, false,
+                List.<int[][]>of(new int[][]{{1, 0, 0}, {1, 0, 0}}));
+        builder.addBlock(5, 1, 5, stone);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(List.of(pos(100, 64, -50), pos(105, 65, -45)), positions);
+    }
+
+    @Test
+    void overlappingRegions_laterWins_eachPositionOnce() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int a = builder.addState(null, 0);
+        int b = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 3, 0, 0, a, false, null);
+        builder.addRegion(2, 0, 0, 5, 0, 0, b, false, null);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(6, positions.size());
+        assertEquals(positions.size(), new HashSet<>(positions).size());
+        // 第一個 region 只剩未被覆蓋的 x=0,1
+        assertEquals(pos(0, 0, 0), positions.get(0));
+        assertEquals(pos(1, 0, 0), positions.get(1));
+        assertEquals(pos(2, 0, 0), positions.get(2));
+    }
+
+    @Test
+    void individualBlock_overridesRegion_andFollowsItsPhase() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int wall = builder.addState(null, 0);
+        int torch = builder.addState(null, 3);
+        builder.addRegion(0, 0, 0, 2, 0, 0, wall, false, null);
+        builder.addBlock(1, 0, 0, torch);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(List.of(pos(0, 0, 0), pos(2, 0, 0), pos(1, 0, 0)), positions);
+    }
+
+    @Test
+    void duplicateBlocks_keepLastOnly() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int early = builder.addState(null, 0);
+        int late = builder.addState(null, 2);
+        builder.addBlock(0, 0, 0, early);
+        builder.addBlock(1, 0, 0, early);
+        builder.addBlock(0, 0, 0, late);
+
+        List<Long> positions = drain(builder.build());
+
+        // (0,0,0) 最後一次是 phase 2，排在 phase 0 的 (1,0,0) 之後
+        assertEquals(List.of(pos(1, 0, 0), pos(0, 0, 0)), positions);
+    }
+
+    @Test
+    void hollowRegion_emitsShellOnly() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 4, 4, 4, stone, true, null);
+
+        PlacementPlan plan = builder.build();
+        List<Long> positions = drain(plan);
+
+        assertEquals(125 - 27, positions.size());
+        assertFalse(positions.contains(pos(2, 2, 2)));
+        assertEquals(125 - 27, plan.getEstimatedBlocks());
+    }
+
+    @Test
+    void hollowRegion_visitsShellCellsOnly() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 99, 99, 99, stone, true, null);
+        PlacementPlan.Cursor cursor = builder.build().cursor();
+
+        Set<Long> positions = new HashSet<>();
+        while (cursor.advance()) {
+            positions.add(cursor.pos());
+        }
+
+        int shell = 100 * 100 * 100 - 98 * 98 * 98;
+        assertEquals(shell, positions.size());
+        assertEquals(shell, cursor.progress());
+        assertFalse(positions.contains(pos(50, 50, 50)));
+        assertTrue(positions.contains(pos(99, 99, 99)));
+    }
+
+    @Test
+    void hollowRegion_thinBox_emittedWhole() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int glass = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 4, 1, 4, glass, true, null);
+
+        assertEquals(50, new HashSet<>(drain(builder.build())).size());
+    }
+
+    @Test
+    void excludedBoxes_areSkipped() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 4, 3, 0, stone, false,
+                List.<int[][]>of(new int[][]{{2, 1, 0}, {2, 2, 0}}));
+
+        Set<Long> positions = new HashSet<>(drain(builder.build()));
+
+        assertEquals(20 - 2, positions.size());
+        assertFalse(positions.contains(pos(2, 1, 0)));
+        assertFalse(positions.contains(pos(2, 2, 0)));
+    }
+
+    @Test
+    void excludedBoxes_solidRegionSplit_excludedCellsNeverVisited() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 9, 9, 9, stone, false,
+                List.<int[][]>of(new int[][]{{2, 2, 2}, {7, 7, 7}}, new int[][]{{0, 0, 0}, {0, 9, 0}}));
+        PlacementPlan plan = builder.build();
+        PlacementPlan.Cursor cursor = plan.cursor();
+
+        int count = 0;
+        while (cursor.advance()) {
+            count++;
+        }
+
+        assertEquals(1000 - 216 - 10, count);
+        assertEquals(count, cursor.progress());
+        assertTrue(plan.getRegionCount() > 1);
+    }
+
+    @Test
+    void excludedBoxes_splitRegionStillOverriddenByLaterRegion() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int a = builder.addState(null, 0);
+        int b = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 5, 0, 5, a, false, List.<int[][]>of(new int[][]{{2, 0, 2}, {3, 0, 3}}));
+        builder.addRegion(3, 0, 0, 3, 0, 5, b, false, null);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(36 - 4 + 2, positions.size());
+        assertEquals(positions.size(), new HashSet<>(positions).size());
+    }
+
+    @Test
+    void excludedBoxes_hollowRegion_placesShellOutsideExcludes() {
+        List<int[][]> excludes = List.<int[][]>of(new int[][]{{2, 0, 0}, {3, 2, 0}});
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        builder.addRegion(0, 0, 0, 5, 4, 5, builder.addState(null, 0), true, excludes);
+
+        Set<Long> expected = new HashSet<>();
+        for (int x = 0; x <= 5; x++) {
+            for (int y = 0; y <= 4; y++) {
+                for (int z = 0; z <= 5; z++) {
+                    boolean shell = x == 0 || x == 5 || y == 0 || y == 4 || z == 0 || z == 5;
+                    boolean excluded = x >= 2 && x <= 3 && y <= 2 && z == 0;
+                    if (shell && !excluded) {
+                        expected.add(pos(x, y, z));
+                    }
+                }
+            }
+        }
+        List<Long> positions = drain(builder.build());
+        assertEquals(expected, new HashSet<>(positions));
+        assertEquals(expected.size(), positions.size());
+    }
+
+    @Test
+    void cursor_canResumeAcrossBatches() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, 9, 9, 9, stone, false, null);
+        PlacementPlan.Cursor cursor = builder.build().cursor();
+
+        int count = 0;
+        for (int batch = 0; batch < 4; batch++) {
+            for (int i = 0; i < 300 && cursor.advance(); i++) {
+                count++;
+            }
+        }
+
+        assertEquals(1000, count);
+        assertEquals(cursor.total(), cursor.progress());
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    void placementsWithinPhase_areGroupedBySection() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int floor = builder.addState(null, 0);
+        int wall = builder.addState(null, 0);
+        // 兩個 region 都跨越 x 方向的兩個 section
+        builder.addRegion(0, 0, 0, 31, 0, 0, floor, false, null);
+        builder.addRegion(0, 1, 0, 31, 1, 0, wall, false, null);
+        builder.addBlock(20, 2, 0, wall);
+        builder.addBlock(3, 2, 0, wall);
+
+        PlacementPlan plan = builder.build();
+        List<Long> positions = drain(plan);
+
+        assertEquals(2, plan.getSectionCount());
+        assertEquals(66, positions.size());
+        // 所有 x < 16 的放置都在 x >= 16 之前
+        int firstSecondSection = -1;
+        for (int i = 0; i < positions.size(); i++) {
+            if (BlockPos.getX(positions.get(i)) >= 16) {
+                firstSecondSection = i;
+                break;
+            }
+        }
+        assertEquals(33, firstSecondSection);
+        for (int i = firstSecondSection; i < positions.size(); i++) {
+            assertTrue(BlockPos.getX(positions.get(i)) >= 16);
+        }
+    }
+
+    @Test
+    void overlappingRegionsAndBlocks_carvedOut_estimateIsExact() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int a = builder.addState(null, 0);
+        int b = builder.addState(null, 0);
+        int torch = builder.addState(null, 4);
+        builder.addRegion(0, 0, 0, 9, 9, 9, a, false, null);
+        builder.addRegion(5, 5, 5, 14, 14, 14, b, false, null);
+        builder.addBlock(0, 0, 0, torch);
+        builder.addBlock(7, 7, 7, torch);
+        PlacementPlan plan = builder.build();
+
+        List<Long> positions = drain(plan);
+
+        assertEquals(1000 + 1000 - 125, positions.size());
+        assertEquals(positions.size(), new HashSet<>(positions).size());
+        assertEquals(positions.size(), plan.getEstimatedBlocks());
+        assertTrue(plan.getRegionCount() > 2);
+    }
+
+    @Test
+    void laterMaskedRegion_excludedCellsKeepEarlierRegion() {
+        // 每隔一格排除，扣除後的塊數超過上限，b 改走逐格檢查
+        int length = 2 * PlacementPlan.MAX_EXCLUDE_PIECES + 4;
+        List<int[][]> excludes = new ArrayList<>();
+        for (int x = 1; x < length; x += 2) {
+            excludes.add(new int[][]{{x, 0, 0}, {x, 0, 0}});
+        }
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int a = builder.addState(null, 0);
+        int b = builder.addState(null, 1);
+        builder.addRegion(0, 0, 0, length - 1, 0, 0, a, false, null);
+        builder.addRegion(0, 0, 0, length - 1, 0, 0, b, false, excludes);
+
+        List<Long> positions = drain(builder.build());
+
+        // a 只剩 b 排除的奇數格（phase 0），b 的偶數格在 phase 1
+        assertEquals(length, positions.size());
+        int half = length / 2;
+        for (int i = 0; i < length; i++) {
+            int x = BlockPos.getX(positions.get(i));
+            assertEquals(i < half ? 1 : 0, x % 2, "position " + i);
+        }
+        assertEquals(length, new HashSet<>(positions).size());
+    }
+
+    @Test
+    void randomOverlaps_matchLastWriterWins() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+            Map<Long, Integer> expected = new HashMap<>();
+            int regions = 1 + random.nextInt(6);
+            for (int i = 0; i < regions; i++) {
+                int state = builder.addState(null, 0);
+                int[] from = {random.nextInt(20), random.nextInt(20), random.nextInt(20)};
+                int[] to = {random.nextInt(20), random.nextInt(20), random.nextInt(20)};
+                boolean hollow = random.nextBoolean();
+                builder.addRegion(from[0], from[1], from[2], to[0], to[1], to[2], state, hollow, null);
+                int[] box = CuboidSubtraction.box(from, to);
+                for (int x = box[0]; x <= box[3]; x++) {
+                    for (int y = box[1]; y <= box[4]; y++) {
+                        for (int z = box[2]; z <= box[5]; z++) {
+                            boolean shell = x == box[0] || x == box[3] || y == box[1] || y == box[4]
+                                    || z == box[2] || z == box[5];
+                            if (!hollow || shell) {
+                                expected.put(pos(x, y, z), state);
+                            }
+                        }
+                    }
+                }
+            }
+            // 數量足以讓部分 region 超過拆分上限，走逐格檢查的路徑
+            int blocks = random.nextInt(2000);
+            int blockState = builder.addState(null, 0);
+            for (int i = 0; i < blocks; i++) {
+                int x = random.nextInt(20), y = random.nextInt(20), z = random.nextInt(20);
+                builder.addBlock(x, y, z, blockState);
+                expected.put(pos(x, y, z), blockState);
+            }
+
+            List<Long> positions = drain(builder.build());
+
+            assertEquals(expected.size(), positions.size());
+            assertEquals(expected.keySet(), new HashSet<>(positions));
+        }
+    }
+
+    @Test
+    void phases_emittedInOrder_stableWithinSection() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int attached = builder.addState(null, PlacementClasses.ATTACHED);
+        int door = builder.addState(null, PlacementClasses.MULTI_PART);
+        int sand = builder.addState(null, PlacementClasses.GRAVITY);
+        int air = builder.addState(null, PlacementClasses.AIR);
+        int stone = builder.addState(null, PlacementClasses.STRUCTURE);
+        builder.addBlock(0, 0, 0, attached);
+        builder.addBlock(1, 0, 0, door);
+        builder.addBlock(2, 0, 0, sand);
+        builder.addBlock(3, 0, 0, air);
+        builder.addBlock(4, 0, 0, stone);
+        builder.addBlock(6, 0, 0, sand);
+        builder.addBlock(5, 0, 0, sand);
+
+        List<Long> positions = drain(builder.build());
+
+        assertEquals(List.of(pos(4, 0, 0), pos(3, 0, 0), pos(2, 0, 0), pos(6, 0, 0), pos(5, 0, 0),
+                pos(1, 0, 0), pos(0, 0, 0)), positions);
+    }
+
+    @Test
+    void addState_phaseOutOfRange_clamped() {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int late = builder.addState(null, PlacementPlan.PHASE_COUNT + 3);
+        int early = builder.addState(null, -1);
+        builder.addBlock(0, 0, 0, late);
+        builder.addBlock(1, 0, 0, early);
+
+        PlacementPlan.Cursor cursor = builder.build().cursor();
+
+        assertTrue(cursor.advance());
+        assertEquals(pos(1, 0, 0), cursor.pos());
+        assertTrue(cursor.isStructural());
+        assertTrue(cursor.advance());
+        assertFalse(cursor.isStructural());
+    }
+
+    @Test
+    void emptyBuilder_isEmpty() {
+        PlacementPlan plan = new PlacementPlan.Builder(BlockPos.ZERO).build();
+        assertTrue(plan.isEmpty());
+        assertTrue(drain(plan).isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package craftassist.builder;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementStreamTest {
+
+    private static PlacementPlan cube(int size) {
+        PlacementPlan.Builder builder = new PlacementPlan.Builder(BlockPos.ZERO);
+        int stone = builder.addState(null, 0);
+        builder.addRegion(0, 0, 0, size - 1, size - 1, size - 1, stone, false, null);
+        return builder.build();
+    }
+
+    @Test
+    void emptyStream_isNotCompleteUntilProducerFinishes() {
+        PlacementStream stream = new PlacementStream();
+
+        assertFalse(stream.advance());
+        assertFalse(stream.isComplete());
+
+        stream.finish();
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    void produce_deliversEveryPlacementAcrossChunks() throws Exception {
+        PlacementStream stream = new PlacementStream();
+        PlacementPlan plan = cube(20);
+
+        Thread producer = new Thread(() -> {
+            try {
+                stream.produce(plan);
+                stream.finish();
+            } catch (InterruptedException e) {
+                stream.fail(e);
+            }
+        });
+        producer.start();
+
+        Set<Long> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!stream.isComplete() && System.currentTimeMillis() < deadline) {
+            while (stream.advance()) {
+                seen.add(stream.pos());
+            }
+        }
+        producer.join();
+
+        assertEquals(8000, seen.size());
+        assertEquals(8000, stream.total());
+        assertEquals(stream.total(), stream.progress());
+        assertNull(stream.getFailure());
+    }
+
+    @Test
+    void boundedQueue_blocksProducerUntilConsumed() throws Exception {
+        PlacementStream stream = new PlacementStream(1);
+        PlacementPlan plan = cube(20);
+
+        Thread producer = new Thread(() -> {
+            try {
+                stream.produce(plan);
+                stream.finish();
+            } catch (InterruptedException e) {
+                stream.fail(e);
+            }
+        });
+        producer.start();
+        Thread.sleep(200);
+
+        // 8000 個放置需要兩個 chunk，容量 1 的佇列讓生產端停在第二個
+        assertTrue(producer.isAlive());
+        assertFalse(stream.isComplete());
+
+        stream.close();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    void produce_multiplePlans_accumulateTotalAndProgress() throws Exception {
+        PlacementStream stream = new PlacementStream();
+
+        stream.produce(cube(2));
+        stream.produce(cube(3));
+        stream.finish();
+
+        int count = 0;
+        while (stream.advance()) {
+            count++;
+        }
+        assertEquals(35, count);
+        assertEquals(35, stream.total());
+        assertEquals(35, stream.progress());
+        assertTrue(stream.isComplete());
+    }
+
+    @Test
+    void isUnique_onlyForSinglePlanStream() {
+        assertTrue(new PlacementStream(true).isUnique());
+        assertFalse(new PlacementStream().isUnique());
+        assertTrue(cube(2).cursor().isUnique());
+    }
+
+    @Test
+    void fail_recordsFailureAndCompletes() {
+        PlacementStream stream = new PlacementStream();
+        IllegalStateException error = new IllegalStateException("boom");
+
+        stream.fail(error);
+
+        assertTrue(stream.isComplete());
+        assertSame(error, stream.getFailure());
+    }
+}
@@ -72,6 +72,15 @@ class ConfigManagerValidationTest {
         assertEquals(60, config.getTimeoutSeconds());
     }
 
+    @Test
+    void streamMaxSeconds_outOfRange_resetsTo900() {
+        ModConfig config = defaultConfig();
+        config.setStreamMaxSeconds(30);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(900, config.getStreamMaxSeconds());
+    }
+
     @Test
     void rateLimitTokens_zero_resetsTo3() {
         ModConfig config = defaultConfig();
@@ -162,6 +171,109 @@ class ConfigManagerValidationTest {
         assertEquals(100_000, config.getMaxRegionVolume());
     }
 
+    @Test
+    void placementBudgetMs_zero_resetsTo10() {
+        ModConfig config = defaultConfig();
+        config.setPlacementBudgetMs(0);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(10, config.getPlacementBudgetMs());
+    }
+
+    @Test
+    void placementBudgetMs_overTick_resetsTo10() {
+        ModConfig config = defaultConfig();
+        config.setPlacementBudgetMs(60);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(10, config.getPlacementBudgetMs());
+    }
+
+    @Test
+    void maxBlocksPerTick_zero_resetsTo20000() {
+        ModConfig config = defaultConfig();
+        config.setMaxBlocksPerTick(0);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(20_000, config.getMaxBlocksPerTick());
+    }
+
+    @Test
+    void taskWeights_invalid_resetToDefaults() {
+        ModConfig config = defaultConfig();
+        config.setBuildTaskWeight(0);
+        config.setUndoTaskWeight(500);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(1, config.getBuildTaskWeight());
+        assertEquals(2, config.getUndoTaskWeight());
+    }
+
+    @Test
+    void undoHistoryBudgetMb_tooHigh_resetsTo256() {
+        ModConfig config = defaultConfig();
+        config.setUndoHistoryBudgetMb(100_000_000);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(256, config.getUndoHistoryBudgetMb());
+    }
+
+    @Test
+    void apiUrl_withoutScheme_resetsToDefault() {
+        ModConfig config = defaultConfig();
+        config.setApiUrl("localhost:8080/v1/chat/completions");
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(ModConfig.DEFAULT_API_URL, config.getApiUrl());
+    }
+
+    @Test
+    void apiUrl_localHttp_noFix() {
+        ModConfig config = defaultConfig();
+        config.setApiUrl("http://127.0.0.1:8089/v1/chat/completions");
+
+        assertFalse(ConfigManager.validateAndFix(config));
+    }
+
+    @Test
+    void responseCache_invalidLimits_resetToDefaults() {
+        ModConfig config = defaultConfig();
+        config.setResponseCacheTtlHours(0);
+        config.setResponseCacheMemoryEntries(-1);
+        config.setResponseCacheMaxDiskMb(-5);
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(168, config.getResponseCacheTtlHours());
+        assertEquals(64, config.getResponseCacheMemoryEntries());
+        assertEquals(64, config.getResponseCacheMaxDiskMb());
+    }
+
+    @Test
+    void responseCache_zeroTiers_noFix() {
+        ModConfig config = defaultConfig();
+        config.setResponseCacheMemoryEntries(0);
+        config.setResponseCacheMaxDiskMb(0);
+
+        assertFalse(ConfigManager.validateAndFix(config));
+    }
+
+    @Test
+    void pipelineMode_unknown_resetsToStaged() {
+        ModConfig config = defaultConfig();
+        config.setPipelineMode("parallel");
+
+        assertTrue(ConfigManager.validateAndFix(config));
+        assertEquals(ModConfig.PIPELINE_STAGED, config.getPipelineMode());
+    }
+
+    @Test
+    void pipelineMode_combined_noFix() {
+        ModConfig config = defaultConfig();
+        config.setPipelineMode(ModConfig.PIPELINE_COMBINED);
+
+        assertFalse(ConfigManager.validateAndFix(config));
+    }
+
     @Test
     void multipleInvalidFields_allFixed() {
         ModConfig config = defaultConfig();
@@ -18,17 +18,40 @@ class ModConfigTest {
         assertEquals("anthropic/claude-sonnet-4-5", config.getModel());
     }
 
+    @Test
+    void defaults_apiUrlIsOpenRouter() {
+        var config = new ModConfig();
+        assertEquals("https://openrouter.ai/api/v1/chat/completions", config.getApiUrl());
+        assertEquals("", config.getLlmRecordDir());
+    }
+
     @Test
     void defaults_numericFieldsHaveExpectedValues() {
         var config = new ModConfig();
         assertEquals(1_000_000, config.getMaxBlocks());
         assertEquals(500, config.getBlocksPerTick());
         assertEquals(60, config.getTimeoutSeconds());
+        assertEquals(900, config.getStreamMaxSeconds());
         assertEquals(100_000, config.getMaxRegionVolume());
         assertEquals(200, config.getMaxCoordinate());
         assertEquals(3, config.getRateLimitTokens());
         assertEquals(60, config.getRateLimitRefillSeconds());
         assertEquals(2, config.getMaxRetries());
+        assertTrue(config.isAdaptivePlacement());
+        assertEquals(10, config.getPlacementBudgetMs());
+        assertEquals(20_000, config.getMaxBlocksPerTick());
+        assertEquals(1, config.getBuildTaskWeight());
+        assertEquals(2, config.getUndoTaskWeight());
+        assertFalse(config.isBulkWriteStructural());
+        assertTrue(config.isStreamResponses());
+        assertEquals(ModConfig.PIPELINE_STAGED, config.getPipelineMode());
+        assertFalse(config.isProgressiveBuild());
+        assertTrue(config.isLocalRepair());
+        assertTrue(config.isResponseCacheEnabled());
+        assertEquals(168, config.getResponseCacheTtlHours());
+        assertEquals(64, config.getResponseCacheMemoryEntries());
+        assertEquals(64, config.getResponseCacheMaxDiskMb());
+        assertEquals(256, config.getUndoHistoryBudgetMb());
     }
 
     @Test
@@ -0,0 +1,114 @@
+package craftassist.library;
+
+import craftassist.builder.BuildStructure;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureCodecTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final String HOUSE = """
+            {
+              "regions": [
+                {"block": "minecraft:oak_planks", "from": [0,0,0], "to": [6,0,8]},
+                {"block": "minecraft:cobblestone", "from": [-3,1,0], "to": [6,4,8], "hollow": true,
+                 "exclude": [[[2,1,0],[3,2,0]]]},
+                {"block": "minecraft:oak_stairs", "from": [0,5,0], "to": [6,5,0], "facing": "north",
+                 "properties": {"half": "bottom", "shape": "straight"}}
+              ],
+              "blocks": [
+                {"block": "minecraft:oak_door", "pos": [3,1,0], "properties": {"facing": "south", "half": "lower"}},
+                {"block": "minecraft:oak_door", "pos": [3,2,0], "properties": {"half": "upper", "facing": "south"}},
+                {"block": "minecraft:torch", "pos": [1,2,-1000]}
+              ]
+            }
+            """;
+
+    @Test
+    void roundTrip_preservesAllFields() throws IOException {
+        BuildStructure original = GSON.fromJson(HOUSE, BuildStructure.class);
+
+        BuildStructure decoded = StructureCodec.decode(StructureCodec.encode(original));
+
+        assertEquals(3, decoded.getRegions().size());
+        for (int i = 0; i < 3; i++) {
+            BuildStructure.BlockRegion expected = original.getRegions().get(i);
+            BuildStructure.BlockRegion actual = decoded.getRegions().get(i);
+            assertEquals(expected.getBlock(), actual.getBlock());
+            assertArrayEquals(expected.getFrom(), actual.getFrom());
+            assertArrayEquals(expected.getTo(), actual.getTo());
+            assertEquals(expected.isHollow(), actual.isHollow());
+            assertEquals(expected.getFacing(), actual.getFacing());
+            assertEquals(expected.getProperties(), actual.getProperties());
+        }
+        List<int[][]> exclude = decoded.getRegions().get(1).getExclude();
+        assertEquals(1, exclude.size());
+        assertArrayEquals(new int[]{2, 1, 0}, exclude.get(0)[0]);
+        assertArrayEquals(new int[]{3, 2, 0}, exclude.get(0)[1]);
+        assertNull(decoded.getRegions().get(0).getExclude());
+
+        assertEquals(3, decoded.getBlocks().size());
+        for (int i = 0; i < 3; i++) {
+            BuildStructure.IndividualBlock expected = original.getBlocks().get(i);
+            BuildStructure.IndividualBlock actual = decoded.getBlocks().get(i);
+            assertEquals(expected.getBlock(), actual.getBlock());
+            assertArrayEquals(expected.getPos(), actual.getPos());
+            assertEquals(expected.getProperties(), actual.getProperties());
+        }
+        assertNull(decoded.getBlocks().get(2).getProperties());
+    }
+
+    @Test
+    void encode_repeatedStates_sharePaletteAndStaySmall() {
+        StringBuilder json = new StringBuilder("{\"blocks\":[");
+        for (int i = 0; i < 500; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"block\":\"minecraft:stone_bricks\",\"pos\":[").append(i % 20).append(",")
+                    .append(i / 20).append(",0],\"properties\":{\"waterlogged\":\"false\"}}");
+        }
+        json.append("]}");
+        BuildStructure structure = GSON.fromJson(json.toString(), BuildStructure.class);
+
+        byte[] encoded = StructureCodec.encode(structure);
+
+        // 每個方塊 1 byte palette 索引 + 3 bytes 座標
+        assertTrue(encoded.length < 500 * 4 + 100, "encoded " + encoded.length + " bytes");
+        assertTrue(encoded.length * 10 < json.toString().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void decode_propertiesAreIndependentCopies() throws IOException {
+        BuildStructure decoded = StructureCodec.decode(
+                StructureCodec.encode(GSON.fromJson(HOUSE, BuildStructure.class)));
+
+        Map<String, String> lower = decoded.getBlocks().get(0).getProperties();
+        lower.put("facing", "east");
+
+        assertEquals("south", decoded.getBlocks().get(1).getProperties().get("facing"));
+    }
+
+    @Test
+    void decode_truncated_throwsIOException() {
+        byte[] encoded = StructureCodec.encode(GSON.fromJson(HOUSE, BuildStructure.class));
+
+        assertThrows(IOException.class, () -> StructureCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+        assertThrows(IOException.class, () -> StructureCodec.decode(new byte[]{1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    void encode_emptyStructure_roundTrips() throws IOException {
+        BuildStructure decoded = StructureCodec.decode(StructureCodec.encode(new BuildStructure()));
+
+        assertTrue(decoded.getRegions().isEmpty());
+        assertTrue(decoded.getBlocks().isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package craftassist.library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureIndexTest {
+
+    private static final UUID OWNER = new UUID(0x1234, 0x5678);
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("structure-index", ".bin");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static StructureIndex.Entry entry(String name, long savedAt) {
+        return new StructureIndex.Entry(name, OWNER, 5, 12, 7, 10, 9, savedAt, 321);
+    }
+
+    @Test
+    void put_thenFind_returnsEntry() throws IOException {
+        try (StructureIndex index = StructureIndex.open(file)) {
+            index.put(entry("cabin", 1000));
+
+            assertEquals(entry("cabin", 1000), index.find("cabin"));
+            assertNull(index.find("castle"));
+            assertEquals(1, index.size());
+        }
+    }
+
+    @Test
+    void put_sameName_overwritesInPlace() throws IOException {
+        try (StructureIndex index = StructureIndex.open(file)) {
+            index.put(entry("cabin", 1000));
+            index.put(entry("tower", 2000));
+            index.put(new StructureIndex.Entry("cabin", OWNER, 1, 2, 3, 4, 5, 3000, 6));
+
+            assertEquals(2, index.size());
+            List<StructureIndex.Entry> entries = index.list();
+            assertEquals("cabin", entries.get(0).name());
+            assertEquals(3000, entries.get(0).savedAt());
+            assertEquals("tower", entries.get(1).name());
+        }
+    }
+
+    @Test
+    void reopen_preservesEntries() throws IOException {
+        try (StructureIndex index = StructureIndex.open(file)) {
+            index.put(entry("cabin", 1000));
+            index.put(entry("a-very-long-name_with_31_chars_", 2000));
+        }
+
+        try (StructureIndex index = StructureIndex.open(file)) {
+            assertEquals(2, index.size());
+            assertEquals(entry("a-very-long-name_with_31_chars_", 2000),
+                    index.find("a-very-long-name_with_31_chars_"));
+        }
+    }
+
+    @Test
+    void put_beyondInitialCapacity_growsMapping() throws IOException {
+        try (StructureIndex index = StructureIndex.open(file)) {
+            for (int i = 0; i < 1000; i++) {
+                index.put(entry("build" + i, i));
+            }
+        }
+
+        try (StructureIndex index = StructureIndex.open(file)) {
+            assertEquals(1000, index.size());
+            List<StructureIndex.Entry> entries = index.list();
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(entry("build" + i, i), entries.get(i));
+            }
+        }
+    }
+
+    @Test
+    void open_notAnIndex_throwsIOException() throws IOException {
+        Files.write(file, new byte[128]);
+
+        assertThrows(IOException.class, () -> StructureIndex.open(file));
+    }
+
+    @Test
+    void put_nameTooLong_throws() throws IOException {
+        try (StructureIndex index = StructureIndex.open(file)) {
+            assertThrows(IllegalArgumentException.class, () -> index.put(entry("x".repeat(32), 0)));
+        }
+    }
+}
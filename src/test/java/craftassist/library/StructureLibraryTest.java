@@ -0,0 +1,118 @@
+package craftassist.library;
+
+import craftassist.builder.BuildStructure;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureLibraryTest {
+
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+    private static final Gson GSON = new Gson();
+    private static final String CABIN = """
+            {
+              "regions": [{"block": "minecraft:oak_planks", "from": [0,0,0], "to": [4,3,6]}],
+              "blocks": [{"block": "minecraft:oak_door", "pos": [2,1,0], "properties": {"facing": "south"}}]
+            }
+            """;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("structure-library-test");
+        StructureLibrary.load(dir);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        StructureLibrary.unload();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    void save_withoutBuild_returnsNull() throws Exception {
+        assertFalse(StructureLibrary.hasLastBuild(ALICE));
+        assertNull(StructureLibrary.save(ALICE, "cabin"));
+    }
+
+    @Test
+    void save_thenLoad_returnsUnrotatedStructure() throws Exception {
+        BuildStructure structure = GSON.fromJson(CABIN, BuildStructure.class);
+        StructureLibrary.remember(ALICE, structure);
+        // 放置流程會直接旋轉原物件，暫存內容不受影響
+        structure.getBlocks().get(0).setPos(new int[]{9, 9, 9});
+
+        StructureIndex.Entry entry = StructureLibrary.save(ALICE, "cabin");
+        BuildStructure loaded = StructureLibrary.load("cabin");
+
+        assertEquals(new StructureIndex.Entry("cabin", ALICE, 1, 1, 5, 4, 7, entry.savedAt(), entry.bytes()), entry);
+        assertArrayEquals(new int[]{2, 1, 0}, loaded.getBlocks().get(0).getPos());
+        assertArrayEquals(new int[]{4, 3, 6}, loaded.getRegions().get(0).getTo());
+        assertTrue(Files.exists(dir.resolve("cabin" + StructureLibrary.EXTENSION)));
+    }
+
+    @Test
+    void load_unknownName_returnsNull() throws IOException {
+        assertNull(StructureLibrary.load("castle"));
+    }
+
+    @Test
+    void reload_listsSavedStructures() throws Exception {
+        StructureLibrary.remember(ALICE, GSON.fromJson(CABIN, BuildStructure.class));
+        StructureLibrary.save(ALICE, "cabin");
+        StructureLibrary.save(ALICE, "cabin2");
+
+        StructureLibrary.load(dir);
+
+        assertEquals(2, StructureLibrary.list().size());
+        assertNotNull(StructureLibrary.load("cabin2"));
+        // 暫存的建築不跨伺服器重新啟動保留
+        assertFalse(StructureLibrary.hasLastBuild(ALICE));
+    }
+
+    @Test
+    void save_ownName_overwrites() throws Exception {
+        StructureLibrary.remember(ALICE, GSON.fromJson(CABIN, BuildStructure.class));
+        StructureLibrary.save(ALICE, "cabin");
+
+        assertNotNull(StructureLibrary.save(ALICE, "cabin"));
+        assertEquals(1, StructureLibrary.list().size());
+    }
+
+    @Test
+    void save_otherPlayersName_throwsAndKeepsOriginal() throws Exception {
+        StructureLibrary.remember(ALICE, GSON.fromJson(CABIN, BuildStructure.class));
+        StructureLibrary.save(ALICE, "cabin");
+        String stone = "{\"blocks\": [{\"block\": \"minecraft:stone\", \"pos\": [0,0,0]}]}";
+        StructureLibrary.remember(BOB, GSON.fromJson(stone, BuildStructure.class));
+
+        assertThrows(StructureLibrary.NameTakenException.class, () -> StructureLibrary.save(BOB, "cabin"));
+
+        assertEquals(ALICE, StructureLibrary.list().get(0).owner());
+        assertEquals(1, StructureLibrary.load("cabin").getRegions().size());
+    }
+
+    @Test
+    void normalizeName_validatesAndLowercases() {
+        assertEquals("my_house-2", StructureLibrary.normalizeName("My_House-2"));
+        assertNull(StructureLibrary.normalizeName("../etc"));
+        assertNull(StructureLibrary.normalizeName("x".repeat(32)));
+        assertNull(StructureLibrary.normalizeName(""));
+    }
+}
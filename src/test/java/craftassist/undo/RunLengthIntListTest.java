@@ -0,0 +1,69 @@
+package craftassist.undo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunLengthIntListTest {
+
+    private static List<Integer> readAll(RunLengthIntList list) {
+        List<Integer> result = new ArrayList<>();
+        RunLengthIntList.Reader reader = list.reader();
+        while (reader.hasNext()) {
+            result.add(reader.next());
+        }
+        return result;
+    }
+
+    @Test
+    void identicalValues_collapseIntoOneRun() {
+        RunLengthIntList list = new RunLengthIntList();
+        for (int i = 0; i < 10000; i++) {
+            list.add(0);
+        }
+
+        assertEquals(10000, list.size());
+        assertEquals(1, list.runCount());
+        assertEquals(10000, list.runLength(0));
+    }
+
+    @Test
+    void alternatingValues_oneRunEach() {
+        RunLengthIntList list = new RunLengthIntList();
+        list.add(1);
+        list.add(2);
+        list.add(2);
+        list.add(1);
+
+        assertEquals(3, list.runCount());
+        assertEquals(List.of(1, 2, 2, 1), readAll(list));
+    }
+
+    @Test
+    void randomSequence_roundTrips() {
+        Random random = new Random(42);
+        RunLengthIntList list = new RunLengthIntList();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // 偏向產生連續相同的值
+            int value = random.nextInt(10) < 8 && !expected.isEmpty()
+                    ? expected.get(expected.size() - 1) : random.nextInt(5);
+            expected.add(value);
+            list.add(value);
+        }
+        list.trim();
+
+        assertEquals(expected, readAll(list));
+    }
+
+    @Test
+    void emptyList_readerHasNothing() {
+        RunLengthIntList list = new RunLengthIntList();
+        assertFalse(list.reader().hasNext());
+        assertEquals(0, list.size());
+    }
+}
@@ -0,0 +1,121 @@
+package craftassist.undo;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoDataTest {
+
+    private static final BlockState AIR = new BlockState();
+    private static final BlockState STONE = new BlockState();
+    private static final BlockState DIRT = new BlockState();
+
+    @Test
+    void snapshots_iterateInRecordedOrder() {
+        UndoData data = new UndoData();
+        data.addSnapshot(new BlockPos(1, 2, 3), AIR);
+        data.addSnapshot(new BlockPos(-4, 70, 9), STONE);
+        data.addSnapshot(new BlockPos(5, -10, 0), AIR);
+
+        List<UndoData.BlockSnapshot> snapshots = new ArrayList<>();
+        data.getSnapshots().forEach(snapshots::add);
+
+        assertEquals(List.of(
+                new UndoData.BlockSnapshot(new BlockPos(1, 2, 3), AIR),
+                new UndoData.BlockSnapshot(new BlockPos(-4, 70, 9), STONE),
+                new UndoData.BlockSnapshot(new BlockPos(5, -10, 0), AIR)), snapshots);
+    }
+
+    @Test
+    void paletteHoldsEachStateOnce() {
+        UndoData data = new UndoData();
+        for (int i = 0; i < 300; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 64, 0), i % 3 == 0 ? STONE : i % 3 == 1 ? DIRT : AIR);
+        }
+
+        assertEquals(300, data.size());
+        assertEquals(3, data.getPaletteSize());
+    }
+
+    @Test
+    void airRuns_areRunLengthCompressed() {
+        UndoData data = new UndoData();
+        for (int i = 0; i < 1000; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 64, 0), AIR);
+        }
+        data.addSnapshot(BlockPos.asLong(0, 63, 0), STONE);
+        for (int i = 0; i < 1000; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 65, 0), AIR);
+        }
+
+        assertEquals(3, data.getRunCount());
+    }
+
+    @Test
+    void cursor_readsPackedPositionsAndStates() {
+        UndoData data = new UndoData();
+        data.addSnapshot(BlockPos.asLong(7, 8, 9), DIRT);
+        data.addSnapshot(BlockPos.asLong(7, 9, 9), DIRT);
+
+        UndoData.Cursor cursor = data.cursor();
+        assertTrue(cursor.advance());
+        assertEquals(BlockPos.asLong(7, 8, 9), cursor.pos());
+        assertSame(DIRT, cursor.state());
+        assertTrue(cursor.advance());
+        assertEquals(BlockPos.asLong(7, 9, 9), cursor.pos());
+        assertEquals(2, cursor.consumed());
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    void trim_keepsContent() {
+        UndoData data = new UndoData();
+        for (int i = 0; i < 100; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 0, 0), i < 50 ? AIR : STONE);
+        }
+        data.trim();
+
+        assertEquals(100 * Long.BYTES + 2 * 2 * Integer.BYTES + 2 * Long.BYTES, data.estimateBytes());
+        int count = 0;
+        for (UndoData.BlockSnapshot snapshot : data.getSnapshots()) {
+            assertSame(count < 50 ? AIR : STONE, snapshot.originalState());
+            count++;
+        }
+        assertEquals(100, count);
+    }
+
+    @Test
+    void emptyData_hasNoSnapshots() {
+        UndoData data = new UndoData();
+        assertEquals(0, data.size());
+        assertFalse(data.getSnapshots().iterator().hasNext());
+        assertFalse(data.cursor().advance());
+    }
+
+    @Test
+    void blockEntities_areReturnedOnlyAtTheirSnapshot() {
+        UndoData data = new UndoData();
+        byte[] chest = {1, 2, 3};
+        byte[] sign = {4};
+        data.addSnapshot(BlockPos.asLong(0, 0, 0), AIR);
+        data.addSnapshot(BlockPos.asLong(1, 0, 0), STONE, chest);
+        data.addSnapshot(BlockPos.asLong(2, 0, 0), AIR);
+        data.addSnapshot(BlockPos.asLong(3, 0, 0), DIRT, sign);
+
+        UndoData.Cursor cursor = data.cursor();
+        cursor.advance();
+        assertNull(cursor.blockEntity());
+        cursor.advance();
+        assertSame(chest, cursor.blockEntity());
+        cursor.advance();
+        assertNull(cursor.blockEntity());
+        cursor.advance();
+        assertSame(sign, cursor.blockEntity());
+        assertEquals(2, data.getBlockEntityCount());
+    }
+}
@@ -0,0 +1,215 @@
+package craftassist.undo;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoFileTest {
+
+    static final BlockState AIR = new BlockState();
+    static final BlockState STONE = new BlockState();
+    static final BlockState GLASS = new BlockState();
+
+    /**
+     * 以固定清單中的索引代替 NBT，測試不需要遊戲登錄表。
+     */
+    static final UndoFile.StateCodec CODEC = new UndoFile.StateCodec() {
+        private final List<BlockState> known = List.of(AIR, STONE, GLASS);
+
+        @Override
+        public void write(DataOutput out, BlockState state) throws IOException {
+            out.writeByte(known.indexOf(state));
+        }
+
+        @Override
+        public BlockState read(DataInput in) throws IOException {
+            return known.get(in.readByte());
+        }
+    };
+
+    private Path dir;
+
+    @BeforeEach
+    void createDir() throws IOException {
+        dir = Files.createTempDirectory("undo-file-test");
+    }
+
+    @AfterEach
+    void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static UndoData sample() {
+        UndoData data = new UndoData();
+        for (int i = 0; i < 500; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 64, -i), AIR);
+        }
+        data.addSnapshot(BlockPos.asLong(0, 63, 0), STONE);
+        data.addSnapshot(BlockPos.asLong(1, 63, 0), GLASS);
+        return data;
+    }
+
+    @Test
+    void writeThenRead_roundTripsAllSnapshots() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+
+        UndoData.Cursor expected = data.cursor();
+        try (UndoFile.Reader reader = UndoFile.open(file, CODEC, false)) {
+            assertEquals(data.size(), reader.size());
+            while (expected.advance()) {
+                assertTrue(reader.advance());
+                assertEquals(expected.pos(), reader.pos());
+                assertSame(expected.state(), reader.state());
+            }
+            assertFalse(reader.advance());
+        }
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void header_isReadWithoutLoadingSnapshots() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("7.undo");
+        UndoFile.write(file, data, new UndoFile.Header(true, 7, "minecraft:the_nether", data.size()), CODEC);
+
+        UndoFile.Header header = UndoFile.readHeader(file);
+
+        assertEquals(new UndoFile.Header(true, 7, "minecraft:the_nether", 502), header);
+    }
+
+    @Test
+    void fileSize_isDominatedByPositions() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+
+        // 502 個座標 + 3 個 run + 表頭與 palette
+        assertTrue(Files.size(file) < 502 * 8 + 3 * 8 + 64);
+    }
+
+    @Test
+    void deleteWhenDone_onlyAfterFullRead() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+
+        try (UndoFile.Reader partial = UndoFile.open(file, CODEC, true)) {
+            partial.advance();
+        }
+        assertTrue(Files.exists(file));
+
+        try (UndoFile.Reader full = UndoFile.open(file, CODEC, true)) {
+            while (full.advance()) {
+                // 讀完
+            }
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void corruptedMagic_isRejected() throws IOException {
+        Path file = dir.resolve("bad.undo");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> UndoFile.readHeader(file));
+    }
+
+    @Test
+    void runLengthMismatch_isRejected() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+        // 把表頭中的快照數改大，使其與 run 總長度不符
+        long countOffset = 4 + 1 + 1 + 8 + 2 + "minecraft:overworld".length();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(countOffset);
+            raf.writeInt(9999);
+        }
+
+        assertThrows(IOException.class, () -> UndoFile.open(file, CODEC, false));
+    }
+
+    @Test
+    void truncatedPositions_areRejected() throws IOException {
+        UndoData data = sample();
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        assertThrows(IOException.class, () -> UndoFile.open(file, CODEC, false));
+    }
+
+    @Test
+    void blockEntities_roundTrip() throws IOException {
+        UndoData data = sample();
+        byte[] chest = {10, 20, 30, 40};
+        data.addSnapshot(BlockPos.asLong(5, 70, 5), STONE, chest);
+        data.addSnapshot(BlockPos.asLong(6, 70, 5), AIR);
+        Path file = dir.resolve("1.undo");
+        UndoFile.write(file, data, new UndoFile.Header(false, 1, "minecraft:overworld", data.size()), CODEC);
+
+        int withEntity = 0;
+        try (UndoFile.Reader reader = UndoFile.open(file, CODEC, false)) {
+            while (reader.advance()) {
+                if (reader.blockEntity() != null) {
+                    withEntity++;
+                    assertEquals(BlockPos.asLong(5, 70, 5), reader.pos());
+                    assertArrayEquals(chest, reader.blockEntity());
+                }
+            }
+        }
+        assertEquals(1, withEntity);
+    }
+
+    @Test
+    void versionOneFile_withoutBlockEntities_isStillReadable() throws IOException {
+        Path file = dir.resolve("old.undo");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(UndoFile.MAGIC);
+            out.writeByte(1);
+            out.writeByte(0);
+            out.writeLong(3);
+            out.writeUTF("minecraft:overworld");
+            out.writeInt(2);
+            out.writeInt(1);
+            CODEC.write(out, STONE);
+            out.writeInt(1);
+            out.writeInt(0);
+            out.writeInt(2);
+            out.writeLong(BlockPos.asLong(1, 2, 3));
+            out.writeLong(BlockPos.asLong(4, 5, 6));
+        }
+
+        try (UndoFile.Reader reader = UndoFile.open(file, CODEC, false)) {
+            assertTrue(reader.advance());
+            assertEquals(BlockPos.asLong(1, 2, 3), reader.pos());
+            assertSame(STONE, reader.state());
+            assertNull(reader.blockEntity());
+            assertTrue(reader.advance());
+            assertFalse(reader.advance());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package craftassist.undo;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoManagerTest {
+
+    private static final String OVERWORLD = "minecraft:overworld";
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+
+    private Path dir;
+
+    private static UndoData data(int blocks) {
+        UndoData data = new UndoData();
+        for (int i = 0; i < blocks; i++) {
+            data.addSnapshot(BlockPos.asLong(i, 64, 0), UndoFileTest.AIR);
+        }
+        return data;
+    }
+
+    private static int readCount(UndoManager.Entry entry) throws IOException {
+        int count = 0;
+        try (SnapshotCursor cursor = UndoManager.open(entry)) {
+            while (cursor.advance()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 與 undo/redo 指令相同：先查看，還原開始後才移出堆疊。
+     */
+    private static UndoManager.Entry take(UUID player, boolean redo) {
+        UndoManager.Entry entry = redo ? UndoManager.peekRedo(player) : UndoManager.peekUndo(player);
+        if (entry != null) {
+            assertTrue(UndoManager.remove(player, entry));
+        }
+        return entry;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("undo-manager-test");
+        UndoManager.setCodec(UndoFileTest.CODEC);
+        UndoManager.load(dir);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        UndoManager.unload();
+        UndoManager.setCodec(new NbtStateCodec());
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    void undoStack_takesMostRecentFirst() throws IOException {
+        assertTrue(UndoManager.recordUndo(ALICE, data(1), OVERWORLD));
+        assertTrue(UndoManager.recordUndo(ALICE, data(2), OVERWORLD));
+
+        assertEquals(2, UndoManager.getUndoDepth(ALICE));
+        assertEquals(2, readCount(take(ALICE, false)));
+        assertEquals(1, readCount(take(ALICE, false)));
+        assertNull(UndoManager.peekUndo(ALICE));
+        assertEquals(0, UndoManager.getTotalBytes());
+    }
+
+    @Test
+    void peek_keepsEntryOnStack() {
+        UndoManager.recordUndo(ALICE, data(3), OVERWORLD);
+        long bytes = UndoManager.getTotalBytes();
+
+        UndoManager.Entry entry = UndoManager.peekUndo(ALICE);
+
+        assertEquals(3, entry.count());
+        assertEquals(1, UndoManager.getUndoDepth(ALICE));
+        assertEquals(bytes, UndoManager.getTotalBytes());
+        assertEquals(entry, UndoManager.peekUndo(ALICE));
+    }
+
+    @Test
+    void remove_peekedEntry_keepsFileUntilRead() throws IOException {
+        UndoManager.recordRedo(ALICE, data(4), OVERWORLD);
+        UndoManager.Entry entry = UndoManager.peekRedo(ALICE);
+
+        assertTrue(UndoManager.remove(ALICE, entry));
+
+        assertEquals(0, UndoManager.getRedoDepth(ALICE));
+        assertEquals(0, UndoManager.getTotalBytes());
+        assertFalse(UndoManager.remove(ALICE, entry));
+        assertEquals(4, readCount(entry));
+        assertFalse(Files.exists(entry.file()));
+    }
+
+    @Test
+    void fullyRestoredEntry_deletesItsFile() throws IOException {
+        UndoManager.recordUndo(ALICE, data(5), OVERWORLD);
+        UndoManager.Entry entry = take(ALICE, false);
+        assertTrue(Files.exists(entry.file()));
+
+        readCount(entry);
+
+        assertFalse(Files.exists(entry.file()));
+    }
+
+    @Test
+    void history_survivesReload() throws IOException {
+        UndoManager.recordUndo(ALICE, data(3), OVERWORLD);
+        UndoManager.recordUndo(ALICE, data(4), "minecraft:the_end");
+        UndoManager.recordRedo(BOB, data(5), OVERWORLD);
+        long bytes = UndoManager.getTotalBytes();
+
+        UndoManager.load(dir);
+
+        assertEquals(bytes, UndoManager.getTotalBytes());
+        assertEquals(2, UndoManager.getUndoDepth(ALICE));
+        assertEquals(1, UndoManager.getRedoDepth(BOB));
+        UndoManager.Entry newest = UndoManager.peekUndo(ALICE);
+        assertEquals("minecraft:the_end", newest.dimension());
+        assertEquals(4, newest.count());
+        assertEquals(4, readCount(newest));
+    }
+
+    @Test
+    void reload_continuesSequenceAfterExistingFiles() {
+        UndoManager.recordUndo(ALICE, data(1), OVERWORLD);
+        UndoManager.recordUndo(ALICE, data(1), OVERWORLD);
+
+        UndoManager.load(dir);
+        UndoManager.recordUndo(ALICE, data(7), OVERWORLD);
+
+        assertEquals(3, UndoManager.getUndoDepth(ALICE));
+        assertEquals(7, UndoManager.peekUndo(ALICE).count());
+    }
+
+    @Test
+    void newBuild_clearsRedoAndDeletesFiles() {
+        UndoManager.recordRedo(ALICE, data(1), OVERWORLD);
+        assertTrue(UndoManager.hasRedo(ALICE));
+
+        UndoManager.recordUndo(ALICE, data(1), OVERWORLD);
+
+        assertFalse(UndoManager.hasRedo(ALICE));
+        UndoManager.load(dir);
+        assertFalse(UndoManager.hasRedo(ALICE));
+        assertEquals(1, UndoManager.getUndoDepth(ALICE));
+    }
+
+    @Test
+    void undoAfterRedo_keepsRemainingRedo() {
+        UndoManager.recordRedo(ALICE, data(1), OVERWORLD);
+        UndoManager.recordRedo(ALICE, data(1), OVERWORLD);
+        take(ALICE, true);
+
+        UndoManager.recordUndoAfterRedo(ALICE, data(1), OVERWORLD);
+
+        assertEquals(1, UndoManager.getRedoDepth(ALICE));
+        assertEquals(1, UndoManager.getUndoDepth(ALICE));
+    }
+
+    @Test
+    void eviction_removesOldestAcrossPlayers() {
+        UndoManager.recordUndo(ALICE, data(100), OVERWORLD);
+        UndoManager.recordUndo(BOB, data(100), OVERWORLD);
+        UndoManager.recordUndo(ALICE, data(200), OVERWORLD);
+
+        assertEquals(1, UndoManager.evictOldest(UndoManager.getTotalBytes() - 1));
+
+        assertEquals(1, UndoManager.getUndoDepth(ALICE));
+        assertEquals(200, UndoManager.peekUndo(ALICE).count());
+        assertEquals(100, UndoManager.peekUndo(BOB).count());
+    }
+
+    @Test
+    void eviction_zeroBudget_dropsEverythingOnDisk() throws IOException {
+        UndoManager.recordUndo(ALICE, data(10), OVERWORLD);
+        UndoManager.recordRedo(BOB, data(10), OVERWORLD);
+
+        assertEquals(2, UndoManager.evictOldest(0));
+        assertEquals(0, UndoManager.getTotalBytes());
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
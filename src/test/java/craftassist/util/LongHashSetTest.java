@@ -0,0 +1,79 @@
+package craftassist.util;
+
+import net.minecraft.core.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void add_newValue_returnsTrue_duplicateReturnsFalse() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+    }
+
+    @Test
+    void zeroValue_isStoredLikeAnyOther() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void growsPastInitialCapacity_keepsAllValues() {
+        LongHashSet set = new LongHashSet(4);
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                assertTrue(set.add(BlockPos.asLong(x, 70, z)));
+            }
+        }
+
+        assertEquals(64 * 64, set.size());
+        for (int x = 0; x < 64; x++) {
+            for (int z = 0; z < 64; z++) {
+                assertTrue(set.contains(BlockPos.asLong(x, 70, z)));
+            }
+        }
+        assertFalse(set.contains(BlockPos.asLong(64, 70, 0)));
+        assertTrue(set.capacity() >= set.size() * 2);
+    }
+
+    @Test
+    void randomValues_matchHashSet() {
+        Random random = new Random(1234);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            // 小範圍確保有大量重複
+            long value = BlockPos.asLong(random.nextInt(40) - 20, random.nextInt(40) - 20, random.nextInt(40) - 20);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+    }
+
+    @Test
+    void clear_removesEverything() {
+        LongHashSet set = new LongHashSet();
+        set.add(0L);
+        set.add(-1L);
+        set.add(123456789L);
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0L));
+        assertFalse(set.contains(-1L));
+        assertTrue(set.add(-1L));
+    }
+}